@@ -0,0 +1,41 @@
+package com.crud.market_api.benchmark;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * In-memory stand-ins for the documents and DTOs the service handles, so benchmarks run offline.
+ */
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Product product(int index) {
+        Product product = new Product();
+        product.setId(String.format("507f1f77bcf86cd7994%05d", index));
+        product.setName("Product " + index);
+        product.setType(index % 2 == 0 ? "Electronics" : "Groceries");
+        return product;
+    }
+
+    static ProductDto productDto(int index) {
+        Product product = product(index);
+        ProductDto dto = new ProductDto();
+        dto.setId(product.getId());
+        dto.setName(product.getName());
+        dto.setType(product.getType());
+        return dto;
+    }
+
+    static List<ProductDto> productDtos(int size) {
+        List<ProductDto> dtos = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            dtos.add(productDto(i));
+        }
+        return dtos;
+    }
+}
@@ -0,0 +1,64 @@
+package com.crud.market_api.benchmark;
+
+import com.crud.market_api.cache.CompactRedisSerializer;
+import com.crud.market_api.model.dto.ProductPageDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Redis value serialization of a single product and of a cached page.
+ * The serialized size of each candidate is printed once during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializationBenchmark {
+
+    @Param({"json", "compact"})
+    public String serializerName;
+
+    @Param({"product", "page"})
+    public String valueKind;
+
+    private RedisSerializer<Object> serializer;
+    private Object value;
+    private byte[] serialized;
+
+    @Setup
+    public void setUp() {
+        serializer = "json".equals(serializerName)
+                ? new GenericJackson2JsonRedisSerializer()
+                : new CompactRedisSerializer(1024);
+        value = "product".equals(valueKind)
+                ? BenchmarkData.productDto(1)
+                : new ProductPageDto(BenchmarkData.productDtos(20), BenchmarkData.productDto(19).getId());
+        serialized = serializer.serialize(value);
+        System.out.printf("%n%s/%s serialized size: %d bytes%n", serializerName, valueKind, serialized.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(value);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(serialized);
+    }
+}
@@ -0,0 +1,97 @@
+package com.crud.market_api.benchmark;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.model.mapper.ProductDtoReadConverter;
+import com.crud.market_api.model.mapper.ProductMapper;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.beans.BeanUtils;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity/DTO mapping as done on every create, read, update and list element, and decoding of
+ * a Mongo document through the entity versus straight into the DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappingBenchmark {
+
+    private Product product;
+    private ProductDto productDto;
+    private Document document;
+    private MappingMongoConverter mongoConverter;
+
+    @Setup
+    public void setUp() {
+        product = BenchmarkData.product(1);
+        productDto = BenchmarkData.productDto(2);
+
+        document = new Document("_id", new ObjectId(product.getId()))
+                .append("name", product.getName())
+                .append("type", product.getType())
+                .append("_class", Product.class.getName());
+
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of(new ProductDtoReadConverter()));
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        mongoConverter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        mongoConverter.setCustomConversions(conversions);
+        mongoConverter.afterPropertiesSet();
+    }
+
+    @Benchmark
+    public ProductDto entityToDtoBeanUtils() {
+        ProductDto dto = new ProductDto();
+        BeanUtils.copyProperties(product, dto);
+        return dto;
+    }
+
+    @Benchmark
+    public ProductDto entityToDtoMapper() {
+        return ProductMapper.toDto(product);
+    }
+
+    @Benchmark
+    public Product dtoToEntityBeanUtils() {
+        Product entity = new Product();
+        BeanUtils.copyProperties(productDto, entity);
+        return entity;
+    }
+
+    @Benchmark
+    public Product dtoToEntityMapper() {
+        return ProductMapper.toEntity(productDto);
+    }
+
+    @Benchmark
+    public ProductDto documentToDtoViaEntity() {
+        return ProductMapper.toDto(mongoConverter.read(Product.class, document));
+    }
+
+    @Benchmark
+    public ProductDto documentToDtoDirect() {
+        return mongoConverter.read(ProductDto.class, document);
+    }
+}
@@ -0,0 +1,83 @@
+package com.crud.market_api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Results of reference runs, one per label, kept in a JSON file under version control. A run is
+ * compared with the entry of its label: throughput may drop, and p99 latency and Mongo commands
+ * per request may grow, by at most the tolerance.
+ */
+final class Baseline {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+
+    Baseline(ObjectMapper objectMapper, Path file) {
+        this.objectMapper = objectMapper;
+        this.file = file;
+    }
+
+    /**
+     * The regressions of a run against its baseline entry, null when there is no entry yet.
+     */
+    List<String> compare(String label, JsonNode result, double tolerance) throws IOException {
+        JsonNode reference = read().get(label);
+        if (reference == null) {
+            return null;
+        }
+
+        List<String> regressions = new ArrayList<>();
+        check(regressions, "throughputPerSecond", reference.path("throughputPerSecond"),
+                result.path("throughputPerSecond"), -tolerance);
+        check(regressions, "p99", reference.path("latencyMillis").path("p99"),
+                result.path("latencyMillis").path("p99"), tolerance);
+        check(regressions, "mongoCommandsPerRequest", reference.path("mongoCommandsPerRequest"),
+                result.path("mongoCommandsPerRequest"), tolerance);
+        return regressions;
+    }
+
+    void update(String label, JsonNode result) throws IOException {
+        ObjectNode entries = read();
+        ObjectNode entry = entries.putObject(label);
+        entry.set("throughputPerSecond", result.path("throughputPerSecond"));
+        entry.putObject("latencyMillis").set("p99", result.path("latencyMillis").path("p99"));
+        entry.set("mongoCommandsPerRequest", result.path("mongoCommandsPerRequest"));
+        entry.set("concurrency", result.path("concurrency"));
+        entry.set("products", result.path("products"));
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.writeString(file, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(entries) + "\n");
+    }
+
+    Path file() {
+        return file;
+    }
+
+    // A negative tolerance bounds a drop, a positive one a rise
+    private static void check(List<String> regressions, String metric, JsonNode reference, JsonNode actual,
+                              double tolerance) {
+        if (!reference.isNumber() || !actual.isNumber() || reference.asDouble() == 0) {
+            return;
+        }
+        double change = actual.asDouble() / reference.asDouble() - 1;
+        boolean regressed = tolerance < 0 ? change < tolerance : change > tolerance;
+        if (regressed) {
+            regressions.add(String.format("%s %.2f -> %.2f (%+.1f%%)",
+                    metric, reference.asDouble(), actual.asDouble(), change * 100));
+        }
+    }
+
+    private ObjectNode read() throws IOException {
+        if (!Files.exists(file)) {
+            return objectMapper.createObjectNode();
+        }
+        return (ObjectNode) objectMapper.readTree(file.toFile());
+    }
+}
@@ -0,0 +1,54 @@
+package com.crud.market_api.loadtest;
+
+import com.crud.market_api.MarketApiApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Starts MongoDB and Redis in Docker and the application in this JVM, on a random port, so a
+ * run does not depend on what is installed or already stored on the machine. The containers
+ * are fresh for every run, which makes runs comparable with each other and with the baseline.
+ */
+final class ContainerTarget implements AutoCloseable {
+
+    private final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+    private final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+    private ConfigurableApplicationContext application;
+
+    /**
+     * Starts everything and returns the base URL of the application.
+     */
+    String start(String profile, List<String> extraArgs) {
+        mongo.start();
+        redis.start();
+
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.data.mongodb.uri=" + mongo.getReplicaSetUrl("marketdb_loadtest"),
+                "--spring.data.redis.host=" + redis.getHost(),
+                "--spring.data.redis.port=" + redis.getMappedPort(6379),
+                // Products are seeded after startup, the hot key ranking starts empty
+                "--market.cache.warm-up.enabled=false"));
+        if (profile != null) {
+            args.add("--spring.profiles.active=" + profile);
+        }
+        args.addAll(extraArgs);
+
+        application = SpringApplication.run(MarketApiApplication.class, args.toArray(String[]::new));
+        return "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+    }
+
+    @Override
+    public void close() {
+        if (application != null) {
+            application.close();
+        }
+        redis.stop();
+        mongo.stop();
+    }
+}
@@ -0,0 +1,452 @@
+package com.crud.market_api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop HTTP load test of the product API.
+ * <p>
+ * Runs against a running instance ({@code --url}) or, with {@code --target containers}, against
+ * the application started in this JVM on fresh MongoDB and Redis containers. Seeds products
+ * through the bulk endpoint, then for each {@code --workload} (read-heavy, write-heavy, mixed or
+ * all) {@code --concurrency} workers send the {@link Workload} mix of requests for
+ * {@code --duration}, after a {@code --warmup} whose samples are dropped. Products, types and name
+ * prefixes are picked with a Zipfian distribution ({@code --zipf-theta}) and every worker draws
+ * from its own random generator derived from {@code --seed}, so runs are reproducible.
+ * <p>
+ * Each run reports throughput and p50/p99/p999 latency, overall and per operation, the cache hit
+ * ratio and Mongo command count read from the actuator over the measured window, writes them to
+ * {@code target/loadtest-<label>.json} and compares them with the {@code --baseline} file.
+ */
+public class ProductApiLoadTest {
+
+    private static final int SEED_BATCH_SIZE = 1_000;
+    private static final int TYPES = 50;
+    private static final int NAME_PREFIXES = 99;
+    private static final int PAGE_SIZE = 20;
+    private static final int BATCH_IDS = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient httpClient;
+    private final Map<String, String> options;
+    private String baseUrl;
+
+    ProductApiLoadTest(Map<String, String> options) {
+        this.options = options;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean passed = new ProductApiLoadTest(parseOptions(args)).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Runs the requested workloads, returns false when one regressed against the baseline.
+     */
+    boolean run() throws Exception {
+        List<Workload> workloads = "all".equals(option("workload", "mixed"))
+                ? List.of(Workload.values())
+                : List.of(Workload.of(option("workload", "mixed")));
+
+        ContainerTarget containers = null;
+        try {
+            if ("containers".equals(option("target", "url"))) {
+                containers = new ContainerTarget();
+                baseUrl = containers.start(options.get("profile"), List.of());
+                System.out.println("Application started on " + baseUrl);
+            } else {
+                baseUrl = option("url", "http://localhost:8080");
+            }
+
+            List<String> ids = seed(Integer.parseInt(option("products", "10000")));
+            // Hot products are spread over the id space, so they do not all fall in the same pages
+            Collections.shuffle(ids, new Random(seed()));
+
+            boolean passed = true;
+            for (Workload workload : workloads) {
+                passed &= runWorkload(workload, ids);
+            }
+            return passed;
+        } finally {
+            if (containers != null) {
+                containers.close();
+            }
+        }
+    }
+
+    private boolean runWorkload(Workload workload, List<String> ids) throws Exception {
+        int concurrency = Integer.parseInt(option("concurrency", "64"));
+        Duration warmup = Duration.parse("PT" + option("warmup", "10s"));
+        Duration duration = Duration.parse("PT" + option("duration", "30s"));
+        ZipfianGenerator products = new ZipfianGenerator(ids.size(), zipfTheta());
+        System.out.printf("Running %s with %d workers on %d products for %s (+%s warm-up)%n",
+                workload.label(), concurrency, ids.size(), duration, warmup);
+
+        long measureFrom = System.nanoTime() + warmup.toNanos();
+        long stopAt = measureFrom + duration.toNanos();
+        ServerMetrics serverMetrics = new ServerMetrics(httpClient, objectMapper, baseUrl);
+        Map<Workload.Operation, OperationResult> results = new EnumMap<>(Workload.Operation.class);
+        ServerMetrics.Snapshot start;
+        ServerMetrics.Snapshot end;
+        // One virtual thread per worker, so thousands of concurrent clients are cheap on this side
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<Map<Workload.Operation, OperationResult>>> futures = new ArrayList<>();
+            for (int i = 0; i < concurrency; i++) {
+                SplittableRandom random = new SplittableRandom(seed() * 31 + workload.ordinal() * 1_000_003L + i);
+                futures.add(executor.submit(() -> work(workload, ids, products, random, measureFrom, stopAt)));
+            }
+
+            Thread.sleep(Math.max(0, (measureFrom - System.nanoTime()) / 1_000_000));
+            start = serverMetrics.snapshot();
+            for (Future<Map<Workload.Operation, OperationResult>> future : futures) {
+                future.get().forEach((operation, result) ->
+                        results.computeIfAbsent(operation, key -> new OperationResult()).addAll(result));
+            }
+            end = serverMetrics.snapshot();
+        }
+
+        return report(workload, concurrency, ids.size(), duration, results, start, end);
+    }
+
+    private Map<Workload.Operation, OperationResult> work(Workload workload, List<String> ids, ZipfianGenerator products,
+                                                          SplittableRandom random, long measureFrom, long stopAt)
+            throws IOException {
+        Map<Workload.Operation, OperationResult> results = new EnumMap<>(Workload.Operation.class);
+        ZipfianGenerator types = new ZipfianGenerator(TYPES, zipfTheta());
+        ZipfianGenerator namePrefixes = new ZipfianGenerator(NAME_PREFIXES, zipfTheta());
+        // Deletes only remove products this worker created, so the Zipfian ids all stay readable
+        Deque<String> created = new ArrayDeque<>();
+
+        while (System.nanoTime() < stopAt) {
+            Workload.Operation operation = workload.next(random);
+            if (operation == Workload.Operation.DELETE && created.isEmpty()) {
+                operation = Workload.Operation.CREATE;
+            }
+            String deletedId = operation == Workload.Operation.DELETE ? created.pop() : null;
+            HttpRequest request = switch (operation) {
+                case GET -> get("/api/products/" + pick(ids, products, random));
+                case GET_IDS -> get("/api/products?ids=" + String.join(",", pickAll(ids, products, random)));
+                case MGET -> jsonRequest("/api/products/_mget", "POST", idsBody(pickAll(ids, products, random)));
+                case LIST -> get("/api/products?size=" + PAGE_SIZE
+                        + (random.nextBoolean() ? "" : "&cursor=" + pick(ids, products, random)));
+                case LIST_BY_TYPE -> get("/api/products?type=" + type(types.next(random)) + "&size=" + PAGE_SIZE);
+                case SEARCH -> get("/api/products/search?name=" + name(namePrefixes.next(random) + 1) + "&size=" + PAGE_SIZE);
+                case EXPORT -> get("/api/products/export");
+                case CREATE -> jsonRequest("/api/products", "POST", productBody(null, random));
+                case UPDATE -> jsonRequest("/api/products", "PUT", productBody(pick(ids, products, random), random));
+                case DELETE -> HttpRequest.newBuilder(URI.create(baseUrl + "/api/products/" + deletedId)).DELETE().build();
+                case BULK -> jsonRequest("/api/products/_bulk", "POST", bulkUpdateBody(pickAll(ids, products, random), random));
+            };
+
+            long start = System.nanoTime();
+            boolean failed;
+            try {
+                // Only the id of a created product is read, other bodies are discarded
+                HttpResponse.BodyHandler<String> bodyHandler = operation == Workload.Operation.CREATE
+                        ? HttpResponse.BodyHandlers.ofString()
+                        : responseInfo -> HttpResponse.BodySubscribers.replacing((String) null);
+                HttpResponse<String> response = httpClient.send(request, bodyHandler);
+                failed = response.statusCode() >= 400;
+                if (operation == Workload.Operation.CREATE && !failed) {
+                    created.push(objectMapper.readTree(response.body()).path("id").asText());
+                }
+            } catch (IOException ex) {
+                failed = true;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long end = System.nanoTime();
+
+            if (start >= measureFrom) {
+                results.computeIfAbsent(operation, key -> new OperationResult()).record(end - start, failed);
+            }
+        }
+        return results;
+    }
+
+    private List<String> seed(int products) throws IOException, InterruptedException {
+        List<String> ids = new ArrayList<>(products);
+        for (int offset = 0; offset < products; offset += SEED_BATCH_SIZE) {
+            ArrayNode operations = objectMapper.createArrayNode();
+            for (int i = offset; i < Math.min(products, offset + SEED_BATCH_SIZE); i++) {
+                ObjectNode operation = operations.addObject();
+                operation.put("op", "CREATE");
+                operation.putObject("product").put("name", name(i)).put("type", type(i % TYPES));
+            }
+            String body = objectMapper.writeValueAsString(objectMapper.createObjectNode().set("operations", operations));
+
+            HttpResponse<String> response = httpClient.send(jsonRequest("/api/products/_bulk", "POST", body),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Seeding failed with status " + response.statusCode() + ": " + response.body());
+            }
+            for (JsonNode item : objectMapper.readTree(response.body()).path("items")) {
+                if (item.hasNonNull("id") && !item.hasNonNull("error")) {
+                    ids.add(item.get("id").asText());
+                }
+            }
+        }
+        return ids;
+    }
+
+    private boolean report(Workload workload, int concurrency, int products, Duration duration,
+                           Map<Workload.Operation, OperationResult> results,
+                           ServerMetrics.Snapshot start, ServerMetrics.Snapshot end) throws IOException {
+        String label = options.getOrDefault("label", workload.label());
+        OperationResult total = new OperationResult();
+        results.values().forEach(total::addAll);
+
+        ObjectNode result = objectMapper.createObjectNode();
+        result.put("label", label);
+        result.put("workload", workload.label());
+        result.put("url", baseUrl);
+        result.put("target", option("target", "url"));
+        result.put("concurrency", concurrency);
+        result.put("products", products);
+        result.put("zipfTheta", zipfTheta());
+        result.put("seed", seed());
+        result.put("durationSeconds", duration.toSeconds());
+        total.writeTo(result, duration);
+
+        ObjectNode operations = result.putObject("operations");
+        results.forEach((operation, operationResult) ->
+                operationResult.writeTo(operations.putObject(operation.name().toLowerCase()), duration));
+
+        ObjectNode server = result.putObject("server");
+        putNullable(server, "cacheHitRatio", start.hitRatio(end));
+        putNullable(server, "localCacheHitRatio", start.localHitRatio(end));
+        Long mongoCommands = start.mongoCommands(end);
+        if (mongoCommands != null) {
+            server.put("mongoCommands", mongoCommands);
+            result.put("mongoCommandsPerRequest", round(mongoCommands / (double) Math.max(1, total.count()), 1000));
+        }
+
+        String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(result);
+        System.out.println(json);
+        Path output = Path.of("target", "loadtest-" + label + ".json");
+        Files.createDirectories(output.getParent());
+        Files.writeString(output, json);
+        System.out.println("Written to " + output);
+
+        return compareWithBaseline(label, result);
+    }
+
+    private boolean compareWithBaseline(String label, JsonNode result) throws IOException {
+        Baseline baseline = new Baseline(objectMapper, Path.of(option("baseline", "src/loadtest/baseline.json")));
+        if (Boolean.parseBoolean(option("update-baseline", "false"))) {
+            baseline.update(label, result);
+            System.out.println("Baseline of " + label + " updated in " + baseline.file());
+            return true;
+        }
+
+        double tolerance = Double.parseDouble(option("tolerance", "0.10"));
+        List<String> regressions = baseline.compare(label, result, tolerance);
+        if (regressions == null) {
+            System.out.println("No baseline for " + label + " in " + baseline.file() + ", run with --update-baseline true to record one");
+            return true;
+        }
+        if (regressions.isEmpty()) {
+            System.out.printf("%s is within %.0f%% of the baseline%n", label, tolerance * 100);
+            return true;
+        }
+        System.out.println("REGRESSION in " + label + " against " + baseline.file() + ":");
+        regressions.forEach(regression -> System.out.println("  " + regression));
+        return false;
+    }
+
+    private String productBody(String id, SplittableRandom random) throws IOException {
+        ObjectNode product = objectMapper.createObjectNode();
+        if (id != null) {
+            product.put("id", id);
+        }
+        product.put("name", name(random.nextInt(1_000_000)));
+        product.put("type", type(random.nextInt(TYPES)));
+        return objectMapper.writeValueAsString(product);
+    }
+
+    private String bulkUpdateBody(List<String> ids, SplittableRandom random) throws IOException {
+        ArrayNode operations = objectMapper.createArrayNode();
+        for (String id : ids) {
+            ObjectNode operation = operations.addObject();
+            operation.put("op", "UPDATE");
+            operation.putObject("product").put("id", id).put("name", name(random.nextInt(1_000_000))).put("type", type(random.nextInt(TYPES)));
+        }
+        return objectMapper.writeValueAsString(objectMapper.createObjectNode().set("operations", operations));
+    }
+
+    private String idsBody(List<String> ids) throws IOException {
+        ObjectNode body = objectMapper.createObjectNode();
+        ids.forEach(body.putArray("ids")::add);
+        return objectMapper.writeValueAsString(body);
+    }
+
+    private static String pick(List<String> ids, ZipfianGenerator zipfian, SplittableRandom random) {
+        return ids.get(zipfian.next(random));
+    }
+
+    private static List<String> pickAll(List<String> ids, ZipfianGenerator zipfian, SplittableRandom random) {
+        List<String> picked = new ArrayList<>(BATCH_IDS);
+        for (int i = 0; i < BATCH_IDS; i++) {
+            picked.add(pick(ids, zipfian, random));
+        }
+        return picked;
+    }
+
+    // URL-safe, so they can go into query strings as they are
+    private static String name(int number) {
+        return "Product-" + number;
+    }
+
+    private static String type(int number) {
+        return "Type-" + number;
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest jsonRequest(String path, String method, String body) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private long seed() {
+        return Long.parseLong(option("seed", "42"));
+    }
+
+    private double zipfTheta() {
+        return Double.parseDouble(option("zipf-theta", "0.99"));
+    }
+
+    private static void putNullable(ObjectNode node, String field, Double value) {
+        if (value != null) {
+            node.put(field, round(value, 10_000));
+        } else {
+            node.putNull(field);
+        }
+    }
+
+    private static double round(double value, int scale) {
+        return Math.round(value * scale) / (double) scale;
+    }
+
+    // --name value pairs
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Expected --option value pairs, got " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        return options;
+    }
+
+    // Latencies and errors of one operation, one per worker so recording is not contended
+    private static final class OperationResult {
+
+        private final LatencyRecorder latencies = new LatencyRecorder();
+        private long errors;
+
+        void record(long nanos, boolean failed) {
+            latencies.record(nanos);
+            if (failed) {
+                errors++;
+            }
+        }
+
+        void addAll(OperationResult other) {
+            latencies.addAll(other.latencies);
+            errors += other.errors;
+        }
+
+        int count() {
+            return latencies.size;
+        }
+
+        void writeTo(ObjectNode node, Duration duration) {
+            long[] sorted = latencies.sorted();
+            node.put("requests", sorted.length);
+            node.put("errors", errors);
+            node.put("throughputPerSecond", round(sorted.length / (double) duration.toSeconds(), 10));
+            ObjectNode latencyMillis = node.putObject("latencyMillis");
+            latencyMillis.put("p50", millis(percentile(sorted, 0.50)));
+            latencyMillis.put("p99", millis(percentile(sorted, 0.99)));
+            latencyMillis.put("p999", millis(percentile(sorted, 0.999)));
+            latencyMillis.put("max", millis(sorted.length > 0 ? sorted[sorted.length - 1] : 0));
+        }
+
+        private static long percentile(long[] sorted, double quantile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[Math.max(0, Math.min(sorted.length - 1, (int) Math.ceil(quantile * sorted.length) - 1))];
+        }
+
+        private static double millis(long nanos) {
+            return Math.round(nanos / 10_000.0) / 100.0;
+        }
+    }
+
+    // Growable array of nanosecond samples
+    private static final class LatencyRecorder {
+
+        private long[] samples = new long[1_024];
+        private int size;
+
+        void record(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        void addAll(LatencyRecorder other) {
+            for (int i = 0; i < other.size; i++) {
+                record(other.samples[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
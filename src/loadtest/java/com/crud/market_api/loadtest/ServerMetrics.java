@@ -0,0 +1,90 @@
+package com.crud.market_api.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Reads the server side counters of a run from {@code /actuator/metrics}: cache lookups per
+ * tier and Mongo commands. Two snapshots taken around the measured window give the counts of
+ * that window. A meter the server does not publish (the reactive stack has no tiered cache
+ * meters) reads as -1.
+ */
+final class ServerMetrics {
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final String baseUrl;
+
+    ServerMetrics(HttpClient httpClient, ObjectMapper objectMapper, String baseUrl) {
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUrl = baseUrl;
+    }
+
+    Snapshot snapshot() {
+        return new Snapshot(
+                count("cache.tier.gets", "tier:local", "result:hit"),
+                count("cache.tier.gets", "tier:local", "result:miss"),
+                count("cache.tier.gets", "tier:remote", "result:hit"),
+                count("mongodb.driver.commands"));
+    }
+
+    private double count(String meter, String... tags) {
+        StringBuilder uri = new StringBuilder(baseUrl).append("/actuator/metrics/").append(meter);
+        for (int i = 0; i < tags.length; i++) {
+            uri.append(i == 0 ? '?' : '&').append("tag=").append(tags[i]);
+        }
+        try {
+            HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(uri.toString())).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return -1;
+            }
+            for (JsonNode measurement : objectMapper.readTree(response.body()).path("measurements")) {
+                if ("COUNT".equals(measurement.path("statistic").asText())) {
+                    return measurement.path("value").asDouble();
+                }
+            }
+            return -1;
+        } catch (IOException ex) {
+            return -1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    record Snapshot(double localHits, double localMisses, double remoteHits, double mongoCommands) {
+
+        /**
+         * Share of the lookups answered by either cache tier between the two snapshots, null
+         * when the server does not publish the tier meters.
+         */
+        Double hitRatio(Snapshot end) {
+            if (localHits < 0 || end.localHits < 0) {
+                return null;
+            }
+            double lookups = (end.localHits - localHits) + (end.localMisses - localMisses);
+            double hits = (end.localHits - localHits) + (end.remoteHits - remoteHits);
+            return lookups > 0 ? hits / lookups : null;
+        }
+
+        Double localHitRatio(Snapshot end) {
+            if (localHits < 0 || end.localHits < 0) {
+                return null;
+            }
+            double lookups = (end.localHits - localHits) + (end.localMisses - localMisses);
+            return lookups > 0 ? (end.localHits - localHits) / lookups : null;
+        }
+
+        Long mongoCommands(Snapshot end) {
+            return mongoCommands < 0 || end.mongoCommands < 0 ? null : Math.round(end.mongoCommands - mongoCommands);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.crud.market_api.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Request mixes of the load test, as a weight per operation. Together the operations cover every
+ * endpoint of {@code ProductController}.
+ */
+enum Workload {
+
+    READ_HEAVY(Map.of(
+            Operation.GET, 60.0,
+            Operation.GET_IDS, 8.0,
+            Operation.MGET, 4.0,
+            Operation.LIST, 10.0,
+            Operation.LIST_BY_TYPE, 6.0,
+            Operation.SEARCH, 6.0,
+            Operation.UPDATE, 3.0,
+            Operation.CREATE, 1.5,
+            Operation.DELETE, 1.0,
+            Operation.EXPORT, 0.5)),
+
+    WRITE_HEAVY(Map.of(
+            Operation.GET, 20.0,
+            Operation.LIST, 4.0,
+            Operation.LIST_BY_TYPE, 3.0,
+            Operation.SEARCH, 3.0,
+            Operation.UPDATE, 40.0,
+            Operation.CREATE, 15.0,
+            Operation.DELETE, 10.0,
+            Operation.BULK, 5.0)),
+
+    MIXED(Map.of(
+            Operation.GET, 40.0,
+            Operation.GET_IDS, 5.0,
+            Operation.MGET, 4.0,
+            Operation.LIST, 8.0,
+            Operation.LIST_BY_TYPE, 5.0,
+            Operation.SEARCH, 5.0,
+            Operation.UPDATE, 20.0,
+            Operation.CREATE, 6.0,
+            Operation.DELETE, 4.0,
+            Operation.BULK, 3.0));
+
+    private final Operation[] operations;
+    private final double[] cumulativeWeights;
+
+    Workload(Map<Operation, Double> weights) {
+        // Ordered by operation so the draws, and so the runs, are reproducible for a seed
+        Map<Operation, Double> ordered = new EnumMap<>(weights);
+        this.operations = ordered.keySet().toArray(Operation[]::new);
+        this.cumulativeWeights = new double[operations.length];
+        double total = 0;
+        int i = 0;
+        for (double weight : ordered.values()) {
+            total += weight;
+            cumulativeWeights[i++] = total;
+        }
+    }
+
+    Operation next(SplittableRandom random) {
+        double draw = random.nextDouble() * cumulativeWeights[cumulativeWeights.length - 1];
+        for (int i = 0; i < operations.length; i++) {
+            if (draw < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    String label() {
+        return name().toLowerCase().replace('_', '-');
+    }
+
+    static Workload of(String label) {
+        return valueOf(label.toUpperCase().replace('-', '_'));
+    }
+
+    enum Operation {
+        GET,
+        GET_IDS,
+        MGET,
+        LIST,
+        LIST_BY_TYPE,
+        SEARCH,
+        EXPORT,
+        CREATE,
+        UPDATE,
+        DELETE,
+        BULK
+    }
+}
@@ -0,0 +1,49 @@
+package com.crud.market_api.loadtest;
+
+import java.util.SplittableRandom;
+
+/**
+ * Draws ranks in {@code [0, items)} with a Zipfian distribution: rank 0 is the most popular and
+ * popularity falls off as {@code 1 / rank^theta}. Uses the closed-form approximation of Gray et
+ * al. ("Quickly generating billion-record synthetic databases"), as YCSB does, so a draw costs
+ * a few arithmetic operations after the zeta constant is computed once.
+ */
+final class ZipfianGenerator {
+
+    private final int items;
+    private final double theta;
+    private final double zetaN;
+    private final double alpha;
+    private final double eta;
+
+    ZipfianGenerator(int items, double theta) {
+        if (items < 1 || theta <= 0 || theta >= 1) {
+            throw new IllegalArgumentException("Zipfian needs at least one item and 0 < theta < 1");
+        }
+        this.items = items;
+        this.theta = theta;
+        this.zetaN = zeta(items, theta);
+        this.alpha = 1 / (1 - theta);
+        this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+    }
+
+    int next(SplittableRandom random) {
+        double u = random.nextDouble();
+        double uz = u * zetaN;
+        if (uz < 1) {
+            return 0;
+        }
+        if (uz < 1 + Math.pow(0.5, theta)) {
+            return Math.min(1, items - 1);
+        }
+        return Math.min(items - 1, (int) (items * Math.pow(eta * u - eta + 1, alpha)));
+    }
+
+    private static double zeta(int n, double theta) {
+        double sum = 0;
+        for (int i = 1; i <= n; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,102 @@
+package com.crud.market_api.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Broadcasts L1 invalidations between nodes over Redis pub/sub.
+ * Messages have the form {@code <op>|<nodeId>|<cacheName>|<key>}, batch evictions carry
+ * newline-separated keys; a node ignores its own messages.
+ */
+public class CacheInvalidationBus implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final String EVICT = "E";
+    private static final String CLEAR = "C";
+    private static final String EVICT_BATCH = "B";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String topic;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate, String topic, RedisCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.topic = topic;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public void register(TwoLevelCache cache) {
+        caches.put(cache.getName(), cache);
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(evictMessage(cacheName, key));
+    }
+
+    public void publishEvictAll(String cacheName, Collection<String> keys) {
+        if (!keys.isEmpty()) {
+            publish(evictAllMessage(cacheName, keys));
+        }
+    }
+
+    public void publishClear(String cacheName) {
+        publish(CLEAR + "|" + nodeId + "|" + cacheName + "|");
+    }
+
+    String getTopic() {
+        return topic;
+    }
+
+    String evictMessage(String cacheName, String key) {
+        return EVICT + "|" + nodeId + "|" + cacheName + "|" + key;
+    }
+
+    String evictAllMessage(String cacheName, Collection<String> keys) {
+        return EVICT_BATCH + "|" + nodeId + "|" + cacheName + "|" + String.join("\n", keys);
+    }
+
+    private void publish(String message) {
+        try {
+            // Skipped while Redis is, like the entry changes the message is about
+            circuitBreaker.run(() -> redisTemplate.convertAndSend(topic, message), () -> { });
+        } catch (RuntimeException ex) {
+            // The L1 TTL bounds staleness on the other nodes, so a lost message is not fatal
+            logger.warn("Failed to publish cache invalidation: {}", ex.getMessage());
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String[] parts = new String(message.getBody(), StandardCharsets.UTF_8).split("\\|", 4);
+        if (parts.length < 4 || nodeId.equals(parts[1])) {
+            return;
+        }
+
+        TwoLevelCache cache = caches.get(parts[2]);
+        if (cache == null) {
+            return;
+        }
+
+        if (CLEAR.equals(parts[0])) {
+            cache.clearLocal();
+        } else if (EVICT.equals(parts[0])) {
+            cache.evictLocal(parts[3]);
+        } else if (EVICT_BATCH.equals(parts[0])) {
+            for (String key : parts[3].split("\n")) {
+                cache.evictLocal(key);
+            }
+        }
+    }
+}
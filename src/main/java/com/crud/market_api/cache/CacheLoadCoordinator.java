@@ -0,0 +1,198 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.Cache;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Protects the loaders behind {@link TwoLevelCache}, or {@link HashTaggedRedisCache} without L1, from cache stampedes:
+ * <ul>
+ *     <li>concurrent misses on the same key within a node share a single load (single-flight),</li>
+ *     <li>optionally, a short Redis lock makes the other nodes wait for that load instead of repeating it,</li>
+ *     <li>optionally, entries older than the soft TTL are served stale while one background refresh reloads them.</li>
+ * </ul>
+ */
+public class CacheLoadCoordinator implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheLoadCoordinator.class);
+
+    private static final RedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final RedisCacheBatchOperations batchOperations;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final MarketCacheProperties properties;
+    private final ConcurrentMap<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor refreshExecutor;
+
+    public CacheLoadCoordinator(StringRedisTemplate redisTemplate,
+                                RedisCacheBatchOperations batchOperations,
+                                RedisCircuitBreaker circuitBreaker,
+                                MarketCacheProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.batchOperations = batchOperations;
+        this.circuitBreaker = circuitBreaker;
+        this.properties = properties;
+
+        int threads = properties.getStampede().getRefreshThreads();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(1_000),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "cache-refresh-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Reads the remote tier, flagging entries older than the soft TTL as stale. The age is taken
+     * from the write time stored with the value, whatever TTL the entry got.
+     */
+    RemoteRead readRemote(Cache remote, Object key) {
+        Duration softTtl = properties.getStampede().getSoftTtl();
+        if (softTtl == null) {
+            Cache.ValueWrapper wrapper = remote.get(key);
+            return wrapper != null ? new RemoteRead(wrapper.get(), false) : null;
+        }
+
+        RedisCacheBatchOperations.TimedValue timedValue = batchOperations.getWithWriteTime(remote, TwoLevelCache.localKey(key));
+        if (timedValue == null) {
+            return null;
+        }
+        Instant writtenAt = timedValue.writtenAt();
+        // A cached miss is not refreshed, it expires after its own short TTL
+        boolean stale = timedValue.value() != null && writtenAt != null
+                && Duration.between(writtenAt, Instant.now()).compareTo(softTtl) > 0;
+        return new RemoteRead(timedValue.value(), stale);
+    }
+
+    /**
+     * Runs the loader once per key, concurrent callers wait for and share its result.
+     */
+    @SuppressWarnings("unchecked")
+    <T> T load(String cacheName, String key, Callable<T> loader, Callable<Cache.ValueWrapper> remoteLookup) throws Exception {
+        String flightKey = cacheName + "::" + key;
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(flightKey, future);
+        if (existing != null) {
+            return (T) await(existing);
+        }
+
+        try {
+            T value = properties.getStampede().getDistributedLock().isEnabled()
+                    ? loadWithLock(flightKey, loader, remoteLookup)
+                    : loader.call();
+            future.complete(value);
+            return value;
+        } catch (Exception ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(flightKey, future);
+        }
+    }
+
+    /**
+     * Reloads an entry in the background unless a load for it is already running.
+     */
+    void refreshAsync(String cacheName, String key, Callable<?> loader) {
+        String flightKey = cacheName + "::" + key;
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(flightKey, future) != null) {
+            return;
+        }
+
+        Runnable refresh = () -> {
+            try {
+                future.complete(loader.call());
+            } catch (Exception ex) {
+                logger.warn("Background refresh of {} failed: {}", flightKey, ex.getMessage());
+                future.completeExceptionally(ex);
+            } finally {
+                inFlight.remove(flightKey, future);
+            }
+        };
+
+        try {
+            refreshExecutor.execute(refresh);
+        } catch (RejectedExecutionException ex) {
+            // Saturated: release the slot, the stale value keeps being served until its hard TTL
+            inFlight.remove(flightKey, future);
+        }
+    }
+
+    private <T> T loadWithLock(String flightKey, Callable<T> loader, Callable<Cache.ValueWrapper> remoteLookup) throws Exception {
+        MarketCacheProperties.DistributedLock lock = properties.getStampede().getDistributedLock();
+        String lockKey = "lock::" + flightKey;
+        String token = UUID.randomUUID().toString();
+
+        Boolean acquired = circuitBreaker.call(
+                () -> redisTemplate.opsForValue().setIfAbsent(lockKey, token, lock.getTimeout()), () -> null);
+        if (acquired == null) {
+            // Redis is skipped, no other node can publish its result either
+            return loader.call();
+        }
+        if (acquired) {
+            try {
+                return loader.call();
+            } finally {
+                circuitBreaker.run(() -> redisTemplate.execute(RELEASE_LOCK, List.of(lockKey), token), () -> { });
+            }
+        }
+
+        // Another node is loading the key, wait for its result to show up in Redis
+        long deadline = System.nanoTime() + lock.getTimeout().toNanos();
+        while (System.nanoTime() < deadline) {
+            Thread.sleep(lock.getPollInterval().toMillis());
+            Cache.ValueWrapper loaded = remoteLookup.call();
+            if (loaded != null) {
+                @SuppressWarnings("unchecked")
+                T value = (T) loaded.get();
+                return value;
+            }
+        }
+        return loader.call();
+    }
+
+    private static Object await(CompletableFuture<Object> future) throws Exception {
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    record RemoteRead(Object value, boolean stale) {
+    }
+}
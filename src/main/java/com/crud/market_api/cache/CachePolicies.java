@@ -0,0 +1,158 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Resolves the settings of each cache from {@code market.cache.caches.<name>.*}, falling back to
+ * the global ones: TTL, negative caching, Redis key prefix, maximum entry size and local size.
+ * <p>
+ * With the adaptive TTL, an entry whose key the {@link HotKeyTracker} ranks among the hottest
+ * gets {@code hot-ttl}, one read on this node since the last flush of the tracker gets the cache
+ * TTL, and one written without being read gets {@code cold-ttl}. The tracker ranks product ids,
+ * so the adaptive TTL only applies to the {@code products} cache.
+ * <p>
+ * With {@code market.cache.cluster.hash-tags}, keys get a Redis Cluster hash tag after the
+ * prefix: pages carry their scope, so the pages of a scope and its index share a slot, and other
+ * entries one of {@code hash-tag-buckets} buckets, so a batch touches at most that many slots
+ * while the cache stays spread over the cluster.
+ */
+public final class CachePolicies {
+
+    private static final Logger logger = LoggerFactory.getLogger(CachePolicies.class);
+
+    static final String PRODUCTS = "products";
+
+    private static final MarketCacheProperties.CacheSpec DEFAULTS = new MarketCacheProperties.CacheSpec();
+
+    private final MarketCacheProperties properties;
+    private final HotKeyTracker hotKeyTracker;
+
+    public CachePolicies(MarketCacheProperties properties, HotKeyTracker hotKeyTracker) {
+        this.properties = properties;
+        this.hotKeyTracker = hotKeyTracker;
+
+        properties.getCaches().forEach((name, spec) -> {
+            if (spec.getAdaptive().isEnabled() && !isAdaptive(name)) {
+                logger.warn("Adaptive TTL ignored for cache {}, it needs the products cache and hot key tracking", name);
+            }
+        });
+    }
+
+    public MarketCacheProperties.CacheSpec spec(String cacheName) {
+        return properties.getCaches().getOrDefault(cacheName, DEFAULTS);
+    }
+
+    /**
+     * TTL of the entries of a cache before adaptive changes and jitter.
+     */
+    public Duration ttl(String cacheName) {
+        Duration ttl = spec(cacheName).getTtl();
+        return ttl != null ? ttl : properties.getTtl();
+    }
+
+    /**
+     * Longest TTL an entry of the cache can get, for keys that have to outlive its entries.
+     */
+    public Duration maxTtl(String cacheName) {
+        Duration ttl = ttl(cacheName);
+        if (isAdaptive(cacheName) && spec(cacheName).getAdaptive().getHotTtl().compareTo(ttl) > 0) {
+            ttl = spec(cacheName).getAdaptive().getHotTtl();
+        }
+        return ttl.plus(properties.getStampede().getTtlJitter());
+    }
+
+    /**
+     * TTL of a new Redis entry, plus a random share of the jitter so entries written together
+     * are not reloaded together.
+     */
+    public Duration entryTtl(String cacheName, Object key, Object value) {
+        MarketCacheProperties.CacheSpec spec = spec(cacheName);
+        if (value == null || value instanceof NullValue) {
+            // Not jittered, a missing key is cheap to look up again
+            return spec.getNullValueTtl();
+        }
+
+        Duration ttl = ttl(cacheName);
+        if (isAdaptive(cacheName)) {
+            String id = String.valueOf(key);
+            if (hotKeyTracker.isHot(id)) {
+                ttl = spec.getAdaptive().getHotTtl();
+            } else if (!hotKeyTracker.isRecentlyRead(id)) {
+                ttl = spec.getAdaptive().getColdTtl();
+            }
+        }
+        long jitterMillis = properties.getStampede().getTtlJitter().toMillis();
+        return ttl.plusMillis(ThreadLocalRandom.current().nextLong(jitterMillis + 1));
+    }
+
+    public boolean cachesNullValues(String cacheName) {
+        return spec(cacheName).isCacheNullValues();
+    }
+
+    /**
+     * Prefix of the Redis keys of a cache, {@code <cacheName>::} unless configured.
+     */
+    public String keyPrefix(String cacheName) {
+        String keyPrefix = spec(cacheName).getKeyPrefix();
+        return keyPrefix != null ? keyPrefix : cacheName + "::";
+    }
+
+    /**
+     * Redis key of a cache entry: prefix, hash tag when enabled, then the key.
+     */
+    public String redisKey(String cacheName, String key) {
+        return keyPrefix(cacheName) + hashTag(cacheName, key) + key;
+    }
+
+    public boolean isHashTagged() {
+        return properties.getCluster().isHashTags();
+    }
+
+    /**
+     * The {@code {tag}} part of a key, empty without hash tags.
+     */
+    String hashTag(String cacheName, String key) {
+        if (!isHashTagged()) {
+            return "";
+        }
+        if (ProductPageCache.CACHE_NAME.equals(cacheName)) {
+            return "{" + ProductPageCache.scopeTagOf(key) + "}";
+        }
+        return "{" + Math.floorMod(key.hashCode(), properties.getCluster().getHashTagBuckets()) + "}";
+    }
+
+    /**
+     * Whether a serialized value is small enough to be written to Redis.
+     */
+    public boolean fits(String cacheName, int size) {
+        return spec(cacheName).getMaxEntrySize() == null || size <= spec(cacheName).getMaxEntrySize().toBytes();
+    }
+
+    public long localMaximumSize(String cacheName) {
+        Long maximumSize = spec(cacheName).getLocalMaximumSize();
+        return maximumSize != null ? maximumSize : properties.getLocal().getMaximumSize();
+    }
+
+    /**
+     * Applies the settings of a cache on top of the shared Redis cache configuration.
+     */
+    public RedisCacheConfiguration configure(String cacheName, RedisCacheConfiguration defaults) {
+        RedisCacheConfiguration config = defaults
+                .entryTtl((key, value) -> entryTtl(cacheName, key, value))
+                .computePrefixWith(this::keyPrefix);
+        return cachesNullValues(cacheName) ? config : config.disableCachingNullValues();
+    }
+
+    private boolean isAdaptive(String cacheName) {
+        return PRODUCTS.equals(cacheName)
+                && spec(cacheName).getAdaptive().isEnabled()
+                && properties.getHotKeys().isEnabled();
+    }
+}
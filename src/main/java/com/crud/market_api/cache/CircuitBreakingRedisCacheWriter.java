@@ -0,0 +1,90 @@
+package com.crud.market_api.cache;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Runs the Redis calls of the cache manager through the {@link RedisCircuitBreaker}: while Redis
+ * is skipped a read is a miss, and a write or eviction is dropped and its key repaired later.
+ */
+public class CircuitBreakingRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisCacheWriter delegate;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    public CircuitBreakingRedisCacheWriter(RedisCacheWriter delegate, RedisCircuitBreaker circuitBreaker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        circuitBreaker.run(() -> delegate.put(name, key, value, ttl), () -> circuitBreaker.skippedWrite(name, key));
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        return circuitBreaker.call(() -> delegate.store(name, key, value, ttl), () -> {
+            circuitBreaker.skippedWrite(name, key);
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    // A skipped write reports the key as absent, the caller keeps its own value
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        return circuitBreaker.call(() -> delegate.putIfAbsent(name, key, value, ttl), () -> {
+            circuitBreaker.skippedWrite(name, key);
+            return null;
+        });
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return circuitBreaker.call(() -> delegate.get(name, key), () -> null);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Duration ttl) {
+        return circuitBreaker.call(() -> delegate.get(name, key, ttl), () -> null);
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return delegate.supportsAsyncRetrieve();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        return circuitBreaker.call(() -> delegate.retrieve(name, key, ttl), () -> CompletableFuture.completedFuture(null));
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        circuitBreaker.run(() -> delegate.remove(name, key), () -> circuitBreaker.skippedWrite(name, key));
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        circuitBreaker.run(() -> delegate.clean(name, pattern), () -> circuitBreaker.skippedClear(name));
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new CircuitBreakingRedisCacheWriter(delegate.withStatisticsCollector(cacheStatisticsCollector), circuitBreaker);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+}
@@ -0,0 +1,269 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary, schema-versioned encoding for cache values.
+ * <p>
+ * Layout: {@code magic | schema version | flags | type | payload}. {@link ProductDto} and
+ * {@link ProductPageDto} are written field by field without any type metadata, other values
+ * fall back to JSON. Payloads above the compression threshold are deflated when that makes
+ * them smaller. Values that do not start with the magic byte are read as JSON, so entries
+ * written by the previous serializer stay readable during a rollout.
+ */
+public class CompactRedisSerializer implements RedisSerializer<Object> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompactRedisSerializer.class);
+
+    static final byte MAGIC = (byte) 0xB1;
+    // 2 added the product version, version 1 values are still read
+    static final byte SCHEMA_VERSION = 2;
+    private static final byte SCHEMA_VERSION_UNVERSIONED_PRODUCTS = 1;
+
+    private static final byte FLAG_COMPRESSED = 1;
+
+    private static final byte TYPE_JSON = 0;
+    private static final byte TYPE_PRODUCT = 1;
+    private static final byte TYPE_PRODUCT_PAGE = 2;
+
+    private static final int HEADER_SIZE = 4;
+
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+    private final int compressionThreshold;
+
+    public CompactRedisSerializer(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(64);
+            DataOutputStream out = new DataOutputStream(buffer);
+            byte type;
+            if (value instanceof ProductDto product) {
+                type = TYPE_PRODUCT;
+                writeProduct(out, product);
+            } else if (value instanceof ProductPageDto page) {
+                type = TYPE_PRODUCT_PAGE;
+                writeString(out, page.getNextCursor());
+                List<ProductDto> items = page.getItems() != null ? page.getItems() : List.of();
+                writeLength(out, items.size());
+                for (ProductDto item : items) {
+                    writeProduct(out, item);
+                }
+            } else {
+                type = TYPE_JSON;
+                out.write(jsonSerializer.serialize(value));
+            }
+            out.flush();
+
+            byte[] payload = buffer.toByteArray();
+            byte flags = 0;
+            if (payload.length > compressionThreshold) {
+                byte[] compressed = deflate(payload);
+                if (compressed.length < payload.length) {
+                    payload = compressed;
+                    flags |= FLAG_COMPRESSED;
+                }
+            }
+
+            byte[] result = new byte[HEADER_SIZE + payload.length];
+            result[0] = MAGIC;
+            result[1] = SCHEMA_VERSION;
+            result[2] = flags;
+            result[3] = type;
+            System.arraycopy(payload, 0, result, HEADER_SIZE, payload.length);
+            return result;
+        } catch (IOException ex) {
+            throw new SerializationException("Could not write cache value", ex);
+        }
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes[0] != MAGIC) {
+            return jsonSerializer.deserialize(bytes);
+        }
+        if (bytes.length < HEADER_SIZE || bytes[1] > SCHEMA_VERSION) {
+            // Written by a newer node during a rollout, treat it as a miss
+            logger.debug("Skipping cache value with unknown schema version {}", bytes.length > 1 ? bytes[1] : -1);
+            return null;
+        }
+
+        try {
+            byte[] payload = (bytes[2] & FLAG_COMPRESSED) != 0
+                    ? inflate(bytes, HEADER_SIZE)
+                    : copyPayload(bytes);
+            return switch (bytes[3]) {
+                case TYPE_PRODUCT -> readProduct(input(payload), bytes[1]);
+                case TYPE_PRODUCT_PAGE -> readPage(input(payload), bytes[1]);
+                case TYPE_JSON -> jsonSerializer.deserialize(payload);
+                default -> throw new SerializationException("Unknown cache value type " + bytes[3]);
+            };
+        } catch (IOException | DataFormatException ex) {
+            throw new SerializationException("Could not read cache value", ex);
+        }
+    }
+
+    private static void writeProduct(DataOutputStream out, ProductDto product) throws IOException {
+        writeString(out, product.getId());
+        writeString(out, product.getName());
+        writeString(out, product.getType());
+        writeVersion(out, product.getVersion());
+    }
+
+    private static ProductDto readProduct(DataInputStream in, byte schemaVersion) throws IOException {
+        ProductDto product = new ProductDto();
+        product.setId(readString(in));
+        product.setName(readString(in));
+        product.setType(readString(in));
+        if (schemaVersion > SCHEMA_VERSION_UNVERSIONED_PRODUCTS) {
+            product.setVersion(readVersion(in));
+        }
+        return product;
+    }
+
+    private static ProductPageDto readPage(DataInputStream in, byte schemaVersion) throws IOException {
+        String nextCursor = readString(in);
+        int size = readLength(in);
+        List<ProductDto> items = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            items.add(readProduct(in, schemaVersion));
+        }
+        return new ProductPageDto(items, nextCursor);
+    }
+
+    // Strings are written as a varint of (UTF-8 length + 1), 0 meaning null
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeLength(out, 0);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        writeLength(out, utf8.length + 1);
+        out.write(utf8);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = readLength(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length - 1];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    // Versions are written as a varint of (version + 1), 0 meaning null
+    private static void writeVersion(DataOutputStream out, Long version) throws IOException {
+        long value = version != null ? version + 1 : 0;
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static Long readVersion(DataInputStream in) throws IOException {
+        long value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = in.readByte();
+            value |= (long) (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value != 0 ? value - 1 : null;
+    }
+
+    private static void writeLength(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readLength(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte current;
+        do {
+            current = in.readByte();
+            value |= (current & 0x7F) << shift;
+            shift += 7;
+        } while ((current & 0x80) != 0);
+        return value;
+    }
+
+    private static byte[] deflate(byte[] payload) {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(payload);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 2);
+            byte[] chunk = new byte[4096];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(bytes, offset, bytes.length - offset);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length * 3);
+            byte[] chunk = new byte[4096];
+            while (!inflater.finished()) {
+                int inflated = inflater.inflate(chunk);
+                if (inflated == 0 && inflater.needsInput()) {
+                    throw new DataFormatException("Truncated compressed cache value");
+                }
+                out.write(chunk, 0, inflated);
+            }
+            return out.toByteArray();
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] copyPayload(byte[] bytes) {
+        byte[] payload = new byte[bytes.length - HEADER_SIZE];
+        System.arraycopy(bytes, HEADER_SIZE, payload, 0, payload.length);
+        return payload;
+    }
+
+    private static DataInputStream input(byte[] payload) {
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+}
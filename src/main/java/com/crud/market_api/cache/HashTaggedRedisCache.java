@@ -0,0 +1,74 @@
+package com.crud.market_api.cache;
+
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Redis cache whose keys come from {@link CachePolicies#redisKey}, so they carry the hash tag of
+ * the entry when hash tags are enabled and match the keys of {@link RedisCacheBatchOperations}
+ * and the reactive cache.
+ * <p>
+ * Without L1 there is no {@link TwoLevelCache} in front of it, loads are then coordinated here
+ * by the {@link CacheLoadCoordinator} instead.
+ */
+public class HashTaggedRedisCache extends RedisCache {
+
+    private final CachePolicies cachePolicies;
+    private final CacheLoadCoordinator loadCoordinator;
+
+    public HashTaggedRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfiguration,
+                                CachePolicies cachePolicies) {
+        this(name, cacheWriter, cacheConfiguration, cachePolicies, null);
+    }
+
+    public HashTaggedRedisCache(String name, RedisCacheWriter cacheWriter, RedisCacheConfiguration cacheConfiguration,
+                                CachePolicies cachePolicies, CacheLoadCoordinator loadCoordinator) {
+        super(name, cacheWriter, cacheConfiguration);
+        this.cachePolicies = cachePolicies;
+        this.loadCoordinator = loadCoordinator;
+    }
+
+    @Override
+    protected String createCacheKey(Object key) {
+        String convertedKey = convertKey(key);
+        return getCacheConfiguration().usePrefix() ? cachePolicies.redisKey(getName(), convertedKey) : convertedKey;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        if (loadCoordinator == null) {
+            return super.get(key, valueLoader);
+        }
+
+        CacheLoadCoordinator.RemoteRead remoteRead = loadCoordinator.readRemote(this, key);
+        String flightKey = TwoLevelCache.localKey(key);
+        if (remoteRead != null) {
+            if (remoteRead.stale()) {
+                loadCoordinator.refreshAsync(getName(), flightKey, () -> loadAndPut(key, valueLoader));
+            }
+            return (T) remoteRead.value();
+        }
+
+        try {
+            return loadCoordinator.load(getName(), flightKey, () -> loadAndPut(key, valueLoader), () -> get(key));
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+
+    private <T> T loadAndPut(Object key, Callable<T> valueLoader) throws Exception {
+        T value = valueLoader.call();
+        put(key, value);
+        return value;
+    }
+
+    // The pattern of a clear matches every hash tag under the prefix
+    @Override
+    public void clear() {
+        getNativeCache().clean(getName(), serializeCacheKey(cachePolicies.keyPrefix(getName()) + "*"));
+    }
+}
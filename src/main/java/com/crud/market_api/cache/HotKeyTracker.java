@@ -0,0 +1,173 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ranks product ids by how often they are read.
+ * <p>
+ * Reads are counted in memory and added every {@code flush-interval} to a Redis sorted set with
+ * one pipeline. The set is shared by all nodes and outlives them, so a node starting after a
+ * deploy knows what was hot before it. Scores decay on every flush and the set is trimmed to
+ * {@code max-tracked} ids. After each flush the top {@code hot-set-size} ids are kept in
+ * memory for the adaptive TTL of {@link CachePolicies}.
+ * <p>
+ * The ranking is only read by the warm-up and the adaptive TTL, so nothing is counted or flushed
+ * unless one of them is enabled.
+ */
+@Component
+public class HotKeyTracker implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotKeyTracker.class);
+
+    private final StringRedisTemplate redisTemplate;
+    private final MarketCacheProperties.HotKeys properties;
+    private final boolean active;
+    private final ConcurrentMap<String, LongAdder> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private volatile Set<String> hottest = Set.of();
+
+    public HotKeyTracker(StringRedisTemplate redisTemplate, MarketCacheProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.properties = properties.getHotKeys();
+        this.active = this.properties.isEnabled() && (properties.getWarmUp().isEnabled()
+                || properties.getCaches().values().stream().anyMatch(spec -> spec.getAdaptive().isEnabled()));
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "hot-key-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (active) {
+            long interval = properties.getFlushInterval().toMillis();
+            flusher.execute(this::refreshHottestSafely);
+            flusher.scheduleWithFixedDelay(() -> {
+                flushSafely();
+                refreshHottestSafely();
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void record(String id) {
+        if (!active || id == null) {
+            return;
+        }
+        if (properties.getSampleRate() < 1.0 && ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            return;
+        }
+
+        LongAdder count = pending.get(id);
+        if (count == null) {
+            if (pending.size() >= properties.getMaxPendingKeys()) {
+                return;
+            }
+            count = pending.computeIfAbsent(id, key -> new LongAdder());
+        }
+        count.increment();
+    }
+
+    /**
+     * Records the products a lookup found, ids that matched nothing are not hot keys.
+     */
+    public void recordAll(Collection<ProductDto> products) {
+        products.forEach(product -> record(product.getId()));
+    }
+
+    /**
+     * The hottest ids, hottest first.
+     */
+    public List<String> topIds(int count) {
+        Set<String> ids = redisTemplate.opsForZSet().reverseRange(properties.getRedisKey(), 0, count - 1L);
+        return ids != null ? new ArrayList<>(ids) : List.of();
+    }
+
+    /**
+     * Whether the id ranks among the {@code hot-set-size} hottest, as of the last flush.
+     */
+    public boolean isHot(String id) {
+        return hottest.contains(id);
+    }
+
+    /**
+     * Whether this node counted a read of the id since the last flush.
+     */
+    public boolean isRecentlyRead(String id) {
+        return pending.containsKey(id);
+    }
+
+    private void refreshHottestSafely() {
+        try {
+            hottest = properties.getHotSetSize() > 0 ? Set.copyOf(topIds(properties.getHotSetSize())) : Set.of();
+        } catch (RuntimeException ex) {
+            logger.warn("Could not load the hottest keys: {}", ex.getMessage());
+        }
+    }
+
+    private void flushSafely() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            logger.warn("Could not flush hot key counts: {}", ex.getMessage());
+        }
+    }
+
+    void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        // A read counted between the removal and the sum is lost, which sampling tolerates anyway
+        Map<String, Long> counts = new HashMap<>();
+        for (String id : pending.keySet()) {
+            LongAdder count = pending.remove(id);
+            if (count != null) {
+                counts.put(id, count.sum());
+            }
+        }
+
+        byte[] key = properties.getRedisKey().getBytes(StandardCharsets.UTF_8);
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            RedisZSetCommands zSetCommands = connection.zSetCommands();
+            // The union of the set with itself, weighted, decays every score
+            zSetCommands.zUnionStore(key, Aggregate.SUM, Weights.of(properties.getDecay()), key);
+            counts.forEach((id, count) -> zSetCommands.zIncrBy(key, count, id.getBytes(StandardCharsets.UTF_8)));
+            // Keeps the top max-tracked ids, ranks are ascending
+            zSetCommands.zRemRange(key, 0, -(properties.getMaxTracked() + 1));
+            return null;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        flusher.shutdown();
+        flushSafely();
+    }
+}
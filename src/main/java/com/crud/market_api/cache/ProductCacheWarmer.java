@@ -0,0 +1,158 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Preloads the products cache at startup.
+ * <p>
+ * A catalog up to {@code full-catalog-threshold} products is streamed whole from a Mongo cursor,
+ * a larger one is limited to the {@code top-n} ids ranked by the {@link HotKeyTracker}. Products
+ * are written to Redis in pipelined batches, at most {@code parallelism} batches at a time, and
+ * only where no entry exists yet. Spring Boot reports the application ready once the runners
+ * have returned, so readiness waits for the warm-up, or for {@code timeout} after which it
+ * completes in the background.
+ */
+@Component
+@ConditionalOnProperty(prefix = "market.cache.warm-up", name = "enabled", havingValue = "true")
+public class ProductCacheWarmer implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductCacheWarmer.class);
+
+    private final CacheManager cacheManager;
+    private final ProductRepository productRepository;
+    private final MongoTemplate mongoTemplate;
+    private final RedisCacheBatchOperations batchOperations;
+    private final HotKeyTracker hotKeyTracker;
+    private final MarketCacheProperties.WarmUp properties;
+
+    private final AtomicLong durationMillis = new AtomicLong();
+    private final AtomicLong createdEntries = new AtomicLong();
+
+    public ProductCacheWarmer(CacheManager cacheManager,
+                              ProductRepository productRepository,
+                              MongoTemplate mongoTemplate,
+                              RedisCacheBatchOperations batchOperations,
+                              HotKeyTracker hotKeyTracker,
+                              MarketCacheProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.cacheManager = cacheManager;
+        this.productRepository = productRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.batchOperations = batchOperations;
+        this.hotKeyTracker = hotKeyTracker;
+        this.properties = properties.getWarmUp();
+
+        TimeGauge.builder("cache.warmup.duration", durationMillis, TimeUnit.MILLISECONDS, AtomicLong::get)
+                .description("Time the last warm-up of the products cache took")
+                .register(meterRegistry);
+        Gauge.builder("cache.warmup.entries", createdEntries, AtomicLong::get)
+                .description("Entries the last warm-up added to the products cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        FutureTask<Void> warmUp = new FutureTask<>(this::warmUp, null);
+        Thread.ofVirtual().name("cache-warm-up").start(warmUp);
+        try {
+            warmUp.get(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            logger.warn("Cache warm-up still running after {}, reporting ready and finishing in the background",
+                    properties.getTimeout());
+        } catch (ExecutionException ex) {
+            // A cold cache is slower, not broken, so startup goes on
+            logger.warn("Cache warm-up failed: {}", ex.getCause().getMessage());
+        }
+    }
+
+    void warmUp() {
+        long start = System.nanoTime();
+        Cache cache = cacheManager.getCache("products");
+        long catalogSize = mongoTemplate.estimatedCount(Product.class);
+        boolean wholeCatalog = catalogSize <= properties.getFullCatalogThreshold();
+        int batchSize = properties.getBatchSize();
+
+        LongAdder loaded = new LongAdder();
+        LongAdder created = new LongAdder();
+        // Bounds the batches in flight, which also bounds the products held in memory
+        Semaphore permits = new Semaphore(properties.getParallelism());
+        try (ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor()) {
+            Consumer<Supplier<List<ProductDto>>> submit = batch -> {
+                permits.acquireUninterruptibly();
+                writers.execute(() -> {
+                    try {
+                        List<ProductDto> products = batch.get();
+                        Map<String, ProductDto> entries = new LinkedHashMap<>();
+                        products.forEach(product -> entries.put(product.getId(), product));
+                        created.add(batchOperations.putAllIfAbsent(cache, entries));
+                        loaded.add(products.size());
+                    } catch (RuntimeException ex) {
+                        logger.warn("Cache warm-up batch failed: {}", ex.getMessage());
+                    } finally {
+                        permits.release();
+                    }
+                });
+            };
+
+            if (wholeCatalog) {
+                // One cursor read on this thread, its slices are written concurrently
+                try (Stream<ProductDto> products = productRepository.streamAllDtos()) {
+                    Iterator<ProductDto> cursor = products.iterator();
+                    while (cursor.hasNext()) {
+                        List<ProductDto> slice = new ArrayList<>(batchSize);
+                        while (slice.size() < batchSize && cursor.hasNext()) {
+                            slice.add(cursor.next());
+                        }
+                        submit.accept(() -> slice);
+                    }
+                }
+            } else {
+                // Each chunk of the hottest ids is one $in query, read by the batch itself
+                List<String> ids = hotKeyTracker.topIds(properties.getTopN());
+                for (int from = 0; from < ids.size(); from += batchSize) {
+                    List<String> chunk = ids.subList(from, Math.min(ids.size(), from + batchSize));
+                    submit.accept(() -> productRepository.findDtosByIdIn(chunk));
+                }
+            }
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        durationMillis.set(elapsedMillis);
+        createdEntries.set(created.sum());
+        logger.info("Cache warm-up loaded {} products ({}), {} were missing from Redis, in {} ms",
+                loaded.sum(), wholeCatalog ? "whole catalog" : "hottest ids", created.sum(), elapsedMillis);
+    }
+}
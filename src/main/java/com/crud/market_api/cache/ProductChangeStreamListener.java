@@ -0,0 +1,319 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.model.mapper.ProductDtoReadConverter;
+import com.crud.market_api.model.mapper.ProductMapper;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the product caches in line with the products collection through a Mongo change stream,
+ * including writes that bypass the services (batch jobs, fixes run in the shell).
+ * <p>
+ * An insert, update or replace refreshes the cached product, if it is cached, and evicts the
+ * pages containing it. A delete evicts both. Changes the services already applied to the cache
+ * are recognised and skipped. The resume token is saved in Redis, so a restart continues where
+ * the stream stopped. Only when the stream cannot be resumed (history rolled off the oplog,
+ * collection dropped) are the product caches flushed. Every node runs the listener, applying a
+ * change twice is harmless.
+ */
+@Component
+@ConditionalOnProperty(prefix = "market.cache.change-stream", name = "enabled", havingValue = "true")
+public class ProductChangeStreamListener implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductChangeStreamListener.class);
+
+    // InvalidResumeToken, ChangeStreamFatalError, ChangeStreamHistoryLost: resuming is not possible
+    private static final Set<Integer> NON_RESUMABLE_ERRORS = Set.of(260, 280, 286);
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final MongoTemplate mongoTemplate;
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+    private final ProductPageCache productPageCache;
+    private final MarketCacheProperties.ChangeStream properties;
+    private final MeterRegistry meterRegistry;
+    private final ProductDtoReadConverter converter = new ProductDtoReadConverter();
+    private Thread worker;
+
+    private volatile boolean running = true;
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private BsonDocument lastToken;
+    private long lastSavedAt;
+
+    public ProductChangeStreamListener(MongoTemplate mongoTemplate,
+                                       StringRedisTemplate redisTemplate,
+                                       CacheManager cacheManager,
+                                       ProductPageCache productPageCache,
+                                       MarketCacheProperties properties,
+                                       MeterRegistry meterRegistry) {
+        this.mongoTemplate = mongoTemplate;
+        this.redisTemplate = redisTemplate;
+        this.cacheManager = cacheManager;
+        this.productPageCache = productPageCache;
+        this.properties = properties.getChangeStream();
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (properties.isPreImages()) {
+            enablePreImages();
+        }
+
+        String savedToken = redisTemplate.opsForValue().get(properties.getResumeTokenKey());
+        lastToken = savedToken != null ? BsonDocument.parse(savedToken) : null;
+        // Opened here so writes made once the application is up are never missed, and a deployment
+        // without change streams (standalone server) fails at startup
+        cursor = openResumable();
+        worker = new Thread(this::run, "product-change-stream");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (cursor == null) {
+                    cursor = openResumable();
+                }
+                consume();
+            } catch (RuntimeException ex) {
+                if (running) {
+                    // The failed event is replayed from the last applied token
+                    logger.warn("Product change stream interrupted, resuming: {}", ex.getMessage());
+                    closeCursor();
+                    pause();
+                }
+            }
+        }
+        closeCursor();
+    }
+
+    private void consume() {
+        while (running) {
+            ChangeStreamDocument<Document> event = cursor.tryNext();
+            if (event != null && !apply(event)) {
+                closeCursor();
+                return;
+            }
+            // Also advances while no products change, so the token stays inside the oplog window
+            BsonDocument token = cursor.getResumeToken();
+            if (token != null) {
+                lastToken = token;
+                saveToken(false);
+            }
+        }
+    }
+
+    /**
+     * Applies one change to the caches, returns false when the stream was invalidated.
+     */
+    boolean apply(ChangeStreamDocument<Document> event) {
+        switch (event.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> refresh(event);
+            case DELETE -> evict(event);
+            case DROP, RENAME, DROP_DATABASE, INVALIDATE -> {
+                resync("collection " + event.getOperationType().getValue());
+                return false;
+            }
+            default -> count("other", "skipped");
+        }
+        return true;
+    }
+
+    private void refresh(ChangeStreamDocument<Document> event) {
+        String operation = event.getOperationType().getValue();
+        if (event.getFullDocument() == null) {
+            // Deleted before the lookup ran, the delete event follows
+            count(operation, "skipped");
+            return;
+        }
+
+        ProductDto current = converter.convert(event.getFullDocument());
+        Cache cache = productCache();
+        // A wrapper around null is a cached miss, which an insert with that id must replace
+        Cache.ValueWrapper entry = cache.get(current.getId());
+        ProductDto cached = entry != null ? (ProductDto) entry.get() : null;
+        if (current.equals(cached)) {
+            // Written through the services, which already updated the cache and the pages
+            count(operation, "skipped");
+            return;
+        }
+        if (cached != null && ProductMapper.versionOf(current) < ProductMapper.versionOf(cached)) {
+            // A late or replayed event, the cache already holds a later write such as a queued write-behind update
+            count(operation, "outdated");
+            return;
+        }
+
+        if (entry != null) {
+            cache.put(current.getId(), current);
+        }
+        List<ProductDto> states = new ArrayList<>(2);
+        ProductDto previous = previousState(event, cached);
+        if (previous != null) {
+            states.add(previous);
+        }
+        states.add(current);
+        productPageCache.evictProducts(states);
+        count(operation, "applied");
+    }
+
+    private void evict(ChangeStreamDocument<Document> event) {
+        String id = idOf(event.getDocumentKey());
+        Cache cache = productCache();
+        ProductDto cached = cache.get(id, ProductDto.class);
+        if (cached != null) {
+            cache.evict(id);
+        }
+
+        ProductDto previous = previousState(event, cached);
+        if (previous != null) {
+            productPageCache.evictProducts(List.of(previous));
+        } else {
+            // Type and name unknown, only the listing pages can be found by id
+            productPageCache.evictContainingAny(ProductPageCache.Scope.ALL, List.of(id));
+        }
+        count("delete", "applied");
+    }
+
+    // The pre-image when the collection records them, otherwise the cached state if there is one
+    private ProductDto previousState(ChangeStreamDocument<Document> event, ProductDto cached) {
+        Document before = event.getFullDocumentBeforeChange();
+        return before != null ? converter.convert(before) : cached;
+    }
+
+    private void resync(String reason) {
+        logger.warn("Product change stream cannot be resumed ({}), flushing the product caches", reason);
+        productCache().clear();
+        cacheManager.getCache(ProductPageCache.CACHE_NAME).clear();
+        lastToken = null;
+        redisTemplate.delete(properties.getResumeTokenKey());
+        count("resync", "applied");
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> openResumable() {
+        try {
+            return open();
+        } catch (MongoException ex) {
+            if (lastToken == null || !NON_RESUMABLE_ERRORS.contains(ex.getCode())) {
+                throw ex;
+            }
+            resync(ex.getMessage());
+            return open();
+        }
+    }
+
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getCollection(collection())
+                .watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(properties.getMaxAwaitTime().toMillis(), TimeUnit.MILLISECONDS);
+        if (properties.isPreImages()) {
+            stream = stream.fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE);
+        }
+        if (lastToken != null) {
+            stream = stream.resumeAfter(lastToken);
+        }
+        return stream.cursor();
+    }
+
+    private void enablePreImages() {
+        try {
+            mongoTemplate.executeCommand(new Document("collMod", collection())
+                    .append("changeStreamPreAndPostImages", new Document("enabled", true)));
+        } catch (RuntimeException ex) {
+            logger.warn("Could not enable pre-images on {}, updates evict pages by their cached state: {}",
+                    collection(), ex.getMessage());
+        }
+    }
+
+    private void saveToken(boolean force) {
+        long now = System.currentTimeMillis();
+        if (lastToken == null || (!force && now - lastSavedAt < properties.getTokenSaveInterval().toMillis())) {
+            return;
+        }
+        // Replaying the events after a saved token is harmless, so it is written at most once per interval
+        redisTemplate.opsForValue().set(properties.getResumeTokenKey(), lastToken.toJson());
+        lastSavedAt = now;
+    }
+
+    private void count(String operation, String action) {
+        meterRegistry.counter("product.change_stream.events", "operation", operation, "action", action).increment();
+    }
+
+    private Cache productCache() {
+        return cacheManager.getCache("products");
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(Product.class);
+    }
+
+    private void closeCursor() {
+        if (cursor != null) {
+            try {
+                cursor.close();
+            } catch (RuntimeException ex) {
+                logger.debug("Could not close the product change stream: {}", ex.getMessage());
+            }
+            cursor = null;
+        }
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(RETRY_DELAY_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private static String idOf(BsonDocument documentKey) {
+        BsonValue id = documentKey.get("_id");
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        // tryNext returns within maxAwaitTime, the worker then closes the cursor
+        if (worker != null) {
+            worker.join(properties.getMaxAwaitTime().toMillis() * 2);
+        }
+        try {
+            saveToken(true);
+        } catch (RuntimeException ex) {
+            logger.warn("Could not save the product change stream position: {}", ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Caches keyset pages of products by query scope, cursor and size.
+ * <p>
+ * A page covers the id range {@code (cursor, lastId]} of its scope: the whole listing, one type
+ * or one name prefix. Every cached page is recorded in a per-scope Redis sorted set ordered by
+ * its upper bound, so a write only evicts the pages whose range contains the written id in the
+ * scopes the product belongs to, before and after the change, instead of the whole listing.
+ * With hash tags, the pages of a scope and its index share one cluster slot.
+ * <p>
+ * Name prefixes come from clients, so only prefixes up to {@code max-name-prefix-length} are
+ * cached, and at most {@code max-name-prefixes} of them at a time. They are kept in a sorted set
+ * scored by the time their last page expires, so prefixes that are no longer searched drop out.
+ * The index of a scope keeps at most {@code max-indexed-pages} pages: any cursor makes a new
+ * page, so above that random pages are evicted with their index entries. Most of them are
+ * entries of pages that already expired.
+ */
+@Component
+@RequiredArgsConstructor
+public class ProductPageCache {
+
+    public static final String CACHE_NAME = "productPages";
+
+    static final String INDEX_KEY = "productPages:index";
+    // Name prefixes that currently have cached pages scored by their expiry, a changed name is matched against them
+    static final String NAME_PREFIXES_KEY = "productPages:namePrefixExpiries";
+
+    /**
+     * Registers a name prefix unless the limit of prefixes is reached, after dropping the expired
+     * ones. A registered prefix gets the new expiry. ARGV: prefix, now and expiry in epoch
+     * millis, maximum number of prefixes.
+     */
+    static final RedisScript<Boolean> REGISTER_NAME_PREFIX = new DefaultRedisScript<>("""
+            redis.call('zremrangebyscore', KEYS[1], '-inf', ARGV[2])
+            if redis.call('zscore', KEYS[1], ARGV[1]) or redis.call('zcard', KEYS[1]) < tonumber(ARGV[4]) then
+              redis.call('zadd', KEYS[1], ARGV[3], ARGV[1])
+              redis.call('pexpireat', KEYS[1], ARGV[3])
+              return 1
+            end
+            return 0
+            """, Boolean.class);
+
+    private static final String FIRST_PAGE = "first";
+    // Sorts after every ObjectId hex string, so it marks the open-ended last page
+    private static final String OPEN_UPPER_BOUND = "~";
+    private static final String ALL_TAG = "all";
+
+    private final CacheManager cacheManager;
+    private final RedisCacheBatchOperations batchOperations;
+    private final StringRedisTemplate redisTemplate;
+    private final CachePolicies cachePolicies;
+    private final RedisCircuitBreaker circuitBreaker;
+    private final MarketCacheProperties properties;
+
+    public ProductPageDto get(String cursor, int size) {
+        return get(Scope.ALL, cursor, size);
+    }
+
+    public ProductPageDto get(Scope scope, String cursor, int size) {
+        if (!isCacheable(scope, properties.getPages())) {
+            return null;
+        }
+        return cache().get(key(scope, cursor, size), ProductPageDto.class);
+    }
+
+    public void put(String cursor, int size, ProductPageDto page) {
+        put(Scope.ALL, cursor, size, page);
+    }
+
+    public void put(Scope scope, String cursor, int size, ProductPageDto page) {
+        if (!isCacheable(scope, properties.getPages())) {
+            return;
+        }
+        // A prefix that is not registered would not be matched by writes, its pages are not cached
+        if (scope.kind() == ScopeKind.NAME_PREFIX && !registerNamePrefix(scope.value())) {
+            return;
+        }
+
+        String key = key(scope, cursor, size);
+        cache().put(key, page);
+
+        String indexKey = indexKey(scope, cachePolicies);
+        // An unindexed page could not be evicted, it is removed once Redis is back
+        circuitBreaker.run(() -> {
+            redisTemplate.opsForZSet().add(indexKey, indexMember(key, page), 0);
+            redisTemplate.expire(indexKey, cachePolicies.maxTtl(CACHE_NAME));
+            trimIndex(indexKey);
+        }, () -> circuitBreaker.skippedWrite(CACHE_NAME, cachePolicies.redisKey(CACHE_NAME, key)));
+    }
+
+    // Not atomic, concurrent writers may trim a few pages more than needed
+    private void trimIndex(String indexKey) {
+        Long size = redisTemplate.opsForZSet().zCard(indexKey);
+        long excess = size != null ? size - properties.getPages().getMaxIndexedPages() : 0;
+        if (excess <= 0) {
+            return;
+        }
+        Set<String> trimmed = redisTemplate.opsForZSet().distinctRandomMembers(indexKey, excess);
+        if (trimmed == null || trimmed.isEmpty()) {
+            return;
+        }
+        redisTemplate.opsForZSet().remove(indexKey, trimmed.toArray());
+        batchOperations.evictAll(cache(), trimmed.stream().map(ProductPageCache::keyOf).toList());
+    }
+
+    private boolean registerNamePrefix(String prefix) {
+        List<String> args = registerNamePrefixArgs(prefix, cachePolicies, properties.getPages());
+        Boolean registered = circuitBreaker.call(() -> redisTemplate.execute(REGISTER_NAME_PREFIX,
+                List.of(NAME_PREFIXES_KEY), args.toArray()), () -> false);
+        return Boolean.TRUE.equals(registered);
+    }
+
+    /**
+     * Evicts the cached pages that contain any of the given product states. Pass both the
+     * previous and the new state of an updated product, so it leaves the pages of its old type
+     * or name and enters those of its new ones.
+     */
+    public void evictProducts(Collection<ProductDto> states) {
+        if (states.isEmpty()) {
+            return;
+        }
+
+        // Without the indexes the touched pages are unknown, all of them go
+        circuitBreaker.run(() -> {
+            boolean anyName = states.stream().anyMatch(state -> state.getName() != null);
+            Set<String> namePrefixes = anyName
+                    ? redisTemplate.opsForZSet().rangeByScore(NAME_PREFIXES_KEY, System.currentTimeMillis(), Double.POSITIVE_INFINITY)
+                    : Set.of();
+            idsByScope(states, namePrefixes != null ? namePrefixes : Set.of()).forEach(this::evictContainingAny);
+        }, () -> cache().clear());
+    }
+
+    /**
+     * Evicts the cached pages of a scope whose id range contains any of the given ids, with a
+     * single index lookup for the whole batch.
+     */
+    public void evictContainingAny(Scope scope, Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        String indexKey = indexKey(scope, cachePolicies);
+        TreeSet<String> sortedIds = new TreeSet<>(ids);
+        Set<String> candidates = redisTemplate.opsForZSet().rangeByLex(indexKey, candidateRange(sortedIds));
+        if (candidates == null || candidates.isEmpty()) {
+            return;
+        }
+
+        List<String> evictedMembers = touchedMembers(candidates, sortedIds);
+        if (!evictedMembers.isEmpty()) {
+            batchOperations.evictAll(cache(), evictedMembers.stream().map(ProductPageCache::keyOf).toList());
+            redisTemplate.opsForZSet().remove(indexKey, evictedMembers.toArray());
+        }
+    }
+
+    /**
+     * Groups the ids of the given product states by the scopes whose pages can contain them.
+     */
+    static Map<Scope, Set<String>> idsByScope(Collection<ProductDto> states, Collection<String> namePrefixes) {
+        Map<Scope, Set<String>> idsByScope = new LinkedHashMap<>();
+        for (ProductDto state : states) {
+            if (state.getId() == null) {
+                continue;
+            }
+            idsByScope.computeIfAbsent(Scope.ALL, scope -> new TreeSet<>()).add(state.getId());
+            if (state.getType() != null) {
+                idsByScope.computeIfAbsent(Scope.type(state.getType()), scope -> new TreeSet<>()).add(state.getId());
+            }
+            if (state.getName() != null) {
+                for (String prefix : namePrefixes) {
+                    if (state.getName().startsWith(prefix)) {
+                        idsByScope.computeIfAbsent(Scope.namePrefix(prefix), scope -> new TreeSet<>()).add(state.getId());
+                    }
+                }
+            }
+        }
+        return idsByScope;
+    }
+
+    /**
+     * Whether the pages of a scope are cached: all but those of overlong name prefixes.
+     */
+    static boolean isCacheable(Scope scope, MarketCacheProperties.Pages pages) {
+        return scope.kind() != ScopeKind.NAME_PREFIX || scope.value().length() <= pages.getMaxNamePrefixLength();
+    }
+
+    // A prefix lives as long as the longest-lived page it can have
+    static List<String> registerNamePrefixArgs(String prefix, CachePolicies cachePolicies, MarketCacheProperties.Pages pages) {
+        long now = System.currentTimeMillis();
+        long expiry = now + cachePolicies.maxTtl(CACHE_NAME).toMillis();
+        return List.of(prefix, String.valueOf(now), String.valueOf(expiry), String.valueOf(pages.getMaxNamePrefixes()));
+    }
+
+    // Pages ending before the smallest written id cannot contain any of them
+    static Range<String> candidateRange(TreeSet<String> sortedIds) {
+        return Range.rightUnbounded(Range.Bound.inclusive(sortedIds.first()));
+    }
+
+    /**
+     * Selects the index members whose page range contains one of the ids.
+     */
+    static List<String> touchedMembers(Collection<String> candidates, TreeSet<String> sortedIds) {
+        List<String> touched = new ArrayList<>();
+        for (String member : candidates) {
+            String upperBound = member.substring(0, member.indexOf('|'));
+            String cursor = cursorOf(keyOf(member));
+
+            // First id written after the cursor, the page is touched if it is within its upper bound
+            String firstAfterCursor = FIRST_PAGE.equals(cursor) ? sortedIds.first() : sortedIds.higher(cursor);
+            if (firstAfterCursor != null && firstAfterCursor.compareTo(upperBound) <= 0) {
+                touched.add(member);
+            }
+        }
+        return touched;
+    }
+
+    static String indexMember(String key, ProductPageDto page) {
+        String upperBound = page.getNextCursor() != null ? page.getNextCursor() : OPEN_UPPER_BOUND;
+        return upperBound + "|" + key;
+    }
+
+    static String key(Scope scope, String cursor, int size) {
+        return scope.keyPrefix() + (cursor != null ? cursor : FIRST_PAGE) + ":" + size;
+    }
+
+    // With hash tags the index shares the slot of the pages it lists
+    static String indexKey(Scope scope, CachePolicies cachePolicies) {
+        return cachePolicies.isHashTagged() ? scope.indexKey() + ":{" + scope.tag() + "}" : scope.indexKey();
+    }
+
+    /**
+     * Hash tag of a page key, the scope the page belongs to, see {@link Scope#tag()}.
+     */
+    static String scopeTagOf(String key) {
+        int sizeSeparator = key.lastIndexOf(':');
+        int cursorSeparator = key.lastIndexOf(':', sizeSeparator - 1);
+        return cursorSeparator < 0 ? ALL_TAG : key.substring(0, cursorSeparator);
+    }
+
+    static String keyOf(String member) {
+        return member.substring(member.indexOf('|') + 1);
+    }
+
+    // Keys end with "<cursor>:<size>", scope values are URL-encoded so they hold no ':'
+    private static String cursorOf(String key) {
+        int sizeSeparator = key.lastIndexOf(':');
+        return key.substring(key.lastIndexOf(':', sizeSeparator - 1) + 1, sizeSeparator);
+    }
+
+    private Cache cache() {
+        return cacheManager.getCache(CACHE_NAME);
+    }
+
+    public enum ScopeKind {
+        ALL,
+        TYPE,
+        NAME_PREFIX
+    }
+
+    /**
+     * The query a page belongs to: the whole listing, products of one type, or products whose
+     * name starts with a prefix.
+     */
+    public record Scope(ScopeKind kind, String value) {
+
+        public static final Scope ALL = new Scope(ScopeKind.ALL, null);
+
+        public static Scope type(String type) {
+            return new Scope(ScopeKind.TYPE, type);
+        }
+
+        public static Scope namePrefix(String prefix) {
+            return new Scope(ScopeKind.NAME_PREFIX, prefix);
+        }
+
+        // Listing keys stay "<cursor>:<size>"
+        String keyPrefix() {
+            return kind == ScopeKind.ALL ? "" : kind.name().toLowerCase() + ":" + encodedValue() + ":";
+        }
+
+        String indexKey() {
+            return kind == ScopeKind.ALL ? INDEX_KEY : INDEX_KEY + ":" + kind.name().toLowerCase() + ":" + encodedValue();
+        }
+
+        // The key prefix without its trailing ':'
+        String tag() {
+            return kind == ScopeKind.ALL ? ALL_TAG : kind.name().toLowerCase() + ":" + encodedValue();
+        }
+
+        private String encodedValue() {
+            return URLEncoder.encode(value, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.model.mapper.ProductMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Range;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.RedisSystemException;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.PendingMessage;
+import org.springframework.data.redis.connection.stream.PendingMessages;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind for product updates.
+ * <p>
+ * Updates are appended to a Redis Stream (durable across restarts of this node) after the cache
+ * has been updated. A single flusher thread reads them through a consumer group every
+ * {@code flush-interval}, keeps only the last write per id, applies the batch with one unordered
+ * Mongo bulk write and then acknowledges and deletes the entries. Entries a crashed node left
+ * unacknowledged are claimed after {@code claim-idle}, and the queue is drained on shutdown.
+ */
+@Component
+@ConditionalOnProperty(prefix = "market.cache.write-behind", name = "enabled", havingValue = "true")
+public class ProductWriteBehindQueue implements InitializingBean, DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProductWriteBehindQueue.class);
+
+    // Claiming looks at the pending list, which is not needed on every flush
+    private static final int CLAIM_EVERY_CYCLES = 50;
+
+    private final StringRedisTemplate redisTemplate;
+    private final MongoTemplate mongoTemplate;
+    private final ProductPageCache productPageCache;
+    private final MarketCacheProperties.WriteBehind properties;
+    private final String consumerName;
+    private final Duration retryAfter;
+    private final ScheduledExecutorService flusher;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final Timer flushTimer;
+    private final DistributionSummary lag;
+    private final Counter flushedWrites;
+    private final Counter coalescedWrites;
+    private long cycles;
+
+    public ProductWriteBehindQueue(StringRedisTemplate redisTemplate,
+                                   MongoTemplate mongoTemplate,
+                                   ProductPageCache productPageCache,
+                                   MarketCacheProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.mongoTemplate = mongoTemplate;
+        this.productPageCache = productPageCache;
+        this.properties = properties.getWriteBehind();
+        this.consumerName = this.properties.getConsumerName() != null
+                ? this.properties.getConsumerName()
+                : defaultConsumerName();
+        this.retryAfter = properties.getCircuitBreaker().getOpenDuration();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "write-behind-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("product.write_behind.queue.depth", queueDepth, AtomicLong::get)
+                .description("Updates waiting to be written to Mongo")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("product.write_behind.flush")
+                .description("Time to write one coalesced batch to Mongo")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.lag = DistributionSummary.builder("product.write_behind.lag")
+                .description("Time between an update being queued and written to Mongo")
+                .baseUnit("milliseconds")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.flushedWrites = Counter.builder("product.write_behind.writes")
+                .tag("result", "flushed")
+                .register(meterRegistry);
+        this.coalescedWrites = Counter.builder("product.write_behind.writes")
+                .tag("result", "coalesced")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            stream().createGroup(properties.getStreamKey(), ReadOffset.from("0"), properties.getConsumerGroup());
+        } catch (RedisSystemException ex) {
+            // BUSYGROUP: the group already exists
+            logger.debug("Write-behind consumer group not created: {}", ex.getMessage());
+        }
+
+        long interval = properties.getFlushInterval().toMillis();
+        flusher.scheduleWithFixedDelay(this::flushSafely, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues the new state of a product, the caller has already written it to the cache.
+     */
+    public void enqueue(ProductDto product) {
+        Map<String, String> fields = new LinkedHashMap<>();
+        fields.put("id", product.getId());
+        fields.put("name", product.getName());
+        fields.put("type", product.getType());
+        fields.put("version", String.valueOf(ProductMapper.versionOf(product)));
+        MapRecord<String, String, String> record = StreamRecords.mapBacked(fields).withStreamKey(properties.getStreamKey());
+        stream().add(record);
+        queueDepth.incrementAndGet();
+    }
+
+    /**
+     * Whether the queue is deep enough that updates should be written synchronously instead.
+     */
+    public boolean isSaturated() {
+        return queueDepth.get() >= properties.getMaxQueueDepth();
+    }
+
+    /**
+     * Writes the new state of a product to Mongo right away instead of queueing it, the caller has
+     * already written it to the cache. Entries of the product still queued are older and carry a
+     * whole state too, so they become no-ops.
+     */
+    public void writeThrough(ProductDto product) {
+        write(List.of(product));
+    }
+
+    /**
+     * How long to wait before retrying an update that could not be checked against the cache.
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    private void flushSafely() {
+        try {
+            if (++cycles % CLAIM_EVERY_CYCLES == 0) {
+                claimAbandoned();
+            }
+            flush();
+        } catch (RuntimeException ex) {
+            // Entries stay pending and are retried on the next cycle
+            logger.warn("Write-behind flush failed: {}", ex.getMessage());
+        }
+    }
+
+    /**
+     * Writes one batch to Mongo and returns the number of stream entries it covered.
+     */
+    int flush() {
+        Consumer consumer = Consumer.from(properties.getConsumerGroup(), consumerName);
+        StreamReadOptions options = StreamReadOptions.empty().count(properties.getBatchSize());
+
+        // Entries delivered earlier but not acknowledged (failed flush, restart, claim) come first
+        List<MapRecord<String, String, String>> records = read(consumer, options, ReadOffset.from("0"));
+        if (records == null || records.isEmpty()) {
+            records = read(consumer, options, ReadOffset.lastConsumed());
+        }
+        if (records == null || records.isEmpty()) {
+            queueDepth.set(sizeOrZero());
+            return 0;
+        }
+
+        // Stream order is update order, so the last entry per id is the current state
+        Map<String, ProductDto> latest = new LinkedHashMap<>();
+        RecordId[] recordIds = new RecordId[records.size()];
+        long oldestTimestamp = Long.MAX_VALUE;
+        for (int i = 0; i < records.size(); i++) {
+            MapRecord<String, String, String> record = records.get(i);
+            recordIds[i] = record.getId();
+            oldestTimestamp = Math.min(oldestTimestamp, record.getId().getTimestamp());
+
+            ProductDto product = new ProductDto();
+            product.setId(record.getValue().get("id"));
+            product.setName(record.getValue().get("name"));
+            product.setType(record.getValue().get("type"));
+            product.setVersion(Long.valueOf(record.getValue().getOrDefault("version", "0")));
+            latest.put(product.getId(), product);
+        }
+
+        flushTimer.record(() -> write(latest.values()));
+        // A page read from Mongo before the write landed may have been cached with the old values
+        productPageCache.evictProducts(new ArrayList<>(latest.values()));
+
+        stream().acknowledge(properties.getStreamKey(), properties.getConsumerGroup(), recordIds);
+        stream().delete(properties.getStreamKey(), recordIds);
+
+        lag.record(System.currentTimeMillis() - oldestTimestamp);
+        flushedWrites.increment(latest.size());
+        coalescedWrites.increment(records.size() - latest.size());
+        queueDepth.set(sizeOrZero());
+        return records.size();
+    }
+
+    private void write(Iterable<ProductDto> products) {
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        for (ProductDto product : products) {
+            // No upsert: a product deleted after the update was queued stays deleted. Only older
+            // documents match, so an entry flushed late by another consumer or a claim is a no-op
+            Criteria older = new Criteria().orOperator(
+                    Criteria.where("version").lt(product.getVersion()),
+                    Criteria.where("version").exists(false));
+            bulk.updateOne(new Query(Criteria.where("_id").is(product.getId()).andOperator(older)),
+                    Update.update("name", product.getName()).set("type", product.getType())
+                            .set("version", product.getVersion()));
+        }
+        bulk.execute();
+    }
+
+    private void claimAbandoned() {
+        PendingMessages pending = stream().pending(properties.getStreamKey(), properties.getConsumerGroup(),
+                Range.unbounded(), properties.getBatchSize());
+        List<RecordId> abandoned = new ArrayList<>();
+        for (PendingMessage message : pending) {
+            if (!consumerName.equals(message.getConsumerName())
+                    && message.getElapsedTimeSinceLastDelivery().compareTo(properties.getClaimIdle()) >= 0) {
+                abandoned.add(message.getId());
+            }
+        }
+        if (!abandoned.isEmpty()) {
+            logger.info("Claiming {} write-behind entries left by other nodes", abandoned.size());
+            stream().claim(properties.getStreamKey(), properties.getConsumerGroup(), consumerName,
+                    properties.getClaimIdle(), abandoned.toArray(RecordId[]::new));
+        }
+    }
+
+    // A single offset, the varargs array of the generic StreamOffset is safe
+    @SuppressWarnings("unchecked")
+    private List<MapRecord<String, String, String>> read(Consumer consumer, StreamReadOptions options, ReadOffset offset) {
+        return stream().read(consumer, options, StreamOffset.create(properties.getStreamKey(), offset));
+    }
+
+    private long sizeOrZero() {
+        Long size = stream().size(properties.getStreamKey());
+        return size != null ? size : 0;
+    }
+
+    private StreamOperations<String, String, String> stream() {
+        return redisTemplate.opsForStream();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(properties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS);
+
+        // Drain what is left so a clean shutdown does not leave the lag to another node
+        long deadline = System.nanoTime() + properties.getShutdownTimeout().toNanos();
+        try {
+            while (System.nanoTime() < deadline && flush() > 0) {
+                logger.debug("Drained write-behind batch on shutdown");
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Write-behind entries left in the stream on shutdown: {}", ex.getMessage());
+        }
+    }
+
+    private static String defaultConsumerName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException ex) {
+            return UUID.randomUUID().toString();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.StringRedisSerializer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Non-blocking access to the {@code products} and {@code productPages} caches for the reactive stack.
+ * <p>
+ * Entries use the same keys, TTLs and value serializer as the Redis cache manager (see
+ * {@link CachePolicies}), so blocking and reactive nodes share them, and writes are broadcast on the invalidation topic so blocking nodes
+ * drop their L1 copies. There is no in-heap tier on this path.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveProductCache.class);
+
+    private static final String PRODUCTS = "products";
+
+    private final ReactiveRedisTemplate<String, Object> redisTemplate;
+    private final ReactiveStringRedisTemplate stringRedisTemplate;
+    private final CacheInvalidationBus invalidationBus;
+    private final CachePolicies cachePolicies;
+    private final MarketCacheProperties.Pages pages;
+
+    public ReactiveProductCache(ReactiveRedisConnectionFactory connectionFactory,
+                                RedisSerializer<Object> cacheValueSerializer,
+                                ReactiveStringRedisTemplate stringRedisTemplate,
+                                CacheInvalidationBus invalidationBus,
+                                CachePolicies cachePolicies,
+                                MarketCacheProperties properties) {
+        RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+                .<String, Object>newSerializationContext(StringRedisSerializer.UTF_8)
+                .value(cacheValueSerializer)
+                .build();
+        this.redisTemplate = new ReactiveRedisTemplate<>(connectionFactory, serializationContext);
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.invalidationBus = invalidationBus;
+        this.cachePolicies = cachePolicies;
+        this.pages = properties.getPages();
+    }
+
+    /**
+     * Looks up a product, empty on a miss and an empty optional when the product is cached as missing.
+     */
+    public Mono<Optional<ProductDto>> getProduct(String id) {
+        return redisTemplate.opsForValue().get(redisKey(PRODUCTS, id))
+                .map(value -> value instanceof ProductDto product ? Optional.of(product) : Optional.empty());
+    }
+
+    /**
+     * Looks up several products with one MGET, missing ids are absent from the result. On a
+     * cluster, Lettuce splits the MGET by slot, one per hash tag bucket with hash tags.
+     */
+    public Mono<Map<String, ProductDto>> getProducts(List<String> ids) {
+        List<String> keys = ids.stream().map(id -> redisKey(PRODUCTS, id)).toList();
+        return redisTemplate.opsForValue().multiGet(keys).map(values -> {
+            Map<String, ProductDto> found = new HashMap<>();
+            for (int i = 0; i < ids.size(); i++) {
+                if (values.get(i) instanceof ProductDto product) {
+                    found.put(ids.get(i), product);
+                }
+            }
+            return found;
+        });
+    }
+
+    public Mono<Void> putProduct(ProductDto product) {
+        return redisTemplate.opsForValue()
+                .set(redisKey(PRODUCTS, product.getId()), product, cachePolicies.entryTtl(PRODUCTS, product.getId(), product))
+                .then(publish(invalidationBus.evictMessage(PRODUCTS, product.getId())));
+    }
+
+    /**
+     * Records that no product has the id, when the products cache keeps null values.
+     */
+    public Mono<Void> putMissingProduct(String id) {
+        if (!cachePolicies.cachesNullValues(PRODUCTS)) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForValue()
+                .set(redisKey(PRODUCTS, id), NullValue.INSTANCE, cachePolicies.entryTtl(PRODUCTS, id, null))
+                .then();
+    }
+
+    // Commands issued concurrently on the shared Lettuce connection are pipelined
+    public Mono<Void> putProducts(Collection<ProductDto> products) {
+        if (products.isEmpty()) {
+            return Mono.empty();
+        }
+        List<String> ids = products.stream().map(ProductDto::getId).toList();
+        return Flux.fromIterable(products)
+                .flatMap(product -> redisTemplate.opsForValue()
+                        .set(redisKey(PRODUCTS, product.getId()), product,
+                                cachePolicies.entryTtl(PRODUCTS, product.getId(), product)))
+                .then(publish(invalidationBus.evictAllMessage(PRODUCTS, ids)));
+    }
+
+    public Mono<Void> evictProduct(String id) {
+        return redisTemplate.unlink(redisKey(PRODUCTS, id))
+                .then(publish(invalidationBus.evictMessage(PRODUCTS, id)));
+    }
+
+    public Mono<ProductPageDto> getPage(ProductPageCache.Scope scope, String cursor, int size) {
+        if (!ProductPageCache.isCacheable(scope, pages)) {
+            return Mono.empty();
+        }
+        return redisTemplate.opsForValue()
+                .get(redisKey(ProductPageCache.CACHE_NAME, ProductPageCache.key(scope, cursor, size)))
+                .ofType(ProductPageDto.class);
+    }
+
+    public Mono<Void> putPage(ProductPageCache.Scope scope, String cursor, int size, ProductPageDto page) {
+        if (!ProductPageCache.isCacheable(scope, pages)) {
+            return Mono.empty();
+        }
+        String key = ProductPageCache.key(scope, cursor, size);
+        String indexKey = ProductPageCache.indexKey(scope, cachePolicies);
+        // A prefix that is not registered would not be matched by writes, its pages are not cached
+        Mono<Boolean> registered = scope.kind() != ProductPageCache.ScopeKind.NAME_PREFIX
+                ? Mono.just(true)
+                : stringRedisTemplate.execute(ProductPageCache.REGISTER_NAME_PREFIX,
+                                List.of(ProductPageCache.NAME_PREFIXES_KEY),
+                                ProductPageCache.registerNamePrefixArgs(scope.value(), cachePolicies, pages))
+                        .next();
+        return registered
+                .filter(Boolean::booleanValue)
+                .flatMap(admitted -> redisTemplate.opsForValue()
+                        .set(redisKey(ProductPageCache.CACHE_NAME, key), page, cachePolicies.entryTtl(ProductPageCache.CACHE_NAME, key, page))
+                        .then(stringRedisTemplate.opsForZSet().add(indexKey, ProductPageCache.indexMember(key, page), 0))
+                        .then(stringRedisTemplate.expire(indexKey, cachePolicies.maxTtl(ProductPageCache.CACHE_NAME)))
+                        .then(trimIndex(indexKey)))
+                .then();
+    }
+
+    // See ProductPageCache#trimIndex
+    private Mono<Void> trimIndex(String indexKey) {
+        return stringRedisTemplate.opsForZSet().size(indexKey)
+                .map(size -> size - pages.getMaxIndexedPages())
+                .filter(excess -> excess > 0)
+                .flatMap(excess -> stringRedisTemplate.opsForZSet().distinctRandomMembers(indexKey, excess).collectList())
+                .filter(trimmed -> !trimmed.isEmpty())
+                .flatMap(trimmed -> {
+                    List<String> keys = trimmed.stream().map(ProductPageCache::keyOf).toList();
+                    return stringRedisTemplate.opsForZSet().remove(indexKey, trimmed.toArray())
+                            .then(redisTemplate.unlink(keys.stream().map(key -> redisKey(ProductPageCache.CACHE_NAME, key)).toArray(String[]::new)))
+                            .then(publish(invalidationBus.evictAllMessage(ProductPageCache.CACHE_NAME, keys)));
+                });
+    }
+
+    /**
+     * Evicts the cached pages that contain any of the given product states, see
+     * {@link ProductPageCache#evictProducts}.
+     */
+    public Mono<Void> evictPages(List<ProductDto> states) {
+        return stringRedisTemplate.opsForZSet()
+                .rangeByScore(ProductPageCache.NAME_PREFIXES_KEY,
+                        Range.rightUnbounded(Range.Bound.inclusive((double) System.currentTimeMillis())))
+                .collectList()
+                .flatMapMany(namePrefixes -> Flux.fromIterable(ProductPageCache.idsByScope(states, namePrefixes).entrySet()))
+                .flatMap(entry -> evictPagesContaining(entry.getKey(), new TreeSet<>(entry.getValue())))
+                .then();
+    }
+
+    private Mono<Void> evictPagesContaining(ProductPageCache.Scope scope, TreeSet<String> sortedIds) {
+        String indexKey = ProductPageCache.indexKey(scope, cachePolicies);
+        return stringRedisTemplate.opsForZSet()
+                .rangeByLex(indexKey, ProductPageCache.candidateRange(sortedIds))
+                .collectList()
+                .flatMap(candidates -> {
+                    List<String> members = ProductPageCache.touchedMembers(candidates, sortedIds);
+                    if (members.isEmpty()) {
+                        return Mono.empty();
+                    }
+                    List<String> keys = members.stream().map(ProductPageCache::keyOf).toList();
+                    // UNLINK frees the pages in the background, with hash tags they share the slot of the index
+                    return redisTemplate.unlink(keys.stream().map(key -> redisKey(ProductPageCache.CACHE_NAME, key)).toArray(String[]::new))
+                            .then(stringRedisTemplate.opsForZSet().remove(indexKey, members.toArray()))
+                            .then(publish(invalidationBus.evictAllMessage(ProductPageCache.CACHE_NAME, keys)));
+                });
+    }
+
+    private Mono<Void> publish(String message) {
+        return stringRedisTemplate.convertAndSend(invalidationBus.getTopic(), message)
+                .doOnError(ex -> logger.warn("Failed to publish cache invalidation: {}", ex.getMessage()))
+                .onErrorResume(ex -> Mono.empty())
+                .then();
+    }
+
+    // Same prefix and hash tag as the keys of the Redis cache manager
+    private String redisKey(String cacheName, String key) {
+        return cachePolicies.redisKey(cacheName, key);
+    }
+}
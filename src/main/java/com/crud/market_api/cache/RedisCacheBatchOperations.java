@@ -0,0 +1,388 @@
+package com.crud.market_api.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+/**
+ * Multi-key operations on the Redis tier of a cache, which the {@link Cache} abstraction
+ * only offers one key at a time. Keys and values are encoded with the cache's own
+ * {@link RedisCacheConfiguration}, so entries are interchangeable with single-key access, and
+ * values over the {@code max-entry-size} of the cache are left out as with single-key writes.
+ * <p>
+ * With hash tags, multi-key commands are split by cluster slot and sent in one pipeline, so a
+ * batch costs one command per hash tag bucket it touches instead of one per key.
+ * <p>
+ * Calls go through the {@link RedisCircuitBreaker} like single-key access: while Redis is
+ * skipped, reads miss and the keys of dropped writes are left for repair.
+ */
+public class RedisCacheBatchOperations {
+
+    // Sets KEYS[1] to ARGV[2] (deletes it when empty) with a TTL of ARGV[3] ms (none when 0), only
+    // if it still holds ARGV[1], or is missing when ARGV[4] is 0
+    private static final byte[] COMPARE_AND_SET_SCRIPT = """
+            local current = redis.call('get', KEYS[1])
+            if ARGV[4] == '1' then
+                if current ~= ARGV[1] then return 0 end
+            elseif current then
+                return 0
+            end
+            if ARGV[2] == '' then
+                redis.call('del', KEYS[1])
+            elseif ARGV[3] == '0' then
+                redis.call('set', KEYS[1], ARGV[2])
+            else
+                redis.call('set', KEYS[1], ARGV[2], 'px', ARGV[3])
+            end
+            return 1
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private final StringRedisTemplate redisTemplate;
+    private final CachePolicies cachePolicies;
+    private final RedisCircuitBreaker circuitBreaker;
+
+    public RedisCacheBatchOperations(StringRedisTemplate redisTemplate, CachePolicies cachePolicies,
+                                     RedisCircuitBreaker circuitBreaker) {
+        this.redisTemplate = redisTemplate;
+        this.cachePolicies = cachePolicies;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * Resolves all keys with one MGET per slot, after the local tier when there is one.
+     * Returns only the keys that were found.
+     */
+    public Map<String, Object> getAll(Cache cache, Collection<String> keys) {
+        Map<String, Object> found = new HashMap<>();
+        TwoLevelCache twoLevelCache = cache instanceof TwoLevelCache twoLevel ? twoLevel : null;
+
+        List<String> remaining = new ArrayList<>();
+        for (String key : keys) {
+            Cache.ValueWrapper local = twoLevelCache != null ? twoLevelCache.getLocal(key) : null;
+            if (local != null) {
+                found.put(key, local.get());
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return found;
+        }
+
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            remaining.forEach(key -> {
+                Cache.ValueWrapper wrapper = cache.get(key);
+                if (wrapper != null) {
+                    found.put(key, wrapper.get());
+                }
+            });
+            return found;
+        }
+
+        List<byte[]> values = mGet(remaining.stream().map(key -> serializeKey(redisCache, key)).toList());
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        Map<String, Object> remoteHits = new HashMap<>();
+        for (int i = 0; i < remaining.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null) {
+                Object deserialized = config.getValueSerializationPair().read(ByteBuffer.wrap(value));
+                if (deserialized != null && !(deserialized instanceof NullValue)) {
+                    remoteHits.put(remaining.get(i), deserialized);
+                }
+            }
+        }
+
+        if (twoLevelCache != null) {
+            twoLevelCache.loadedFromRemote(remoteHits, remaining.size() - remoteHits.size());
+        }
+        found.putAll(remoteHits);
+        return found;
+    }
+
+    /**
+     * Reads a value together with the time it was written, see {@link TimestampedRedisSerializer}.
+     * Returns null when the key is missing.
+     */
+    public TimedValue getWithWriteTime(Cache cache, String key) {
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            Cache.ValueWrapper wrapper = cache.get(key);
+            return wrapper != null ? new TimedValue(wrapper.get(), null) : null;
+        }
+
+        byte[] binaryKey = serializeKey(redisCache, key);
+        byte[] value = circuitBreaker.call(() -> redisTemplate.execute(
+                (RedisCallback<byte[]>) connection -> connection.stringCommands().get(binaryKey)), () -> null);
+        if (value == null) {
+            return null;
+        }
+        Object deserialized = redisCache.getCacheConfiguration().getValueSerializationPair().read(ByteBuffer.wrap(value));
+        return new TimedValue(deserialized instanceof NullValue ? null : deserialized,
+                TimestampedRedisSerializer.writtenAt(value));
+    }
+
+    /**
+     * Writes all entries in a single pipeline.
+     */
+    public void putAll(Cache cache, Map<String, ?> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            entries.forEach(cache::put);
+            return;
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        circuitBreaker.run(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            entries.forEach((key, value) -> {
+                if (value == null) {
+                    return;
+                }
+                byte[] binaryKey = serializeKey(redisCache, key);
+                byte[] binaryValue = ByteUtils.getBytes(config.getValueSerializationPair().write(value));
+                if (!cachePolicies.fits(redisCache.getName(), binaryValue.length)) {
+                    connection.keyCommands().del(binaryKey);
+                    return;
+                }
+                connection.stringCommands().set(
+                        binaryKey,
+                        binaryValue,
+                        expiration(config.getTtlFunction().getTimeToLive(key, value)),
+                        RedisStringCommands.SetOption.upsert()
+                );
+            });
+            return null;
+        }), () -> skippedWrites(redisCache, entries.keySet()));
+
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.putAllLocal(entries);
+        }
+    }
+
+    /**
+     * Writes the entries missing from Redis in a single pipeline and returns how many were
+     * created. Existing entries are left alone and other nodes are not notified, since no value
+     * they may hold changes. Used to preload a cache without overwriting fresher writes.
+     */
+    public int putAllIfAbsent(Cache cache, Map<String, ?> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            int created = 0;
+            for (Map.Entry<String, ?> entry : entries.entrySet()) {
+                if (cache.putIfAbsent(entry.getKey(), entry.getValue()) == null) {
+                    created++;
+                }
+            }
+            return created;
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        // Nothing to repair when skipped, the entries were not there
+        List<Object> results = circuitBreaker.call(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            entries.forEach((key, value) -> {
+                if (value == null) {
+                    return;
+                }
+                byte[] binaryValue = ByteUtils.getBytes(config.getValueSerializationPair().write(value));
+                if (cachePolicies.fits(redisCache.getName(), binaryValue.length)) {
+                    connection.stringCommands().set(
+                            serializeKey(redisCache, key),
+                            binaryValue,
+                            expiration(config.getTtlFunction().getTimeToLive(key, value)),
+                            RedisStringCommands.SetOption.ifAbsent()
+                    );
+                }
+            });
+            return null;
+        }), List::of);
+        return (int) results.stream().filter(Boolean.TRUE::equals).count();
+    }
+
+    /**
+     * Unlinks all keys with one multi-key command per slot, Redis frees the values in the
+     * background.
+     */
+    public void evictAll(Cache cache, Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            keys.forEach(cache::evict);
+            return;
+        }
+
+        List<byte[]> binaryKeys = keys.stream().map(key -> serializeKey(redisCache, key)).toList();
+        List<List<Integer>> slotBatches = bySlot(binaryKeys);
+        circuitBreaker.run(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            slotBatches.forEach(batch -> connection.keyCommands().unlink(keysAt(binaryKeys, batch)));
+            return null;
+        }), () -> skippedWrites(redisCache, keys));
+
+        if (cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.evictAllLocal(keys);
+        }
+    }
+
+    /**
+     * Replaces the Redis entry of the key with {@code change} applied to it, atomically: a script
+     * writes the new value only if Redis still holds the bytes it was computed from, otherwise the
+     * entry is read and changed again. A missing entry is computed from {@code loader}, a cached
+     * miss is passed to {@code change} as null, and an exception thrown by {@code change} aborts.
+     * The local tier is refreshed and the other nodes notified like after a put.
+     * <p>
+     * Returns the new value, or null when the cache has no Redis tier or Redis is skipped, in which
+     * case nothing was written.
+     */
+    public <T> T compareAndUpdate(Cache cache, String key, Class<T> type, Supplier<T> loader, UnaryOperator<T> change) {
+        RedisCache redisCache = redisCache(cache);
+        if (redisCache == null) {
+            return null;
+        }
+
+        RedisCacheConfiguration config = redisCache.getCacheConfiguration();
+        byte[] binaryKey = serializeKey(redisCache, key);
+        T updated = circuitBreaker.call(() -> {
+            while (true) {
+                byte[] current = redisTemplate.execute((RedisCallback<byte[]>) connection ->
+                        connection.stringCommands().get(binaryKey));
+                T value;
+                if (current == null) {
+                    value = loader.get();
+                } else {
+                    Object deserialized = config.getValueSerializationPair().read(ByteBuffer.wrap(current));
+                    value = deserialized instanceof NullValue ? null : type.cast(deserialized);
+                }
+
+                T next = change.apply(value);
+                byte[] binaryValue = ByteUtils.getBytes(config.getValueSerializationPair().write(next));
+                if (!cachePolicies.fits(redisCache.getName(), binaryValue.length)) {
+                    binaryValue = new byte[0];
+                }
+                Duration ttl = config.getTtlFunction().getTimeToLive(key, next);
+                byte[][] keyAndArgs = {
+                        binaryKey,
+                        current != null ? current : new byte[0],
+                        binaryValue,
+                        String.valueOf(ttl == null || ttl.isNegative() ? 0 : ttl.toMillis()).getBytes(StandardCharsets.UTF_8),
+                        (current != null ? "1" : "0").getBytes(StandardCharsets.UTF_8)
+                };
+                Boolean set = redisTemplate.execute((RedisCallback<Boolean>) connection ->
+                        connection.scriptingCommands().eval(COMPARE_AND_SET_SCRIPT, ReturnType.BOOLEAN, 1, keyAndArgs));
+                if (Boolean.TRUE.equals(set)) {
+                    return next;
+                }
+                // Another writer changed the entry in between, change its new state
+            }
+        }, () -> null);
+
+        if (updated != null && cache instanceof TwoLevelCache twoLevelCache) {
+            twoLevelCache.putAllLocal(Map.of(key, updated));
+        }
+        return updated;
+    }
+
+    /**
+     * Cached value and when it was written, null when that is not known.
+     */
+    public record TimedValue(Object value, Instant writtenAt) {
+    }
+
+    private void skippedWrites(RedisCache redisCache, Collection<String> keys) {
+        keys.forEach(key -> circuitBreaker.skippedWrite(redisCache.getName(), serializeKey(redisCache, key)));
+    }
+
+    private static RedisCache redisCache(Cache cache) {
+        Cache target = cache instanceof TwoLevelCache twoLevelCache ? twoLevelCache.getRemote() : cache;
+        return target instanceof RedisCache redisCache ? redisCache : null;
+    }
+
+    // One MGET per slot in a single pipeline, values in the order of the keys, null when missing
+    private List<byte[]> mGet(List<byte[]> binaryKeys) {
+        List<List<Integer>> slotBatches = bySlot(binaryKeys);
+        List<Object> results = circuitBreaker.call(() -> redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            slotBatches.forEach(batch -> connection.stringCommands().mGet(keysAt(binaryKeys, batch)));
+            return null;
+        }, RedisSerializer.byteArray()), () -> null);
+
+        byte[][] values = new byte[binaryKeys.size()][];
+        if (results == null) {
+            return Arrays.asList(values);
+        }
+        for (int batch = 0; batch < slotBatches.size(); batch++) {
+            List<?> batchValues = (List<?>) results.get(batch);
+            List<Integer> positions = slotBatches.get(batch);
+            for (int i = 0; i < positions.size(); i++) {
+                if (batchValues != null && batchValues.get(i) instanceof byte[] value) {
+                    values[positions.get(i)] = value;
+                }
+            }
+        }
+        return Arrays.asList(values);
+    }
+
+    /**
+     * Groups the positions of the keys by cluster slot. Without hash tags the keys stay in one
+     * group, a single node takes any mix of slots and untagged keys rarely share one.
+     */
+    private List<List<Integer>> bySlot(List<byte[]> binaryKeys) {
+        if (!cachePolicies.isHashTagged()) {
+            return List.of(IntStream.range(0, binaryKeys.size()).boxed().toList());
+        }
+        Map<Integer, List<Integer>> positionsBySlot = new LinkedHashMap<>();
+        for (int i = 0; i < binaryKeys.size(); i++) {
+            positionsBySlot.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(binaryKeys.get(i)), slot -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(positionsBySlot.values());
+    }
+
+    private static byte[][] keysAt(List<byte[]> binaryKeys, List<Integer> positions) {
+        return positions.stream().map(binaryKeys::get).toArray(byte[][]::new);
+    }
+
+    private byte[] serializeKey(RedisCache cache, String key) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        String redisKey = config.usePrefix() ? cachePolicies.redisKey(cache.getName(), key) : key;
+        return ByteUtils.getBytes(config.getKeySerializationPair().write(redisKey));
+    }
+
+    private static Expiration expiration(Duration ttl) {
+        return ttl == null || ttl.isZero() || ttl.isNegative()
+                ? Expiration.persistent()
+                : Expiration.from(ttl);
+    }
+}
@@ -0,0 +1,289 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker around the Redis calls of the cache. Once the share of failed or slow calls
+ * over the last {@code window-size} calls reaches the threshold, Redis is skipped for
+ * {@code open-duration}: reads fall back to misses and writes are dropped, so request threads
+ * do not wait for a timeout each. Then {@code half-open-calls} trial calls decide whether it
+ * closes again or stays open for another period.
+ * <p>
+ * Only connection failures and command timeouts, also when they end a pipeline, open the
+ * breaker and are swallowed, other errors propagate. The keys whose writes were skipped are
+ * unlinked when the breaker closes, as Redis may still hold their previous value. Past {@code max-pending-repairs} keys, or when
+ * the keys are not known, the whole cache is cleared instead.
+ */
+public class RedisCircuitBreaker implements InitializingBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisCircuitBreaker.class);
+
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final MarketCacheProperties.CircuitBreaker properties;
+    private final StringRedisTemplate redisTemplate;
+    private final CachePolicies cachePolicies;
+    private final int scanBatchSize;
+
+    // Outcomes of the last calls, true for a failure
+    private final boolean[] window;
+    private int windowPosition;
+    private int recordedCalls;
+    private int windowFailures;
+
+    private volatile State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    private final Set<String> pendingKeys = ConcurrentHashMap.newKeySet();
+    private final Set<String> pendingClears = ConcurrentHashMap.newKeySet();
+
+    private final MeterRegistry meterRegistry;
+    private final Counter successfulCalls;
+    private final Counter failedCalls;
+    private final Counter rejectedCalls;
+
+    public RedisCircuitBreaker(MarketCacheProperties properties,
+                               StringRedisTemplate redisTemplate,
+                               CachePolicies cachePolicies,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties.getCircuitBreaker();
+        this.redisTemplate = redisTemplate;
+        this.cachePolicies = cachePolicies;
+        this.scanBatchSize = properties.getCluster().getScanBatchSize();
+        this.window = new boolean[this.properties.getWindowSize()];
+        this.meterRegistry = meterRegistry;
+        this.successfulCalls = counter(meterRegistry, "success");
+        this.failedCalls = counter(meterRegistry, "failure");
+        this.rejectedCalls = counter(meterRegistry, "rejected");
+    }
+
+    // The state gauge reads this breaker, so it is registered once the breaker is constructed
+    @Override
+    public void afterPropertiesSet() {
+        if (meterRegistry != null) {
+            Gauge.builder("cache.redis.circuit.state", this, breaker -> breaker.state.ordinal())
+                    .description("Redis circuit breaker state: 0 closed, 1 open, 2 half-open")
+                    .register(meterRegistry);
+            Gauge.builder("cache.redis.circuit.pending_repairs", pendingKeys, Set::size)
+                    .description("Keys written while Redis was skipped, unlinked once it is back")
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Runs a Redis call, or the fallback when the breaker is open or the call fails to reach Redis.
+     */
+    public <T> T call(Supplier<T> redisCall, Supplier<T> fallback) {
+        if (!properties.isEnabled()) {
+            return redisCall.get();
+        }
+        if (!tryAcquirePermission()) {
+            increment(rejectedCalls);
+            return fallback.get();
+        }
+
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = redisCall.get();
+        } catch (RuntimeException ex) {
+            if (!isUnavailable(ex)) {
+                // Redis answered, with an error the caller has to see
+                record(false);
+                throw ex;
+            }
+            record(true);
+            logger.debug("Redis call failed, using the fallback: {}", ex.getMessage());
+            return fallback.get();
+        }
+        record(System.nanoTime() - start > properties.getSlowCallThreshold().toNanos());
+        return result;
+    }
+
+    public void run(Runnable redisCall, Runnable fallback) {
+        call(() -> {
+            redisCall.run();
+            return null;
+        }, () -> {
+            fallback.run();
+            return null;
+        });
+    }
+
+    /**
+     * Records that a write of the key did not reach Redis, the key is unlinked on recovery.
+     */
+    public void skippedWrite(String cacheName, String redisKey) {
+        if (pendingKeys.size() < properties.getMaxPendingRepairs()) {
+            pendingKeys.add(redisKey);
+        } else {
+            pendingClears.add(cacheName);
+        }
+    }
+
+    public void skippedWrite(String cacheName, byte[] redisKey) {
+        skippedWrite(cacheName, new String(redisKey, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Records that a change of the cache did not reach Redis, the cache is cleared on recovery.
+     */
+    public void skippedClear(String cacheName) {
+        pendingClears.add(cacheName);
+    }
+
+    // Pipelines report a timeout as a RedisPipelineException caused by it, or listing it among the results
+    private static boolean isUnavailable(Throwable ex) {
+        for (Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if (cause instanceof RedisConnectionFailureException || cause instanceof QueryTimeoutException) {
+                return true;
+            }
+            if (cause instanceof RedisPipelineException pipelineException
+                    && pipelineException.getPipelineResult().stream().anyMatch(failure ->
+                    failure instanceof RedisConnectionFailureException || failure instanceof QueryTimeoutException)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    State getState() {
+        return state;
+    }
+
+    private boolean tryAcquirePermission() {
+        if (state == State.CLOSED) {
+            return true;
+        }
+        synchronized (this) {
+            if (state == State.OPEN) {
+                if (System.nanoTime() - openedAt < properties.getOpenDuration().toNanos()) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                halfOpenPermits = properties.getHalfOpenCalls();
+                halfOpenSuccesses = 0;
+                logger.info("Redis circuit breaker half-open, trying {} calls", halfOpenPermits);
+            }
+            if (state == State.HALF_OPEN) {
+                if (halfOpenPermits == 0) {
+                    return false;
+                }
+                halfOpenPermits--;
+            }
+            return true;
+        }
+    }
+
+    private void record(boolean failure) {
+        increment(failure ? failedCalls : successfulCalls);
+        boolean closed = false;
+        synchronized (this) {
+            switch (state) {
+                case CLOSED -> {
+                    if (recordedCalls == window.length) {
+                        windowFailures -= window[windowPosition] ? 1 : 0;
+                    } else {
+                        recordedCalls++;
+                    }
+                    window[windowPosition] = failure;
+                    windowFailures += failure ? 1 : 0;
+                    windowPosition = (windowPosition + 1) % window.length;
+                    if (recordedCalls >= properties.getMinimumCalls()
+                            && windowFailures >= properties.getFailureRateThreshold() * recordedCalls) {
+                        open();
+                    }
+                }
+                case HALF_OPEN -> {
+                    if (failure) {
+                        open();
+                    } else if (++halfOpenSuccesses >= properties.getHalfOpenCalls()) {
+                        close();
+                        closed = true;
+                    }
+                }
+                // A call started before the breaker opened
+                case OPEN -> {
+                }
+            }
+        }
+        if (closed) {
+            Thread.ofVirtual().name("redis-circuit-repair").start(this::repair);
+        }
+    }
+
+    private void open() {
+        logger.warn("Redis circuit breaker open for {}, cache calls fall back", properties.getOpenDuration());
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+    }
+
+    private void close() {
+        logger.info("Redis circuit breaker closed");
+        state = State.CLOSED;
+        recordedCalls = 0;
+        windowFailures = 0;
+        windowPosition = 0;
+    }
+
+    // Keys are only forgotten once unlinked, a failed repair is retried on the next recovery
+    private void repair() {
+        try {
+            for (String cacheName : List.copyOf(pendingClears)) {
+                byte[] pattern = (cachePolicies.keyPrefix(cacheName) + "*").getBytes(StandardCharsets.UTF_8);
+                redisTemplate.execute((RedisCallback<Long>) connection ->
+                        new UnlinkingBatchStrategy(scanBatchSize).cleanCache(connection, cacheName, pattern));
+                pendingClears.remove(cacheName);
+            }
+
+            List<String> keys = new ArrayList<>(pendingKeys);
+            for (int from = 0; from < keys.size(); from += scanBatchSize) {
+                List<String> batch = keys.subList(from, Math.min(keys.size(), from + scanBatchSize));
+                // One UNLINK per key, so the keys of a batch may be in any cluster slot
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    batch.forEach(key -> connection.keyCommands().unlink(key.getBytes(StandardCharsets.UTF_8)));
+                    return null;
+                });
+                batch.forEach(pendingKeys::remove);
+            }
+        } catch (RuntimeException ex) {
+            logger.warn("Repair of the cache entries written while Redis was skipped failed: {}", ex.getMessage());
+        }
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return meterRegistry == null ? null : Counter.builder("cache.redis.circuit.calls")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.crud.market_api.cache;
+
+import org.springframework.data.redis.cache.CacheStatistics;
+import org.springframework.data.redis.cache.CacheStatisticsCollector;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Skips the Redis writes of values larger than the {@code max-entry-size} of their cache. The
+ * key is deleted instead, so a previous value of the key is not served after the change.
+ */
+public class SizeLimitedRedisCacheWriter implements RedisCacheWriter {
+
+    private final RedisCacheWriter delegate;
+    private final CachePolicies cachePolicies;
+
+    public SizeLimitedRedisCacheWriter(RedisCacheWriter delegate, CachePolicies cachePolicies) {
+        this.delegate = delegate;
+        this.cachePolicies = cachePolicies;
+    }
+
+    @Override
+    public void put(String name, byte[] key, byte[] value, Duration ttl) {
+        if (cachePolicies.fits(name, value.length)) {
+            delegate.put(name, key, value, ttl);
+        } else {
+            delegate.remove(name, key);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Void> store(String name, byte[] key, byte[] value, Duration ttl) {
+        if (cachePolicies.fits(name, value.length)) {
+            return delegate.store(name, key, value, ttl);
+        }
+        delegate.remove(name, key);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public byte[] putIfAbsent(String name, byte[] key, byte[] value, Duration ttl) {
+        return cachePolicies.fits(name, value.length)
+                ? delegate.putIfAbsent(name, key, value, ttl)
+                : delegate.get(name, key);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key) {
+        return delegate.get(name, key);
+    }
+
+    @Override
+    public byte[] get(String name, byte[] key, Duration ttl) {
+        return delegate.get(name, key, ttl);
+    }
+
+    @Override
+    public boolean supportsAsyncRetrieve() {
+        return delegate.supportsAsyncRetrieve();
+    }
+
+    @Override
+    public CompletableFuture<byte[]> retrieve(String name, byte[] key, Duration ttl) {
+        return delegate.retrieve(name, key, ttl);
+    }
+
+    @Override
+    public void remove(String name, byte[] key) {
+        delegate.remove(name, key);
+    }
+
+    @Override
+    public void clean(String name, byte[] pattern) {
+        delegate.clean(name, pattern);
+    }
+
+    @Override
+    public void clearStatistics(String name) {
+        delegate.clearStatistics(name);
+    }
+
+    @Override
+    public RedisCacheWriter withStatisticsCollector(CacheStatisticsCollector cacheStatisticsCollector) {
+        return new SizeLimitedRedisCacheWriter(delegate.withStatisticsCollector(cacheStatisticsCollector), cachePolicies);
+    }
+
+    @Override
+    public CacheStatistics getCacheStatistics(String cacheName) {
+        return delegate.getCacheStatistics(cacheName);
+    }
+}
@@ -0,0 +1,70 @@
+package com.crud.market_api.cache;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Prefixes cache values with the time they were written: {@code magic | epoch millis | value}.
+ * <p>
+ * The age of an entry cannot be told from its remaining TTL once TTLs are adaptive, per cache or
+ * jittered, so the soft TTL compares against the write time instead. Values are only stamped
+ * while the soft TTL is enabled, values without the prefix are read as they are and have no
+ * known age, so entries written before it was enabled never count as stale.
+ */
+public class TimestampedRedisSerializer implements RedisSerializer<Object> {
+
+    // Neither JSON text nor a CompactRedisSerializer value starts with it
+    static final byte MAGIC = (byte) 0xB2;
+    private static final int HEADER_SIZE = 1 + Long.BYTES;
+
+    private final RedisSerializer<Object> delegate;
+    private final boolean stampWrites;
+    private final Clock clock;
+
+    public TimestampedRedisSerializer(RedisSerializer<Object> delegate, boolean stampWrites) {
+        this(delegate, stampWrites, Clock.systemUTC());
+    }
+
+    TimestampedRedisSerializer(RedisSerializer<Object> delegate, boolean stampWrites, Clock clock) {
+        this.delegate = delegate;
+        this.stampWrites = stampWrites;
+        this.clock = clock;
+    }
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        byte[] payload = delegate.serialize(value);
+        if (!stampWrites || payload == null || payload.length == 0) {
+            return payload;
+        }
+        return ByteBuffer.allocate(HEADER_SIZE + payload.length)
+                .put(MAGIC)
+                .putLong(clock.millis())
+                .put(payload)
+                .array();
+    }
+
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (!isStamped(bytes)) {
+            return delegate.deserialize(bytes);
+        }
+        return delegate.deserialize(Arrays.copyOfRange(bytes, HEADER_SIZE, bytes.length));
+    }
+
+    /**
+     * When a serialized value was written, null when it was written without the prefix.
+     */
+    public static Instant writtenAt(byte[] bytes) {
+        return isStamped(bytes) ? Instant.ofEpochMilli(ByteBuffer.wrap(bytes, 1, Long.BYTES).getLong()) : null;
+    }
+
+    private static boolean isStamped(byte[] bytes) {
+        return bytes != null && bytes.length > HEADER_SIZE && bytes[0] == MAGIC;
+    }
+}
@@ -0,0 +1,317 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import com.crud.market_api.model.mapper.ProductMapper;
+import org.springframework.cache.Cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Cache with a bounded in-heap tier (L1) in front of a shared remote tier (L2, Redis).
+ * Reads are served from L1 whenever possible; writes go to both tiers and are broadcast
+ * through the {@link CacheInvalidationBus} so the other nodes drop their L1 copy.
+ * Loads through {@link #get(Object, Callable)} are coordinated by the {@link CacheLoadCoordinator}.
+ * <p>
+ * L1 values are shared by every caller on the node while the cached DTOs are mutable, so L1 keeps
+ * its own copy of a product or page and hands out a new copy on every read.
+ */
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local;
+    private final Cache remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheLoadCoordinator loadCoordinator;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+    private final LongAdder remoteHits = new LongAdder();
+    private final LongAdder remoteMisses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    public TwoLevelCache(String name,
+                         com.github.benmanes.caffeine.cache.Cache<String, ValueWrapper> local,
+                         Cache remote,
+                         CacheInvalidationBus invalidationBus,
+                         CacheLoadCoordinator loadCoordinator) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.loadCoordinator = loadCoordinator;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    public Cache getRemote() {
+        return remote;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            localHits.increment();
+            return cached;
+        }
+        localMisses.increment();
+
+        ValueWrapper remoteValue = remote.get(key);
+        if (remoteValue == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+
+        ValueWrapper wrapper = localValue(remoteValue.get());
+        local.put(localKey, wrapper);
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        ValueWrapper cached = getLocal(localKey);
+        if (cached != null) {
+            return (T) cached.get();
+        }
+
+        CacheLoadCoordinator.RemoteRead remoteRead = loadCoordinator.readRemote(remote, key);
+        if (remoteRead != null) {
+            remoteHits.increment();
+            local.put(localKey, localValue(remoteRead.value()));
+            if (remoteRead.stale()) {
+                loadCoordinator.refreshAsync(name, localKey, () -> loadAndPut(key, valueLoader));
+            }
+            return (T) remoteRead.value();
+        }
+        remoteMisses.increment();
+
+        try {
+            return loadCoordinator.load(name, localKey, () -> loadAndPut(key, valueLoader), () -> remote.get(key));
+        } catch (Exception ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        }
+    }
+
+    private <T> T loadAndPut(Object key, Callable<T> valueLoader) throws Exception {
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception ex) {
+            loadFailures.increment();
+            throw ex;
+        } finally {
+            loads.increment();
+            loadNanos.add(System.nanoTime() - start);
+        }
+        put(key, value);
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        puts.increment();
+        String localKey = localKey(key);
+        local.put(localKey, localValue(value));
+        invalidationBus.publishEvict(name, localKey);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = remote.putIfAbsent(key, value);
+        String localKey = localKey(key);
+        if (existing == null) {
+            puts.increment();
+            local.put(localKey, localValue(value));
+            invalidationBus.publishEvict(name, localKey);
+        } else {
+            local.put(localKey, localValue(existing.get()));
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictions.increment();
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        invalidationBus.publishEvict(name, localKey);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean evicted = remote.evictIfPresent(key);
+        if (evicted) {
+            evictions.increment();
+        }
+        String localKey = localKey(key);
+        local.invalidate(localKey);
+        invalidationBus.publishEvict(name, localKey);
+        return evicted;
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        local.invalidateAll();
+        invalidationBus.publishClear(name);
+    }
+
+    @Override
+    public boolean invalidate() {
+        boolean invalidated = remote.invalidate();
+        local.invalidateAll();
+        invalidationBus.publishClear(name);
+        return invalidated;
+    }
+
+    /**
+     * Looks up L1 only, for batch reads that resolve the misses with a single Redis call.
+     */
+    ValueWrapper getLocal(String localKey) {
+        ValueWrapper cached = local.getIfPresent(localKey);
+        if (cached != null) {
+            localHits.increment();
+        } else {
+            localMisses.increment();
+        }
+        return cached;
+    }
+
+    /**
+     * Records the outcome of a batch Redis read and keeps the hits in L1.
+     */
+    void loadedFromRemote(Map<String, ?> hits, int misses) {
+        hits.forEach((key, value) -> local.put(key, localValue(value)));
+        remoteHits.add(hits.size());
+        remoteMisses.add(misses);
+    }
+
+    /**
+     * Refreshes L1 after a batch write that went straight to Redis.
+     */
+    void putAllLocal(Map<String, ?> entries) {
+        entries.forEach((key, value) -> local.put(key, localValue(value)));
+        puts.add(entries.size());
+        invalidationBus.publishEvictAll(name, entries.keySet());
+    }
+
+    /**
+     * Drops L1 entries after a batch eviction that went straight to Redis.
+     */
+    void evictAllLocal(Collection<String> keys) {
+        local.invalidateAll(keys);
+        evictions.add(keys.size());
+        invalidationBus.publishEvictAll(name, keys);
+    }
+
+    /**
+     * Drops an entry from this node's L1 only. Called when another node changed the entry.
+     */
+    void evictLocal(String localKey) {
+        local.invalidate(localKey);
+    }
+
+    void clearLocal() {
+        local.invalidateAll();
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getLocalMisses() {
+        return localMisses.sum();
+    }
+
+    public long getRemoteHits() {
+        return remoteHits.sum();
+    }
+
+    public long getRemoteMisses() {
+        return remoteMisses.sum();
+    }
+
+    public long getLocalSize() {
+        return local.estimatedSize();
+    }
+
+    public long getPuts() {
+        return puts.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    public long getLoads() {
+        return loads.sum();
+    }
+
+    public long getLoadFailures() {
+        return loadFailures.sum();
+    }
+
+    public long getLoadNanos() {
+        return loadNanos.sum();
+    }
+
+    private static ValueWrapper localValue(Object value) {
+        Object copy = copyOf(value);
+        return () -> copyOf(copy);
+    }
+
+    private static Object copyOf(Object value) {
+        if (value instanceof ProductDto product) {
+            return ProductMapper.copy(product);
+        }
+        if (value instanceof ProductPageDto page) {
+            return new ProductPageDto(page.getItems() != null
+                    ? page.getItems().stream().map(ProductMapper::copy).collect(Collectors.toCollection(ArrayList::new))
+                    : null, page.getNextCursor());
+        }
+        // Other values are immutable: strings, numbers, NullValue
+        return value;
+    }
+
+    // L1 keys must match across nodes, so they are keyed by the same string form Redis uses
+    static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,76 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Wraps every cache of the remote (Redis) manager in a {@link TwoLevelCache} and, when a
+ * {@link MeterRegistry} is available, publishes its metrics.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+    private final MarketCacheProperties.Local localProperties;
+    private final CachePolicies cachePolicies;
+    private final CacheInvalidationBus invalidationBus;
+    private final CacheLoadCoordinator loadCoordinator;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                MarketCacheProperties.Local localProperties,
+                                CachePolicies cachePolicies,
+                                CacheInvalidationBus invalidationBus,
+                                CacheLoadCoordinator loadCoordinator,
+                                MeterRegistry meterRegistry) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.localProperties = localProperties;
+        this.cachePolicies = cachePolicies;
+        this.invalidationBus = invalidationBus;
+        this.loadCoordinator = loadCoordinator;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, this::createCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            return null;
+        }
+
+        TwoLevelCache cache = new TwoLevelCache(
+                name,
+                Caffeine.newBuilder()
+                        .maximumSize(cachePolicies.localMaximumSize(name))
+                        .expireAfterWrite(localProperties.getTtl())
+                        .build(),
+                remote,
+                invalidationBus,
+                loadCoordinator
+        );
+        invalidationBus.register(cache);
+        // Caches are created on first use, so they are bound here rather than at startup
+        if (meterRegistry != null) {
+            new TwoLevelCacheMeterBinder(cache, Tags.of("cache.manager", "cacheManager")).bindTo(meterRegistry);
+        }
+        return cache;
+    }
+}
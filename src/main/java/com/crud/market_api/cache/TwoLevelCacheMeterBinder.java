@@ -0,0 +1,90 @@
+package com.crud.market_api.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the {@link TwoLevelCache} counters: the standard {@code cache.*} meters for the
+ * cache as a whole, plus per-tier gets and load times.
+ */
+public class TwoLevelCacheMeterBinder extends CacheMeterBinder<TwoLevelCache> {
+
+    public TwoLevelCacheMeterBinder(TwoLevelCache cache, Iterable<Tag> tags) {
+        super(cache, cache.getName(), tags);
+    }
+
+    @Override
+    protected Long size() {
+        TwoLevelCache cache = getCache();
+        return cache != null ? cache.getLocalSize() : null;
+    }
+
+    @Override
+    protected long hitCount() {
+        TwoLevelCache cache = getCache();
+        return cache != null ? cache.getLocalHits() + cache.getRemoteHits() : 0;
+    }
+
+    @Override
+    protected Long missCount() {
+        TwoLevelCache cache = getCache();
+        return cache != null ? cache.getRemoteMisses() : null;
+    }
+
+    @Override
+    protected Long evictionCount() {
+        TwoLevelCache cache = getCache();
+        return cache != null ? cache.getEvictions() : null;
+    }
+
+    @Override
+    protected long putCount() {
+        TwoLevelCache cache = getCache();
+        return cache != null ? cache.getPuts() : 0;
+    }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) {
+        TwoLevelCache cache = getCache();
+        if (cache == null) {
+            return;
+        }
+
+        tierGets(registry, cache, "local", "hit", TwoLevelCache::getLocalHits);
+        tierGets(registry, cache, "local", "miss", TwoLevelCache::getLocalMisses);
+        tierGets(registry, cache, "remote", "hit", TwoLevelCache::getRemoteHits);
+        tierGets(registry, cache, "remote", "miss", TwoLevelCache::getRemoteMisses);
+
+        FunctionTimer.builder("cache.load", cache, TwoLevelCache::getLoads, TwoLevelCache::getLoadNanos, TimeUnit.NANOSECONDS)
+                .tags(getTagsWithCacheName())
+                .description("Time spent loading missing entries from the database")
+                .register(registry);
+
+        FunctionCounter.builder("cache.load.failures", cache, TwoLevelCache::getLoadFailures)
+                .tags(getTagsWithCacheName())
+                .description("Loads that threw, for example lookups of missing products")
+                .register(registry);
+
+        Gauge.builder("cache.local.size", cache, TwoLevelCache::getLocalSize)
+                .tags(getTagsWithCacheName())
+                .description("Estimated number of entries in the in-heap tier")
+                .register(registry);
+    }
+
+    private void tierGets(MeterRegistry registry, TwoLevelCache cache, String tier, String result,
+                          ToDoubleFunction<TwoLevelCache> count) {
+        FunctionCounter.builder("cache.tier.gets", cache, count)
+                .tags(getTagsWithCacheName())
+                .tag("tier", tier)
+                .tag("result", result)
+                .description("Lookups per cache tier")
+                .register(registry);
+    }
+}
@@ -0,0 +1,82 @@
+package com.crud.market_api.cache;
+
+import org.springframework.data.redis.cache.BatchStrategy;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.ScanOptions;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Clears a cache with SCAN and UNLINK, in batches, instead of KEYS and DEL, which block Redis
+ * while they run. On a cluster every master is scanned, as SCAN only walks the keys of the node
+ * it runs on, and each UNLINK is limited to the keys of one slot.
+ */
+public class UnlinkingBatchStrategy implements BatchStrategy {
+
+    private final int batchSize;
+
+    public UnlinkingBatchStrategy(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public long cleanCache(RedisConnection connection, String name, byte[] pattern) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(batchSize).build();
+        if (!(connection instanceof RedisClusterConnection clusterConnection)) {
+            try (Cursor<byte[]> cursor = connection.keyCommands().scan(options)) {
+                return unlinkAll(connection, cursor, false);
+            }
+        }
+
+        long unlinked = 0;
+        for (RedisClusterNode node : clusterConnection.clusterGetNodes()) {
+            if (node.isMaster()) {
+                try (Cursor<byte[]> cursor = clusterConnection.scan(node, options)) {
+                    unlinked += unlinkAll(connection, cursor, true);
+                }
+            }
+        }
+        return unlinked;
+    }
+
+    private long unlinkAll(RedisConnection connection, Cursor<byte[]> cursor, boolean cluster) {
+        long unlinked = 0;
+        List<byte[]> batch = new ArrayList<>(batchSize);
+        while (cursor.hasNext()) {
+            batch.add(cursor.next());
+            if (batch.size() == batchSize) {
+                unlinked += unlink(connection, batch, cluster);
+                batch.clear();
+            }
+        }
+        return unlinked + unlink(connection, batch, cluster);
+    }
+
+    private static long unlink(RedisConnection connection, List<byte[]> keys, boolean cluster) {
+        if (keys.isEmpty()) {
+            return 0;
+        }
+        if (!cluster) {
+            return count(connection.keyCommands().unlink(keys.toArray(byte[][]::new)));
+        }
+
+        Map<Integer, List<byte[]>> keysBySlot = new LinkedHashMap<>();
+        keys.forEach(key -> keysBySlot.computeIfAbsent(ClusterSlotHashUtil.calculateSlot(key), slot -> new ArrayList<>()).add(key));
+        long unlinked = 0;
+        for (List<byte[]> slotKeys : keysBySlot.values()) {
+            unlinked += count(connection.keyCommands().unlink(slotKeys.toArray(byte[][]::new)));
+        }
+        return unlinked;
+    }
+
+    private static long count(Long unlinked) {
+        return unlinked != null ? unlinked : 0;
+    }
+}
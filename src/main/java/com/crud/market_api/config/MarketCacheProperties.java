@@ -0,0 +1,249 @@
+package com.crud.market_api.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@Data
+@ConfigurationProperties(prefix = "market.cache")
+public class MarketCacheProperties {
+
+    // TTL of the entries stored in Redis (L2), caches listed under caches can override it
+    private Duration ttl = Duration.ofMinutes(10);
+
+    // Redis pub/sub channel used to drop stale L1 entries on the other nodes
+    private String invalidationTopic = "market:cache:invalidation";
+
+    // COMPACT writes binary values and still reads JSON ones, JSON keeps the previous format
+    private Serializer serializer = Serializer.COMPACT;
+
+    // Compact values larger than this are deflated
+    private int compressionThreshold = 1024;
+
+    private final Local local = new Local();
+
+    private final Stampede stampede = new Stampede();
+
+    private final WriteBehind writeBehind = new WriteBehind();
+
+    private final ChangeStream changeStream = new ChangeStream();
+
+    private final HotKeys hotKeys = new HotKeys();
+
+    private final WarmUp warmUp = new WarmUp();
+
+    private final Http http = new Http();
+
+    private final Cluster cluster = new Cluster();
+
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private final MissLimiter missLimiter = new MissLimiter();
+
+    private final LoadShedding loadShedding = new LoadShedding();
+
+    private final Pages pages = new Pages();
+
+    // Settings of one cache by name (products, productPages), see CachePolicies
+    private final Map<String, CacheSpec> caches = new LinkedHashMap<>();
+
+    public enum Serializer {
+        JSON,
+        COMPACT
+    }
+
+    @Data
+    public static class Local {
+        // Disabling the local tier makes the application talk to Redis only
+        private boolean enabled = true;
+        private long maximumSize = 10_000;
+        private Duration ttl = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class CacheSpec {
+        // Defaults to market.cache.ttl
+        private Duration ttl;
+        // Caches lookups that found nothing, so repeated reads of a missing key skip the database
+        private boolean cacheNullValues = false;
+        private Duration nullValueTtl = Duration.ofSeconds(60);
+        // Replaces the "<cacheName>::" prefix of the Redis keys
+        private String keyPrefix;
+        // Values larger than this once serialized are not written to Redis, unset means no limit
+        private DataSize maxEntrySize;
+        // Defaults to market.cache.local.maximum-size
+        private Long localMaximumSize;
+        private final Adaptive adaptive = new Adaptive();
+    }
+
+    @Data
+    public static class Adaptive {
+        // Picks the TTL of an entry by how often its key is read, for the products cache
+        private boolean enabled = false;
+        // Keys ranked among the hottest by the hot key tracker
+        private Duration hotTtl = Duration.ofHours(1);
+        // Keys written without having been read since the last hot key flush
+        private Duration coldTtl = Duration.ofMinutes(2);
+    }
+
+    @Data
+    public static class Stampede {
+        // Random extra TTL so entries written together do not expire together
+        private Duration ttlJitter = Duration.ofSeconds(60);
+        // Age after which an entry is served stale while one background refresh reloads it, unset disables it
+        private Duration softTtl;
+        private int refreshThreads = 2;
+        private final DistributedLock distributedLock = new DistributedLock();
+    }
+
+    @Data
+    public static class WriteBehind {
+        // Updates go to the cache and a Redis Stream, a background flusher writes them to Mongo in batches
+        private boolean enabled = false;
+        private String streamKey = "products:write-behind";
+        private String consumerGroup = "product-writers";
+        // Defaults to the host name, so a restarted node picks up its own unflushed entries
+        private String consumerName;
+        // Bounds the lag between an update and its Mongo write
+        private Duration flushInterval = Duration.ofMillis(200);
+        private int batchSize = 500;
+        // Above this depth updates are checked against the cache as usual but written to Mongo synchronously, so the lag stays bounded
+        private long maxQueueDepth = 100_000;
+        // Entries left unacknowledged this long by another node are taken over
+        private Duration claimIdle = Duration.ofSeconds(30);
+        private Duration shutdownTimeout = Duration.ofSeconds(10);
+    }
+
+    @Data
+    public static class ChangeStream {
+        // Applies every change of the products collection to the caches, needs a replica set
+        private boolean enabled = false;
+        // Where the position in the stream is kept, so a restart resumes instead of flushing the caches
+        private String resumeTokenKey = "products:change-stream:resume-token";
+        private Duration tokenSaveInterval = Duration.ofSeconds(1);
+        private Duration maxAwaitTime = Duration.ofSeconds(1);
+        // Enables pre-images on the collection (MongoDB 6+), so updates also leave the pages of the old type and name
+        private boolean preImages = false;
+    }
+
+    @Data
+    public static class HotKeys {
+        // Counts product reads and ranks them in a Redis sorted set shared by all nodes
+        private boolean enabled = true;
+        private String redisKey = "products:hot";
+        // Share of the reads that are counted
+        private double sampleRate = 1.0;
+        private Duration flushInterval = Duration.ofSeconds(30);
+        // Scores are multiplied by this on every flush, so the ranking follows the current traffic
+        private double decay = 0.9;
+        private long maxTracked = 100_000;
+        // Ids first seen after this many distinct ids wait for the next flush interval
+        private int maxPendingKeys = 50_000;
+        // Ids counted as hot by the adaptive TTL, reloaded from the sorted set on every flush
+        private int hotSetSize = 1_000;
+    }
+
+    @Data
+    public static class WarmUp {
+        // Preloads the products cache at startup, readiness waits for it up to the timeout
+        private boolean enabled = false;
+        // Catalogs up to this size are loaded whole, larger ones only their hottest ids
+        private long fullCatalogThreshold = 50_000;
+        private int topN = 10_000;
+        private int batchSize = 500;
+        // Batches read or written concurrently
+        private int parallelism = 4;
+        private Duration timeout = Duration.ofSeconds(60);
+    }
+
+    @Data
+    public static class Http {
+        // Cache-Control of product and page GETs: clients revalidate with the ETag after max-age
+        private Duration maxAge = Duration.ZERO;
+        // s-maxage for shared caches (CDN), unset leaves it out
+        private Duration sharedMaxAge;
+        // Unset leaves stale-while-revalidate out
+        private Duration staleWhileRevalidate;
+        private boolean cachePublic = true;
+        // Pre-serialized response bodies kept in heap, one per product or page content
+        private long bodyCacheSize = 10_000;
+    }
+
+    @Data
+    public static class Cluster {
+        // Hash-tags the cache keys so multi-key commands stay within one slot, for Redis Cluster
+        private boolean hashTags = false;
+        // Slots a cache is spread over, a batch of keys runs one command per bucket it touches
+        private int hashTagBuckets = 64;
+        // Lettuce ReadFrom of cluster reads (upstream, replicaPreferred, lowestLatency...), unset reads from upstream.
+        // Anything but upstream needs the local tier disabled
+        private String readFrom;
+        // Keys per SCAN round and UNLINK of a cache clear
+        private int scanBatchSize = 1_000;
+    }
+
+    @Data
+    public static class CircuitBreaker {
+        // Skips Redis while it fails: reads become misses, skipped writes are repaired once it is back
+        private boolean enabled = true;
+        // The failure rate is computed over the last window-size calls, once minimum-calls are recorded
+        private int windowSize = 50;
+        private int minimumCalls = 20;
+        private double failureRateThreshold = 0.5;
+        // Calls slower than this count as failures
+        private Duration slowCallThreshold = Duration.ofMillis(250);
+        // Time open before trial calls are let through, all of them must succeed to close again
+        private Duration openDuration = Duration.ofSeconds(5);
+        private int halfOpenCalls = 5;
+        // Keys written while open, above this the whole cache is cleared on recovery instead
+        private int maxPendingRepairs = 10_000;
+    }
+
+    @Data
+    public static class MissLimiter {
+        // Bounds the Mongo loads of cache misses, a load that gets no permit is rejected with 503
+        private boolean enabled = true;
+        private int maxConcurrent = 64;
+        // Time a load waits for a concurrency permit
+        private Duration maxWait = Duration.ofMillis(50);
+        // Token bucket: sustained loads per second and burst
+        private double ratePerSecond = 2_000;
+        private int burst = 500;
+    }
+
+    @Data
+    public static class Pages {
+        // Name searches with a longer prefix are served from Mongo without caching their pages
+        private int maxNamePrefixLength = 32;
+        // Distinct name prefixes with cached pages, further prefixes are not cached until some expire.
+        // Every write matches the product name against all of them
+        private int maxNamePrefixes = 1_000;
+        // Pages indexed per scope. Cursors come from clients, so beyond this random pages leave the index and the cache
+        private long maxIndexedPages = 10_000;
+    }
+
+    @Data
+    public static class LoadShedding {
+        // Limits the concurrent /api/products requests of the servlet stack, the excess gets 503
+        private boolean enabled = true;
+        // The limit adapts between min-limit and max-limit, shrinking while latency is above the target
+        private int initialLimit = 200;
+        private int minLimit = 20;
+        private int maxLimit = 1_000;
+        private Duration targetLatency = Duration.ofMillis(100);
+        // Retry-After of shed requests
+        private Duration retryAfter = Duration.ofSeconds(1);
+    }
+
+    @Data
+    public static class DistributedLock {
+        // Coalesces loads of the same key across nodes with a short Redis lock
+        private boolean enabled = false;
+        private Duration timeout = Duration.ofSeconds(2);
+        private Duration pollInterval = Duration.ofMillis(50);
+    }
+}
@@ -0,0 +1,17 @@
+package com.crud.market_api.config;
+
+import com.crud.market_api.model.mapper.ProductDtoReadConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+
+import java.util.List;
+
+@Configuration
+public class MongoConfig {
+
+    @Bean
+    public MongoCustomConversions mongoCustomConversions() {
+        return new MongoCustomConversions(List.of(new ProductDtoReadConverter()));
+    }
+}
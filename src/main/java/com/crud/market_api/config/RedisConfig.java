@@ -1,33 +1,165 @@
 package com.crud.market_api.config;
 
+import com.crud.market_api.cache.CacheInvalidationBus;
+import com.crud.market_api.cache.CacheLoadCoordinator;
+import com.crud.market_api.cache.CachePolicies;
+import com.crud.market_api.cache.CircuitBreakingRedisCacheWriter;
+import com.crud.market_api.cache.CompactRedisSerializer;
+import com.crud.market_api.cache.HashTaggedRedisCache;
+import com.crud.market_api.cache.HotKeyTracker;
+import com.crud.market_api.cache.RedisCacheBatchOperations;
+import com.crud.market_api.cache.RedisCircuitBreaker;
+import com.crud.market_api.cache.SizeLimitedRedisCacheWriter;
+import com.crud.market_api.cache.TimestampedRedisSerializer;
+import com.crud.market_api.cache.TwoLevelCacheManager;
+import com.crud.market_api.cache.UnlinkingBatchStrategy;
+import io.lettuce.core.ReadFrom;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.LettuceClientConfigurationBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCache;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.cache.RedisCacheWriter;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
-
-import java.time.Duration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 
 @Configuration // Indicates that this is a Configuration class of Spring
 @EnableCaching // Enables caching support in Spring
+@EnableConfigurationProperties(MarketCacheProperties.class)
 public class RedisConfig {
 
+    private static final Logger logger = LoggerFactory.getLogger(RedisConfig.class);
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate redisTemplate,
+                                                     RedisCircuitBreaker redisCircuitBreaker,
+                                                     MarketCacheProperties properties) {
+        return new CacheInvalidationBus(redisTemplate, properties.getInvalidationTopic(), redisCircuitBreaker);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory redisConnectionFactory,
+                                                                            CacheInvalidationBus cacheInvalidationBus,
+                                                                            MarketCacheProperties properties) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(properties.getInvalidationTopic()));
+        return container;
+    }
+
     @Bean
-    public RedisCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory){
+    public CachePolicies cachePolicies(MarketCacheProperties properties, HotKeyTracker hotKeyTracker) {
+        return new CachePolicies(properties, hotKeyTracker);
+    }
+
+    @Bean
+    public RedisCircuitBreaker redisCircuitBreaker(StringRedisTemplate redisTemplate,
+                                                   CachePolicies cachePolicies,
+                                                   ObjectProvider<MeterRegistry> meterRegistry,
+                                                   MarketCacheProperties properties) {
+        return new RedisCircuitBreaker(properties, redisTemplate, cachePolicies, meterRegistry.getIfAvailable());
+    }
+
+    @Bean
+    public RedisCacheBatchOperations redisCacheBatchOperations(StringRedisTemplate redisTemplate,
+                                                               CachePolicies cachePolicies,
+                                                               RedisCircuitBreaker redisCircuitBreaker) {
+        return new RedisCacheBatchOperations(redisTemplate, cachePolicies, redisCircuitBreaker);
+    }
+
+    @Bean
+    public CacheLoadCoordinator cacheLoadCoordinator(StringRedisTemplate redisTemplate,
+                                                     RedisCacheBatchOperations redisCacheBatchOperations,
+                                                     RedisCircuitBreaker redisCircuitBreaker,
+                                                     MarketCacheProperties properties) {
+        return new CacheLoadCoordinator(redisTemplate, redisCacheBatchOperations, redisCircuitBreaker, properties);
+    }
+
+    @Bean
+    public CacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                     CacheInvalidationBus cacheInvalidationBus,
+                                     CacheLoadCoordinator cacheLoadCoordinator,
+                                     ObjectProvider<MeterRegistry> meterRegistry,
+                                     RedisSerializer<Object> cacheValueSerializer,
+                                     CachePolicies cachePolicies,
+                                     RedisCircuitBreaker redisCircuitBreaker,
+                                     MarketCacheProperties properties) {
 
         RedisCacheConfiguration config = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(Duration.ofMinutes(10))
                 .serializeValuesWith(
                         RedisSerializationContext.SerializationPair
-                                .fromSerializer(new GenericJackson2JsonRedisSerializer())
+                                .fromSerializer(cacheValueSerializer)
                 );
+        // Clears run SCAN and UNLINK on every node instead of KEYS and DEL, a degraded Redis is skipped
+        RedisCacheWriter cacheWriter = new CircuitBreakingRedisCacheWriter(new SizeLimitedRedisCacheWriter(
+                RedisCacheWriter.nonLockingRedisCacheWriter(redisConnectionFactory,
+                        new UnlinkingBatchStrategy(properties.getCluster().getScanBatchSize())),
+                cachePolicies), redisCircuitBreaker);
+
+        // With L1, TwoLevelCache coordinates the loads, without it the Redis caches do
+        CacheLoadCoordinator redisLoadCoordinator = properties.getLocal().isEnabled() ? null : cacheLoadCoordinator;
+        RedisCacheManager redisCacheManager = new RedisCacheManager(cacheWriter, config) {
+            @Override
+            protected RedisCache createRedisCache(String name, RedisCacheConfiguration cacheConfiguration) {
+                // TTL, null values, key prefix and hash tags of market.cache.caches.<name>, for every cache created
+                return new HashTaggedRedisCache(name, cacheWriter, cachePolicies.configure(name, cacheConfiguration),
+                        cachePolicies, redisLoadCoordinator);
+            }
+        };
+        redisCacheManager.afterPropertiesSet();
 
+        if (!properties.getLocal().isEnabled()) {
+            return redisCacheManager;
+        }
 
-        return RedisCacheManager.builder(redisConnectionFactory)
-                .cacheDefaults(config)
-                .build();
+        // Redis stays the shared L2, each node keeps its hottest entries in heap (L1)
+        return new TwoLevelCacheManager(redisCacheManager, properties.getLocal(), cachePolicies, cacheInvalidationBus,
+                cacheLoadCoordinator, meterRegistry.getIfAvailable());
+    }
+
+    /**
+     * Routes the reads of a cluster, or of a master with replicas, by market.cache.cluster.read-from.
+     * Writes and locks always go to the masters. Replica reads need the local tier disabled.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "market.cache.cluster", name = "read-from")
+    public LettuceClientConfigurationBuilderCustomizer redisReadFromCustomizer(MarketCacheProperties properties) {
+        ReadFrom readFrom = ReadFrom.valueOf(properties.getCluster().getReadFrom());
+        if (readFrom != ReadFrom.UPSTREAM && properties.getLocal().isEnabled()) {
+            // An invalidation reaches L1 before the write reaches the replica, the reload would keep the old
+            // value in L1 for its whole TTL while nothing invalidates it again
+            throw new IllegalStateException("market.cache.cluster.read-from=" + properties.getCluster().getReadFrom()
+                    + " requires market.cache.local.enabled=false, L1 would reload stale values from a lagging replica");
+        }
+        if (readFrom != ReadFrom.UPSTREAM && properties.getWriteBehind().isEnabled()) {
+            // Write-behind checks versions against the cached product, a lagging replica can hide the last write
+            logger.warn("Redis reads from {} with write-behind enabled, version checks may read a stale product",
+                    properties.getCluster().getReadFrom());
+        }
+        return builder -> builder.readFrom(readFrom);
+    }
+
+    // Shared by the Redis cache manager and the reactive cache, so both stacks read each other's entries.
+    // Values carry their write time while the soft TTL needs it, and are read with or without it
+    @Bean
+    public RedisSerializer<Object> cacheValueSerializer(MarketCacheProperties properties) {
+        RedisSerializer<Object> serializer = properties.getSerializer() == MarketCacheProperties.Serializer.JSON
+                ? new GenericJackson2JsonRedisSerializer()
+                : new CompactRedisSerializer(properties.getCompressionThreshold());
+        return new TimestampedRedisSerializer(serializer, properties.getStampede().getSoftTtl() != null);
     }
 }
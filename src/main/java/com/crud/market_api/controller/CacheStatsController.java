@@ -0,0 +1,45 @@
+package com.crud.market_api.controller;
+
+import com.crud.market_api.cache.TwoLevelCache;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+@RequiredArgsConstructor
+@Tag(name = "Cache", description = "Cache monitoring APIs")
+public class CacheStatsController {
+
+    private final CacheManager cacheManager;
+
+    @Operation(summary = "Get cache statistics", description = "Returns hit/miss counters per cache tier")
+    @ApiResponse(responseCode = "200", description = "Cache statistics retrieved successfully")
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Long>>> getStats() {
+        Map<String, Map<String, Long>> stats = new LinkedHashMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache cache = cacheManager.getCache(cacheName);
+            if (cache instanceof TwoLevelCache twoLevelCache) {
+                Map<String, Long> counters = new LinkedHashMap<>();
+                counters.put("localHits", twoLevelCache.getLocalHits());
+                counters.put("localMisses", twoLevelCache.getLocalMisses());
+                counters.put("remoteHits", twoLevelCache.getRemoteHits());
+                counters.put("remoteMisses", twoLevelCache.getRemoteMisses());
+                counters.put("localSize", twoLevelCache.getLocalSize());
+                stats.put(cacheName, counters);
+            }
+        }
+        return ResponseEntity.ok(stats);
+    }
+}
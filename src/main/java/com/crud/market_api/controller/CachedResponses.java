@@ -0,0 +1,150 @@
+package com.crud.market_api.controller;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Builds the responses of the cacheable GETs: ETag, {@code 304 Not Modified} on a matching
+ * {@code If-None-Match}, configurable {@code Cache-Control} and a pre-serialized JSON body.
+ * <p>
+ * Bodies are kept per content: a product by its fields, a page by the fields of its products and
+ * its cursor. DTOs are mutable, so the key is taken from the value at the time of the request
+ * and a changed product never gets the body serialized before the change. The ETag is computed
+ * once with the body and kept next to it, so requests for cached content hash nothing. Products
+ * use {@link ProductETags}, pages a hash of their body.
+ */
+@Component
+class CachedResponses {
+
+    private static final String ANY = "*";
+    private static final String WEAK_PREFIX = "W/";
+    private static final int ETAG_HASH_BYTES = 16;
+
+    private final ObjectMapper objectMapper;
+    private final CacheControl cacheControl;
+    private final Cache<BodyKey, SerializedBody> bodies;
+
+    CachedResponses(ObjectMapper objectMapper, MarketCacheProperties properties) {
+        this.objectMapper = objectMapper;
+        this.cacheControl = cacheControl(properties.getHttp());
+        this.bodies = Caffeine.newBuilder()
+                .maximumSize(properties.getHttp().getBodyCacheSize())
+                .build();
+    }
+
+    ResponseEntity<byte[]> product(ProductDto product, String ifNoneMatch) {
+        SerializedBody body = bodies.get(ProductKey.of(product),
+                ignored -> new SerializedBody(serialize(product), ProductETags.of(product)));
+        return respond(body, ifNoneMatch);
+    }
+
+    ResponseEntity<byte[]> page(ProductPageDto page, String ifNoneMatch) {
+        PageKey key = new PageKey(page.getItems() == null ? List.of()
+                : page.getItems().stream().map(ProductKey::of).toList(), page.getNextCursor());
+        SerializedBody body = bodies.get(key, ignored -> {
+            byte[] bytes = serialize(page);
+            return new SerializedBody(bytes, hashTag(bytes));
+        });
+        return respond(body, ifNoneMatch);
+    }
+
+    private ResponseEntity<byte[]> respond(SerializedBody body, String ifNoneMatch) {
+        if (matches(ifNoneMatch, body.etag())) {
+            return notModified(body.etag());
+        }
+        return ok(body.etag(), body.bytes());
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static String hashTag(byte[] bytes) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return "\"" + HexFormat.of().formatHex(hash, 0, ETAG_HASH_BYTES) + "\"";
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private ResponseEntity<byte[]> ok(String etag, byte[] body) {
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    private ResponseEntity<byte[]> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .build();
+    }
+
+    // If-None-Match uses the weak comparison and may list several tags
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith(WEAK_PREFIX)) {
+                candidate = candidate.substring(WEAK_PREFIX.length());
+            }
+            if (candidate.equals(ANY) || candidate.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static CacheControl cacheControl(MarketCacheProperties.Http properties) {
+        CacheControl cacheControl = CacheControl.maxAge(properties.getMaxAge());
+        if (properties.getSharedMaxAge() != null) {
+            cacheControl = cacheControl.sMaxAge(properties.getSharedMaxAge());
+        }
+        if (properties.getStaleWhileRevalidate() != null) {
+            cacheControl = cacheControl.staleWhileRevalidate(properties.getStaleWhileRevalidate());
+        }
+        return properties.isCachePublic() ? cacheControl.cachePublic() : cacheControl.cachePrivate();
+    }
+
+    private sealed interface BodyKey permits ProductKey, PageKey {
+    }
+
+    // Every field that goes into the body, so equal keys always serialize to the same bytes
+    private record ProductKey(String id, String name, String type, Long version) implements BodyKey {
+
+        static ProductKey of(ProductDto product) {
+            return new ProductKey(product.getId(), product.getName(), product.getType(), product.getVersion());
+        }
+    }
+
+    private record PageKey(List<ProductKey> items, String nextCursor) implements BodyKey {
+    }
+
+    private record SerializedBody(byte[] bytes, String etag) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.crud.market_api.controller;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.exception.ErrorResponse;
+import com.crud.market_api.exception.ServiceOverloadedException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sheds {@code /api/products} requests above an adaptive concurrency limit with a 503 and
+ * {@code Retry-After}, before they take a thread, a Redis connection or a Mongo permit.
+ * <p>
+ * The limit follows the smoothed latency of the requests: while it is above
+ * {@code target-latency} the limit shrinks in proportion, while it is below and the limit is
+ * actually used the limit grows by its square root, within {@code min-limit} and
+ * {@code max-limit}. A slow Mongo or Redis thus lowers the admitted load instead of queueing it.
+ * <p>
+ * An asynchronous request, such as the streamed export, holds its slot until the async request
+ * completes, but its duration is not a latency sample: a long export is not a slow server.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(prefix = "market.cache.load-shedding", name = "enabled", havingValue = "true", matchIfMissing = true)
+class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private static final String PRODUCTS_PATH = "/api/products";
+    // Weight of the latest request in the smoothed latency and of the new limit in the limit
+    private static final double SMOOTHING = 0.05;
+    // Shrinks the limit by at most half per update
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final MarketCacheProperties.LoadShedding properties;
+    private final ObjectMapper objectMapper;
+    private final long targetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    private volatile double limit;
+    private double smoothedNanos;
+
+    LoadSheddingFilter(MarketCacheProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.properties = properties.getLoadShedding();
+        this.objectMapper = objectMapper;
+        this.targetNanos = this.properties.getTargetLatency().toNanos();
+        this.limit = this.properties.getInitialLimit();
+
+        Gauge.builder("http.load_shedding.limit", this, filter -> filter.limit)
+                .description("Concurrent product requests admitted")
+                .register(meterRegistry);
+        Gauge.builder("http.load_shedding.in_flight", inFlight, AtomicInteger::get)
+                .description("Product requests being served")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("http.load_shedding.rejected")
+                .description("Product requests answered with 503")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return !path.equals(PRODUCTS_PATH) && !path.startsWith(PRODUCTS_PATH + "/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (inFlight.incrementAndGet() > limit) {
+            inFlight.decrementAndGet();
+            rejected.increment();
+            shed(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            filterChain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new SlotRelease());
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                int concurrent = inFlight.getAndDecrement();
+                update(System.nanoTime() - start, concurrent);
+            }
+        }
+    }
+
+    private synchronized void update(long latencyNanos, int concurrent) {
+        smoothedNanos = smoothedNanos == 0 ? latencyNanos : smoothedNanos + (latencyNanos - smoothedNanos) * SMOOTHING;
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, targetNanos / smoothedNanos));
+        // Only a limit that is reached is known to be too low
+        double headroom = gradient == 1.0 && concurrent * 2 >= limit ? Math.sqrt(limit) : 0;
+        double next = limit * gradient + headroom;
+        limit = Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(),
+                limit + (next - limit) * SMOOTHING));
+    }
+
+    // An error or timeout is followed by the completion, the slot is released once
+    private class SlotRelease implements AsyncListener {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A new async cycle replaces the listeners
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private void shed(HttpServletResponse response) throws IOException {
+        ServiceOverloadedException overloaded = new ServiceOverloadedException(
+                "Server overloaded, retry later", properties.getRetryAfter());
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, overloaded.retryAfterSeconds());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(
+                LocalDateTime.now(), HttpStatus.SERVICE_UNAVAILABLE.value(), overloaded.getMessage(), null));
+    }
+}
@@ -1,28 +1,57 @@
 package com.crud.market_api.controller;
 
+import com.crud.market_api.cache.HotKeyTracker;
+import com.crud.market_api.model.dto.BulkRequestDto;
+import com.crud.market_api.model.dto.BulkResponseDto;
+import com.crud.market_api.model.dto.MultiGetRequestDto;
 import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import com.crud.market_api.service.ProductBulkService;
 import com.crud.market_api.service.ProductService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
+@Validated
 @RequestMapping("/api/products")
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @Tag(name = "Product", description = "Product management APIs")
 public class ProductController {
 
+    static final String OBJECT_ID_PATTERN = "^[0-9a-fA-F]{24}$";
+    static final int DEFAULT_PAGE_SIZE = 20;
+    static final int MAX_PAGE_SIZE = 100;
+    static final int MAX_BATCH_IDS = 500;
+    static final int MAX_TYPE_LENGTH = 50;
+    static final int MAX_NAME_LENGTH = 100;
+
     private final ProductService productService;
+    private final ProductBulkService productBulkService;
+    private final HotKeyTracker hotKeyTracker;
+    private final CachedResponses cachedResponses;
 
     @Operation(summary = "Create a new product", description = "Creates a new product with the provided information")
     @ApiResponses(value = {
@@ -32,48 +61,168 @@ public class ProductController {
     })
     @PostMapping
     public ResponseEntity<ProductDto> createProduct(@Valid @RequestBody ProductDto productDto) {
-        return new ResponseEntity<>(productService.createProduct(productDto), HttpStatus.CREATED);
+        ProductDto created = productService.createProduct(productDto);
+        return ResponseEntity.status(HttpStatus.CREATED).eTag(ProductETags.of(created)).body(created);
+    }
+
+    @Operation(summary = "Execute a batch of operations",
+            description = "Creates, updates and deletes products in one unordered batch and returns a status per item")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch executed, see each item status",
+                    content = @Content(schema = @Schema(implementation = BulkResponseDto.class))),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized batch")
+    })
+    @PostMapping("/_bulk")
+    public ResponseEntity<BulkResponseDto> bulkProducts(@Valid @RequestBody BulkRequestDto request) {
+        return ResponseEntity.ok(productBulkService.bulkProducts(request.getOperations()));
     }
 
     @Operation(summary = "Get a product by ID", description = "Returns a product based on ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product found",
                     content = @Content(schema = @Schema(implementation = ProductDto.class))),
+            @ApiResponse(responseCode = "304", description = "Product unchanged since the If-None-Match version"),
             @ApiResponse(responseCode = "404", description = "Product not found")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<ProductDto> getProduct(@PathVariable String id) {
-        return ResponseEntity.ok(productService.findById(id));
+    public ResponseEntity<byte[]> getProduct(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        ProductDto product = productService.findById(id);
+        hotKeyTracker.record(id);
+        return cachedResponses.product(product, ifNoneMatch);
+    }
+
+    @Operation(summary = "Get products by IDs", description = "Returns the products found for the given IDs, in request order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products retrieved successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Too many IDs")
+    })
+    @GetMapping(params = "ids")
+    public ResponseEntity<List<ProductDto>> getProductsByIds(
+            @RequestParam
+            @Size(max = MAX_BATCH_IDS, message = "At most " + MAX_BATCH_IDS + " IDs can be requested at once") List<String> ids) {
+        List<ProductDto> products = productService.findAllByIds(ids);
+        hotKeyTracker.recordAll(products);
+        return ResponseEntity.ok(products);
     }
 
-    @Operation(summary = "Get all products", description = "Returns a list of all products")
-    @ApiResponse(responseCode = "200", description = "List of products retrieved successfully",
-            content = @Content(schema = @Schema(implementation = ProductDto.class)))
+    @Operation(summary = "Get products by IDs (body variant)", description = "Same as GET /api/products?ids=..., for ID lists too long for a query string")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Products retrieved successfully",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = ProductDto.class)))),
+            @ApiResponse(responseCode = "400", description = "Empty or oversized ID list")
+    })
+    @PostMapping("/_mget")
+    public ResponseEntity<List<ProductDto>> getProductsByIdsBody(@Valid @RequestBody MultiGetRequestDto request) {
+        List<ProductDto> products = productService.findAllByIds(request.getIds());
+        hotKeyTracker.recordAll(products);
+        return ResponseEntity.ok(products);
+    }
+
+    @Operation(summary = "List products", description = "Returns a page of products ordered by ID, use nextCursor to fetch the following page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of products retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = ProductPageDto.class))),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the If-None-Match tag"),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    })
     @GetMapping
-    public ResponseEntity<List<ProductDto>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProducts());
+    public ResponseEntity<byte[]> getProducts(
+            @RequestParam(required = false)
+            @Pattern(regexp = OBJECT_ID_PATTERN, message = "Cursor must be a product ID") String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Page size must be at least 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Page size must be at most " + MAX_PAGE_SIZE) int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cachedResponses.page(productService.getProducts(cursor, size), ifNoneMatch);
+    }
+
+    @Operation(summary = "List products of a type", description = "Returns a page of the products with the given type, ordered by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of products retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = ProductPageDto.class))),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the If-None-Match tag"),
+            @ApiResponse(responseCode = "400", description = "Invalid type, cursor or page size")
+    })
+    @GetMapping(params = "type")
+    public ResponseEntity<byte[]> getProductsByType(
+            @RequestParam
+            @NotBlank(message = "Type is required")
+            @Size(max = MAX_TYPE_LENGTH, message = "Type must be at most " + MAX_TYPE_LENGTH + " characters") String type,
+            @RequestParam(required = false)
+            @Pattern(regexp = OBJECT_ID_PATTERN, message = "Cursor must be a product ID") String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Page size must be at least 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Page size must be at most " + MAX_PAGE_SIZE) int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cachedResponses.page(productService.getProductsByType(type, cursor, size), ifNoneMatch);
+    }
+
+    @Operation(summary = "Search products by name", description = "Returns a page of the products whose name starts with the given prefix (case-sensitive), ordered by ID")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of products retrieved successfully",
+                    content = @Content(schema = @Schema(implementation = ProductPageDto.class))),
+            @ApiResponse(responseCode = "304", description = "Page unchanged since the If-None-Match tag"),
+            @ApiResponse(responseCode = "400", description = "Invalid prefix, cursor or page size")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<byte[]> searchProductsByName(
+            @RequestParam
+            @NotBlank(message = "Name prefix is required")
+            @Size(max = MAX_NAME_LENGTH, message = "Name prefix must be at most " + MAX_NAME_LENGTH + " characters") String name,
+            @RequestParam(required = false)
+            @Pattern(regexp = OBJECT_ID_PATTERN, message = "Cursor must be a product ID") String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Page size must be at least 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Page size must be at most " + MAX_PAGE_SIZE) int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return cachedResponses.page(productService.searchProductsByName(name, cursor, size), ifNoneMatch);
+    }
+
+    @Operation(summary = "Export all products", description = "Streams every product as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Products streamed successfully")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportProducts() {
+        StreamingResponseBody body = productService::exportProducts;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
 
-    @Operation(summary = "Update a product", description = "Updates an existing product")
+    @Operation(summary = "Update a product",
+            description = "Updates an existing product. With If-Match (or a version in the body) the update only applies to that version")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product updated successfully",
                     content = @Content(schema = @Schema(implementation = ProductDto.class))),
             @ApiResponse(responseCode = "404", description = "Product not found"),
-            @ApiResponse(responseCode = "400", description = "Invalid input")
+            @ApiResponse(responseCode = "400", description = "Invalid input"),
+            @ApiResponse(responseCode = "412", description = "Product changed since the given version")
     })
     @PutMapping
-    public ResponseEntity<ProductDto> updateProduct(@Valid @RequestBody ProductDto productDto) {
-        return ResponseEntity.ok(productService.updateProduct(productDto));
+    public ResponseEntity<ProductDto> updateProduct(
+            @Valid @RequestBody ProductDto productDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // If-Match takes precedence over the version in the body
+        if (ifMatch != null) {
+            productDto.setVersion(ProductETags.expectedVersion(ifMatch));
+        }
+        ProductDto updated = productService.updateProduct(productDto);
+        return ResponseEntity.ok().eTag(ProductETags.of(updated)).body(updated);
     }
 
-    @Operation(summary = "Delete a product", description = "Deletes a product by ID")
+    @Operation(summary = "Delete a product", description = "Deletes a product by ID, only at the If-Match version when given")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Product deleted successfully"),
-            @ApiResponse(responseCode = "404", description = "Product not found")
+            @ApiResponse(responseCode = "404", description = "Product not found"),
+            @ApiResponse(responseCode = "412", description = "Product changed since the given version")
     })
     @DeleteMapping("/{id}")
-    public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
-        productService.deleteProduct(id);
+    public ResponseEntity<Void> deleteProduct(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        productService.deleteProduct(id, ProductETags.expectedVersion(ifMatch));
         return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
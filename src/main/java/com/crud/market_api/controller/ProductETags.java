@@ -0,0 +1,70 @@
+package com.crud.market_api.controller;
+
+import com.crud.market_api.exception.VersionConflictException;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.mapper.ProductMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Strong ETags for products: the version and a hash of the content, {@code "3-9f86d081884c7d65"}.
+ * <p>
+ * The hash changes the tag when a document changes without a version bump, such as a fix made
+ * directly in Mongo or the documents written before versioning, which are all at version 0.
+ * {@code If-Match} only conditions on the version, which every write through the API bumps.
+ */
+final class ProductETags {
+
+    private static final String ANY = "*";
+    private static final char SEPARATOR = '-';
+    private static final int HASH_BYTES = 8;
+
+    private ProductETags() {
+    }
+
+    static String of(ProductDto product) {
+        return "\"" + ProductMapper.versionOf(product) + SEPARATOR + contentHash(product) + "\"";
+    }
+
+    private static String contentHash(ProductDto product) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String field : new String[]{product.getId(), product.getName(), product.getType()}) {
+                if (field != null) {
+                    digest.update(field.getBytes(StandardCharsets.UTF_8));
+                }
+                // Keeps ("ab", "c") and ("a", "bc") apart
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, HASH_BYTES);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * The version an {@code If-Match} header requires, null when the header is absent or
+     * {@code *}. A tag without content hash, as sent before the hash was added, is read as a bare
+     * version. A weak or unparseable tag can never match, so it fails with 412.
+     */
+    static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ANY.equals(ifMatch.trim())) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            String value = tag.substring(1, tag.length() - 1);
+            int separator = value.indexOf(SEPARATOR);
+            try {
+                return Long.parseLong(separator < 0 ? value : value.substring(0, separator));
+            } catch (NumberFormatException ex) {
+                // Falls through to the conflict below
+            }
+        }
+        throw new VersionConflictException("If-Match " + ifMatch + " does not match any product version");
+    }
+}
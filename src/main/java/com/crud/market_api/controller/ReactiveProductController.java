@@ -0,0 +1,169 @@
+package com.crud.market_api.controller;
+
+import com.crud.market_api.cache.HotKeyTracker;
+import com.crud.market_api.model.dto.BulkRequestDto;
+import com.crud.market_api.model.dto.BulkResponseDto;
+import com.crud.market_api.model.dto.MultiGetRequestDto;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.service.ProductBulkService;
+import com.crud.market_api.service.ReactiveProductService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+import static com.crud.market_api.controller.ProductController.DEFAULT_PAGE_SIZE;
+import static com.crud.market_api.controller.ProductController.MAX_BATCH_IDS;
+import static com.crud.market_api.controller.ProductController.MAX_NAME_LENGTH;
+import static com.crud.market_api.controller.ProductController.MAX_PAGE_SIZE;
+import static com.crud.market_api.controller.ProductController.MAX_TYPE_LENGTH;
+import static com.crud.market_api.controller.ProductController.OBJECT_ID_PATTERN;
+
+/**
+ * WebFlux variant of {@link ProductController}, active with the "reactive" profile. Same paths,
+ * validation and error responses, without a thread held per blocking Mongo or Redis call.
+ */
+@RestController
+@Validated
+@RequestMapping("/api/products")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Tag(name = "Product", description = "Product management APIs")
+public class ReactiveProductController {
+
+    private final ReactiveProductService productService;
+    private final ProductBulkService productBulkService;
+    private final HotKeyTracker hotKeyTracker;
+    private final CachedResponses cachedResponses;
+
+    @Operation(summary = "Create a new product")
+    @PostMapping
+    public Mono<ResponseEntity<ProductDto>> createProduct(@Valid @RequestBody ProductDto productDto) {
+        return productService.createProduct(productDto)
+                .map(created -> ResponseEntity.status(HttpStatus.CREATED).eTag(ProductETags.of(created)).body(created));
+    }
+
+    @Operation(summary = "Execute a batch of operations")
+    @PostMapping("/_bulk")
+    public Mono<ResponseEntity<BulkResponseDto>> bulkProducts(@Valid @RequestBody BulkRequestDto request) {
+        // The bulk path is shared with the blocking stack, keep it off the event loop
+        return Mono.fromCallable(() -> productBulkService.bulkProducts(request.getOperations()))
+                .subscribeOn(Schedulers.boundedElastic())
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Get a product by ID")
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<byte[]>> getProduct(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return productService.findById(id)
+                .doOnNext(product -> hotKeyTracker.record(id))
+                .map(product -> cachedResponses.product(product, ifNoneMatch));
+    }
+
+    @Operation(summary = "Get products by IDs")
+    @GetMapping(params = "ids")
+    public Mono<ResponseEntity<List<ProductDto>>> getProductsByIds(
+            @RequestParam
+            @Size(max = MAX_BATCH_IDS, message = "At most " + MAX_BATCH_IDS + " IDs can be requested at once") List<String> ids) {
+        return productService.findAllByIds(ids)
+                .doOnNext(hotKeyTracker::recordAll)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Get products by IDs (body variant)")
+    @PostMapping("/_mget")
+    public Mono<ResponseEntity<List<ProductDto>>> getProductsByIdsBody(@Valid @RequestBody MultiGetRequestDto request) {
+        return productService.findAllByIds(request.getIds())
+                .doOnNext(hotKeyTracker::recordAll)
+                .map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "List products")
+    @GetMapping
+    public Mono<ResponseEntity<byte[]>> getProducts(
+            @RequestParam(required = false)
+            @Pattern(regexp = OBJECT_ID_PATTERN, message = "Cursor must be a product ID") String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Page size must be at least 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Page size must be at most " + MAX_PAGE_SIZE) int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return productService.getProducts(cursor, size).map(page -> cachedResponses.page(page, ifNoneMatch));
+    }
+
+    @Operation(summary = "List products of a type")
+    @GetMapping(params = "type")
+    public Mono<ResponseEntity<byte[]>> getProductsByType(
+            @RequestParam
+            @NotBlank(message = "Type is required")
+            @Size(max = MAX_TYPE_LENGTH, message = "Type must be at most " + MAX_TYPE_LENGTH + " characters") String type,
+            @RequestParam(required = false)
+            @Pattern(regexp = OBJECT_ID_PATTERN, message = "Cursor must be a product ID") String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Page size must be at least 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Page size must be at most " + MAX_PAGE_SIZE) int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return productService.getProductsByType(type, cursor, size).map(page -> cachedResponses.page(page, ifNoneMatch));
+    }
+
+    @Operation(summary = "Search products by name")
+    @GetMapping("/search")
+    public Mono<ResponseEntity<byte[]>> searchProductsByName(
+            @RequestParam
+            @NotBlank(message = "Name prefix is required")
+            @Size(max = MAX_NAME_LENGTH, message = "Name prefix must be at most " + MAX_NAME_LENGTH + " characters") String name,
+            @RequestParam(required = false)
+            @Pattern(regexp = OBJECT_ID_PATTERN, message = "Cursor must be a product ID") String cursor,
+            @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE)
+            @Min(value = 1, message = "Page size must be at least 1")
+            @Max(value = MAX_PAGE_SIZE, message = "Page size must be at most " + MAX_PAGE_SIZE) int size,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        return productService.searchProductsByName(name, cursor, size).map(page -> cachedResponses.page(page, ifNoneMatch));
+    }
+
+    @Operation(summary = "Export all products")
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<ProductDto> exportProducts() {
+        return productService.exportProducts();
+    }
+
+    @Operation(summary = "Update a product")
+    @PutMapping
+    public Mono<ResponseEntity<ProductDto>> updateProduct(
+            @Valid @RequestBody ProductDto productDto,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        // If-Match takes precedence over the version in the body
+        if (ifMatch != null) {
+            productDto.setVersion(ProductETags.expectedVersion(ifMatch));
+        }
+        return productService.updateProduct(productDto)
+                .map(updated -> ResponseEntity.ok().eTag(ProductETags.of(updated)).body(updated));
+    }
+
+    @Operation(summary = "Delete a product")
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteProduct(
+            @PathVariable String id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return productService.deleteProduct(id, ProductETags.expectedVersion(ifMatch))
+                .then(Mono.just(ResponseEntity.noContent().<Void>build()));
+    }
+}
@@ -0,0 +1,30 @@
+package com.crud.market_api.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Schema(description = "Outcome of a single bulk operation")
+public class BulkItemResultDto {
+
+    @Schema(description = "Position of the operation in the request", example = "0")
+    private int index;
+
+    @Schema(description = "Operation that was executed", example = "CREATE")
+    private BulkOperationType op;
+
+    @Schema(description = "ID of the affected product", example = "507f1f77bcf86cd799439011")
+    private String id;
+
+    @Schema(description = "HTTP status equivalent of the outcome", example = "201")
+    private int status;
+
+    @Schema(description = "Error message when the operation failed")
+    private String error;
+}
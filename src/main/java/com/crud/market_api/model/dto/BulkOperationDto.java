@@ -0,0 +1,23 @@
+package com.crud.market_api.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+@Schema(description = "Single operation of a bulk request")
+public class BulkOperationDto {
+
+    @Schema(description = "Operation to execute", example = "CREATE", required = true)
+    @NotNull(message = "Operation is required")
+    private BulkOperationType op;
+
+    @Schema(description = "Product to create or update, required for CREATE and UPDATE")
+    private ProductDto product;
+
+    @Schema(description = "ID of the product to delete, required for DELETE", example = "507f1f77bcf86cd799439011")
+    private String id;
+
+    @Schema(description = "Version the product to delete must be at, a stale version fails with 412", example = "3")
+    private Long version;
+}
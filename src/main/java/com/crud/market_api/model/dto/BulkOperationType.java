@@ -0,0 +1,7 @@
+package com.crud.market_api.model.dto;
+
+public enum BulkOperationType {
+    CREATE,
+    UPDATE,
+    DELETE
+}
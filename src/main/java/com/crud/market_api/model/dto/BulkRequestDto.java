@@ -0,0 +1,19 @@
+package com.crud.market_api.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Batch of mixed product operations")
+public class BulkRequestDto {
+
+    // Items are validated one by one so a bad item fails alone instead of the whole batch
+    @Schema(description = "Operations to execute, in no guaranteed order", required = true)
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 5000, message = "A bulk request accepts at most 5000 operations")
+    private List<BulkOperationDto> operations;
+}
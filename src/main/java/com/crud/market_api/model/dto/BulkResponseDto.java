@@ -0,0 +1,24 @@
+package com.crud.market_api.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Per-item results of a bulk request")
+public class BulkResponseDto {
+
+    @Schema(description = "Number of operations that succeeded", example = "998")
+    private int succeeded;
+
+    @Schema(description = "Number of operations that failed", example = "2")
+    private int failed;
+
+    @Schema(description = "Results in request order")
+    private List<BulkItemResultDto> items;
+}
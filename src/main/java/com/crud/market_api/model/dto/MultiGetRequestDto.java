@@ -0,0 +1,18 @@
+package com.crud.market_api.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Schema(description = "IDs of the products to fetch in one call")
+public class MultiGetRequestDto {
+
+    @Schema(description = "Product IDs, results keep this order", required = true)
+    @NotEmpty(message = "At least one ID is required")
+    @Size(max = 500, message = "At most 500 IDs can be requested at once")
+    private List<String> ids;
+}
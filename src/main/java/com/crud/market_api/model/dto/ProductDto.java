@@ -21,4 +21,8 @@ public class ProductDto {
     @NotBlank(message = "Product type is required")
     @Size(min = 3, max = 50, message = "Product type must be between 3 and 50 characters")
     private String type;
+
+    @Schema(description = "Version, incremented on every write. Sent back on update, a stale version fails with 412",
+            example = "3")
+    private Long version;
 }
\ No newline at end of file
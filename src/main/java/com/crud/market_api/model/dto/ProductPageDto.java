@@ -0,0 +1,22 @@
+package com.crud.market_api.model.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Page of products ordered by ID")
+public class ProductPageDto {
+
+    @Schema(description = "Products in this page")
+    private List<ProductDto> items;
+
+    @Schema(description = "Cursor to request the next page, null when this is the last page",
+            example = "507f1f77bcf86cd799439011")
+    private String nextCursor;
+}
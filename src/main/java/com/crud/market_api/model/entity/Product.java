@@ -1,14 +1,25 @@
 package com.crud.market_api.model.entity;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import lombok.Data;
 
+// Created at startup (spring.data.mongodb.auto-index-creation), _id last keeps keyset pages index-ordered
 @Document(collection = "products")
+@CompoundIndexes({
+        @CompoundIndex(name = "type_id", def = "{'type': 1, '_id': 1}"),
+        @CompoundIndex(name = "name_id", def = "{'name': 1, '_id': 1}")
+})
 @Data
 public class Product {
     @Id
     private String id;
     private String name;
     private String type;
+    // Documents written before versioning have no version and count as version 0
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -0,0 +1,26 @@
+package com.crud.market_api.model.mapper;
+
+import com.crud.market_api.model.dto.ProductDto;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+
+/**
+ * Decodes product documents straight into {@link ProductDto}, skipping the mapped
+ * {@code Product} entity on read paths.
+ */
+@ReadingConverter
+public class ProductDtoReadConverter implements Converter<Document, ProductDto> {
+
+    @Override
+    public ProductDto convert(Document source) {
+        ProductDto dto = new ProductDto();
+        Object id = source.get("_id");
+        dto.setId(id instanceof ObjectId objectId ? objectId.toHexString() : (id != null ? id.toString() : null));
+        dto.setName(source.getString("name"));
+        dto.setType(source.getString("type"));
+        dto.setVersion(source.get("version") instanceof Number version ? version.longValue() : null);
+        return dto;
+    }
+}
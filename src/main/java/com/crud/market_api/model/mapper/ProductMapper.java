@@ -0,0 +1,63 @@
+package com.crud.market_api.model.mapper;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+
+/**
+ * Plain field-by-field mapping between {@link Product} and {@link ProductDto}, used instead of
+ * {@code BeanUtils.copyProperties} so no reflection or property descriptor lookup runs per call.
+ * New fields have to be added here and in {@link ProductDtoReadConverter}.
+ */
+public final class ProductMapper {
+
+    private ProductMapper() {
+    }
+
+    public static ProductDto toDto(Product product) {
+        ProductDto dto = new ProductDto();
+        dto.setId(product.getId());
+        dto.setName(product.getName());
+        dto.setType(product.getType());
+        dto.setVersion(product.getVersion());
+        return dto;
+    }
+
+    public static Product toEntity(ProductDto dto) {
+        Product product = new Product();
+        copyToEntity(dto, product);
+        return product;
+    }
+
+    public static void copyToEntity(ProductDto dto, Product product) {
+        product.setId(dto.getId());
+        product.setName(dto.getName());
+        product.setType(dto.getType());
+        product.setVersion(dto.getVersion());
+    }
+
+    public static ProductDto copy(ProductDto dto) {
+        ProductDto copy = new ProductDto();
+        copy.setId(dto.getId());
+        copy.setName(dto.getName());
+        copy.setType(dto.getType());
+        copy.setVersion(dto.getVersion());
+        return copy;
+    }
+
+    /**
+     * The state an update of {@code previous} with the values of {@code changes} leaves behind.
+     */
+    public static ProductDto nextVersion(ProductDto previous, ProductDto changes) {
+        ProductDto next = new ProductDto();
+        next.setId(previous.getId());
+        next.setName(changes.getName());
+        next.setType(changes.getType());
+        next.setVersion(versionOf(previous) + 1);
+        return next;
+    }
+
+    // Documents written before versioning count as version 0
+    public static long versionOf(ProductDto product) {
+        return product.getVersion() != null ? product.getVersion() : 0L;
+    }
+}
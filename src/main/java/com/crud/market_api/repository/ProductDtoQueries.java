@@ -0,0 +1,106 @@
+package com.crud.market_api.repository;
+
+import com.crud.market_api.model.dto.ProductDto;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.mongodb.core.query.UpdateDefinition;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Queries and conditional writes shared by the blocking and reactive DTO repositories.
+ */
+final class ProductDtoQueries {
+
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    // Documents written before versioning have no version field, they count as version 0
+    private static final Document CURRENT_VERSION = new Document("$ifNull", List.of("$version", 0L));
+
+    private ProductDtoQueries() {
+    }
+
+    static Query byId(String id) {
+        return productQuery(Criteria.where("_id").is(id));
+    }
+
+    // With an expected version only that version matches, $in with null also matches a missing field
+    static Query byIdAndVersion(String id, Long expectedVersion) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (expectedVersion != null) {
+            criteria.and("version").in(expectedVersion == 0 ? Arrays.asList(0L, null) : List.of(expectedVersion));
+        }
+        return productQuery(criteria);
+    }
+
+    static Query byIds(Collection<String> ids) {
+        return productQuery(Criteria.where("_id").in(ids));
+    }
+
+    // Keyset pagination: the page after a cursor (null for the first page) is the next ids in _id order
+    static Query page(String cursor, int size) {
+        return page(new Criteria(), cursor, size);
+    }
+
+    // Served by the {type: 1, _id: 1} index, equality on type then the _id range
+    static Query pageByType(String type, String cursor, int size) {
+        return page(Criteria.where("type").is(type), cursor, size);
+    }
+
+    // An anchored, case-sensitive regex is a range scan on the {name: 1, _id: 1} index
+    static Query pageByNamePrefix(String prefix, String cursor, int size) {
+        return page(Criteria.where("name").regex("^" + Pattern.quote(prefix)), cursor, size);
+    }
+
+    /**
+     * Sets the new name and type and increments the version. With an expected version the
+     * {@code $set} only takes effect when it matches, inside a single pipeline update filtered on
+     * {@code _id} alone: a conflict still returns the current document, so the caller tells it
+     * apart from a missing product by its version instead of with a second query.
+     */
+    static UpdateDefinition update(ProductDto product, Long expectedVersion) {
+        if (expectedVersion == null) {
+            return new Update().set("name", product.getName()).set("type", product.getType()).inc("version", 1);
+        }
+
+        Document matches = new Document("$eq", List.of(CURRENT_VERSION, expectedVersion));
+        Document set = new Document()
+                .append("name", ifMatches(matches, new Document("$literal", product.getName()), "$name"))
+                .append("type", ifMatches(matches, new Document("$literal", product.getType()), "$type"))
+                .append("version", ifMatches(matches, new Document("$add", List.of(CURRENT_VERSION, 1L)), CURRENT_VERSION));
+        AggregationOperation setStage = context -> new Document("$set", set);
+        return AggregationUpdate.from(List.of(setStage));
+    }
+
+    private static Document ifMatches(Document matches, Object then, Object otherwise) {
+        return new Document("$cond", Arrays.asList(matches, then, otherwise));
+    }
+
+    static Query all() {
+        Query query = productQuery(new Criteria()).with(Sort.by(Sort.Direction.ASC, "_id"));
+        query.cursorBatchSize(STREAM_BATCH_SIZE);
+        return query;
+    }
+
+    private static Query page(Criteria filter, String cursor, int size) {
+        if (cursor != null) {
+            filter.and("_id").gt(cursor);
+        }
+        return productQuery(filter).with(Sort.by(Sort.Direction.ASC, "_id")).limit(size);
+    }
+
+    // Only the mapped fields are fetched, e.g. _class is left on the server
+    private static Query productQuery(Criteria criteria) {
+        Query query = new Query(criteria);
+        query.fields().include("_id", "name", "type", "version");
+        return query;
+    }
+}
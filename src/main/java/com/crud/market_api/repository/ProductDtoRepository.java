@@ -0,0 +1,39 @@
+package com.crud.market_api.repository;
+
+import com.crud.market_api.model.dto.ProductDto;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Queries that decode product documents directly into {@link ProductDto}, including the
+ * single-operation writes that return the previous state.
+ */
+public interface ProductDtoRepository {
+
+    Optional<ProductDto> findDtoById(String id);
+
+    List<ProductDto> findDtosByIdIn(Collection<String> ids);
+
+    // Keyset pagination: the page after a cursor (null for the first page) is the next ids in _id order
+    List<ProductDto> findDtoPage(String cursor, int size);
+
+    List<ProductDto> findDtoPageByType(String type, String cursor, int size);
+
+    List<ProductDto> findDtoPageByNamePrefix(String prefix, String cursor, int size);
+
+    // Backed by a server-side cursor, the caller must close the stream
+    Stream<ProductDto> streamAllDtos();
+
+    /**
+     * Updates name and type with one findAndModify and returns the state before the write, empty
+     * if there is no such product. With an expected version nothing is written unless it
+     * matches, which the caller detects from the version of the returned state.
+     */
+    Optional<ProductDto> updateDto(ProductDto product, Long expectedVersion);
+
+    // Deletes with one findAndRemove and returns the deleted state, empty if nothing matched
+    Optional<ProductDto> deleteDto(String id, Long expectedVersion);
+}
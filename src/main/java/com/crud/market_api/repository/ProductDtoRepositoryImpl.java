@@ -0,0 +1,63 @@
+package com.crud.market_api.repository;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+@RequiredArgsConstructor
+class ProductDtoRepositoryImpl implements ProductDtoRepository {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public Optional<ProductDto> findDtoById(String id) {
+        return Optional.ofNullable(mongoTemplate.findOne(ProductDtoQueries.byId(id), ProductDto.class, collection()));
+    }
+
+    @Override
+    public List<ProductDto> findDtosByIdIn(Collection<String> ids) {
+        return mongoTemplate.find(ProductDtoQueries.byIds(ids), ProductDto.class, collection());
+    }
+
+    @Override
+    public List<ProductDto> findDtoPage(String cursor, int size) {
+        return mongoTemplate.find(ProductDtoQueries.page(cursor, size), ProductDto.class, collection());
+    }
+
+    @Override
+    public List<ProductDto> findDtoPageByType(String type, String cursor, int size) {
+        return mongoTemplate.find(ProductDtoQueries.pageByType(type, cursor, size), ProductDto.class, collection());
+    }
+
+    @Override
+    public List<ProductDto> findDtoPageByNamePrefix(String prefix, String cursor, int size) {
+        return mongoTemplate.find(ProductDtoQueries.pageByNamePrefix(prefix, cursor, size), ProductDto.class, collection());
+    }
+
+    @Override
+    public Stream<ProductDto> streamAllDtos() {
+        return mongoTemplate.stream(ProductDtoQueries.all(), ProductDto.class, collection());
+    }
+
+    @Override
+    public Optional<ProductDto> updateDto(ProductDto product, Long expectedVersion) {
+        return Optional.ofNullable(mongoTemplate.findAndModify(ProductDtoQueries.byId(product.getId()),
+                ProductDtoQueries.update(product, expectedVersion), ProductDto.class, collection()));
+    }
+
+    @Override
+    public Optional<ProductDto> deleteDto(String id, Long expectedVersion) {
+        return Optional.ofNullable(mongoTemplate.findAndRemove(
+                ProductDtoQueries.byIdAndVersion(id, expectedVersion), ProductDto.class, collection()));
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(Product.class);
+    }
+}
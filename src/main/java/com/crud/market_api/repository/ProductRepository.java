@@ -5,5 +5,5 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ProductRepository extends MongoRepository<Product, String> {
-}
\ No newline at end of file
+public interface ProductRepository extends MongoRepository<Product, String>, ProductDtoRepository {
+}
@@ -0,0 +1,29 @@
+package com.crud.market_api.repository;
+
+import com.crud.market_api.model.dto.ProductDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * Reactive counterpart of {@link ProductDtoRepository}.
+ */
+public interface ReactiveProductDtoRepository {
+
+    Mono<ProductDto> findDtoById(String id);
+
+    Flux<ProductDto> findDtosByIdIn(Collection<String> ids);
+
+    Flux<ProductDto> findDtoPage(String cursor, int size);
+
+    Flux<ProductDto> findDtoPageByType(String type, String cursor, int size);
+
+    Flux<ProductDto> findDtoPageByNamePrefix(String prefix, String cursor, int size);
+
+    Flux<ProductDto> streamAllDtos();
+
+    Mono<ProductDto> updateDto(ProductDto product, Long expectedVersion);
+
+    Mono<ProductDto> deleteDto(String id, Long expectedVersion);
+}
@@ -0,0 +1,62 @@
+package com.crud.market_api.repository;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+@RequiredArgsConstructor
+class ReactiveProductDtoRepositoryImpl implements ReactiveProductDtoRepository {
+
+    private final ReactiveMongoTemplate mongoTemplate;
+
+    @Override
+    public Mono<ProductDto> findDtoById(String id) {
+        return mongoTemplate.findOne(ProductDtoQueries.byId(id), ProductDto.class, collection());
+    }
+
+    @Override
+    public Flux<ProductDto> findDtosByIdIn(Collection<String> ids) {
+        return mongoTemplate.find(ProductDtoQueries.byIds(ids), ProductDto.class, collection());
+    }
+
+    @Override
+    public Flux<ProductDto> findDtoPage(String cursor, int size) {
+        return mongoTemplate.find(ProductDtoQueries.page(cursor, size), ProductDto.class, collection());
+    }
+
+    @Override
+    public Flux<ProductDto> findDtoPageByType(String type, String cursor, int size) {
+        return mongoTemplate.find(ProductDtoQueries.pageByType(type, cursor, size), ProductDto.class, collection());
+    }
+
+    @Override
+    public Flux<ProductDto> findDtoPageByNamePrefix(String prefix, String cursor, int size) {
+        return mongoTemplate.find(ProductDtoQueries.pageByNamePrefix(prefix, cursor, size), ProductDto.class, collection());
+    }
+
+    @Override
+    public Flux<ProductDto> streamAllDtos() {
+        return mongoTemplate.find(ProductDtoQueries.all(), ProductDto.class, collection());
+    }
+
+    @Override
+    public Mono<ProductDto> updateDto(ProductDto product, Long expectedVersion) {
+        return mongoTemplate.findAndModify(ProductDtoQueries.byId(product.getId()),
+                ProductDtoQueries.update(product, expectedVersion), ProductDto.class, collection());
+    }
+
+    @Override
+    public Mono<ProductDto> deleteDto(String id, Long expectedVersion) {
+        return mongoTemplate.findAndRemove(
+                ProductDtoQueries.byIdAndVersion(id, expectedVersion), ProductDto.class, collection());
+    }
+
+    private String collection() {
+        return mongoTemplate.getCollectionName(Product.class);
+    }
+}
@@ -0,0 +1,10 @@
+package com.crud.market_api.repository;
+
+import com.crud.market_api.model.entity.Product;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+import org.springframework.stereotype.Repository;
+
+// Only created with the "reactive" profile, which enables the reactive Mongo auto-configuration
+@Repository
+public interface ReactiveProductRepository extends ReactiveMongoRepository<Product, String>, ReactiveProductDtoRepository {
+}
@@ -0,0 +1,12 @@
+package com.crud.market_api.service;
+
+import com.crud.market_api.model.dto.BulkOperationDto;
+import com.crud.market_api.model.dto.BulkResponseDto;
+
+import java.util.List;
+
+public interface ProductBulkService {
+
+    BulkResponseDto bulkProducts(List<BulkOperationDto> operations);
+
+}
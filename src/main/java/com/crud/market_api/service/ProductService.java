@@ -1,7 +1,10 @@
 package com.crud.market_api.service;
 
 import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
 public interface ProductService {
@@ -9,7 +12,12 @@ public interface ProductService {
     ProductDto createProduct(ProductDto productDto);
     ProductDto updateProduct(ProductDto productDto);
     ProductDto findById(String id);
-    List<ProductDto> getAllProducts();
+    List<ProductDto> findAllByIds(List<String> ids);
+    ProductPageDto getProducts(String cursor, int size);
+    ProductPageDto getProductsByType(String type, String cursor, int size);
+    ProductPageDto searchProductsByName(String namePrefix, String cursor, int size);
     void deleteProduct(String id);
+    void deleteProduct(String id, Long expectedVersion);
+    void exportProducts(OutputStream outputStream) throws IOException;
 
 }
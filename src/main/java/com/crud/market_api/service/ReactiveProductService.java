@@ -0,0 +1,23 @@
+package com.crud.market_api.service;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+public interface ReactiveProductService {
+
+    Mono<ProductDto> createProduct(ProductDto productDto);
+    Mono<ProductDto> updateProduct(ProductDto productDto);
+    Mono<ProductDto> findById(String id);
+    Mono<List<ProductDto>> findAllByIds(List<String> ids);
+    Mono<ProductPageDto> getProducts(String cursor, int size);
+    Mono<ProductPageDto> getProductsByType(String type, String cursor, int size);
+    Mono<ProductPageDto> searchProductsByName(String namePrefix, String cursor, int size);
+    Mono<Void> deleteProduct(String id);
+    Mono<Void> deleteProduct(String id, Long expectedVersion);
+    Flux<ProductDto> exportProducts();
+
+}
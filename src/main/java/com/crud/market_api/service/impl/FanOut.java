@@ -0,0 +1,85 @@
+package com.crud.market_api.service.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent blocking calls concurrently, one virtual thread each, and returns once all
+ * of them are done. The first call to fail, in completion order, interrupts the remaining calls
+ * and its exception is rethrown to the caller once they have stopped.
+ * <p>
+ * This is the shape of {@code StructuredTaskScope.ShutdownOnFailure}, which is still a preview
+ * API on Java 21: the subtasks never outlive the call that forked them.
+ */
+final class FanOut {
+
+    private FanOut() {
+    }
+
+    static void runAll(Runnable... tasks) {
+        List<Callable<Object>> callables = new ArrayList<>(tasks.length);
+        for (Runnable task : tasks) {
+            callables.add(() -> {
+                task.run();
+                return null;
+            });
+        }
+        callAll(callables);
+    }
+
+    static <T> List<T> callAll(List<Callable<T>> tasks) {
+        if (tasks.size() == 1) {
+            // Nothing to overlap, stay on the caller's thread
+            try {
+                return Collections.singletonList(tasks.get(0).call());
+            } catch (RuntimeException ex) {
+                throw ex;
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            // Completion order, so a failure is seen as soon as it happens whatever was submitted before it
+            CompletionService<T> completions = new ExecutorCompletionService<>(scope);
+            List<Future<T>> futures = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                futures.add(completions.submit(task));
+            }
+
+            try {
+                for (int i = 0; i < tasks.size(); i++) {
+                    completions.take().get();
+                }
+            } catch (ExecutionException ex) {
+                scope.shutdownNow();
+                if (ex.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (ex.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw new IllegalStateException(ex.getCause());
+            } catch (InterruptedException ex) {
+                scope.shutdownNow();
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for concurrent calls", ex);
+            }
+
+            // Every call is done, results are returned in task order
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : futures) {
+                results.add(future.resultNow());
+            }
+            return results;
+        }
+    }
+}
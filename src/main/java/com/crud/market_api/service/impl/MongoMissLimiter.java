@@ -0,0 +1,95 @@
+package com.crud.market_api.service.impl;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounds the Mongo queries that cache misses fall back to, so a cold or unreachable cache does
+ * not pass its whole load on to Mongo. A query needs a concurrency permit, waited for up to
+ * {@code max-wait}, and a token from a bucket refilled at {@code rate-per-second} up to
+ * {@code burst}. Without either it is rejected with a {@link ServiceOverloadedException} (503).
+ */
+@Component
+class MongoMissLimiter {
+
+    private final MarketCacheProperties.MissLimiter properties;
+    private final Semaphore permits;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+
+    private final Counter concurrencyRejections;
+    private final Counter rateRejections;
+
+    MongoMissLimiter(MarketCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties.getMissLimiter();
+        this.permits = new Semaphore(this.properties.getMaxConcurrent());
+        this.tokensPerNano = this.properties.getRatePerSecond() / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = this.properties.getBurst();
+
+        Gauge.builder("product.mongo_fallback.active", permits,
+                        semaphore -> this.properties.getMaxConcurrent() - semaphore.availablePermits())
+                .description("Mongo queries running for cache misses")
+                .register(meterRegistry);
+        this.concurrencyRejections = Counter.builder("product.mongo_fallback.rejected")
+                .tag("reason", "concurrency")
+                .register(meterRegistry);
+        this.rateRejections = Counter.builder("product.mongo_fallback.rejected")
+                .tag("reason", "rate")
+                .register(meterRegistry);
+    }
+
+    <T> T call(Supplier<T> query) {
+        if (!properties.isEnabled()) {
+            return query.get();
+        }
+
+        // A token is only taken once a permit is held, so a load rejected for concurrency costs no rate budget
+        if (!acquirePermit()) {
+            concurrencyRejections.increment();
+            throw new ServiceOverloadedException("Too many concurrent cache misses, retry later", properties.getMaxWait());
+        }
+        Duration retryAfter = takeToken();
+        if (retryAfter != null) {
+            permits.release();
+            rateRejections.increment();
+            throw new ServiceOverloadedException("Too many cache misses, retry later", retryAfter);
+        }
+        try {
+            return query.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    // Null when a token was taken, otherwise the time until the next one
+    private synchronized Duration takeToken() {
+        long now = System.nanoTime();
+        tokens = Math.min(properties.getBurst(), tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+        if (tokens >= 1) {
+            tokens--;
+            return null;
+        }
+        return Duration.ofNanos((long) ((1 - tokens) / tokensPerNano));
+    }
+
+    private boolean acquirePermit() {
+        try {
+            return permits.tryAcquire(properties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
@@ -0,0 +1,359 @@
+package com.crud.market_api.service.impl;
+
+import com.crud.market_api.cache.ProductPageCache;
+import com.crud.market_api.cache.RedisCacheBatchOperations;
+import com.crud.market_api.model.dto.BulkItemResultDto;
+import com.crud.market_api.model.dto.BulkOperationDto;
+import com.crud.market_api.model.dto.BulkOperationType;
+import com.crud.market_api.model.dto.BulkResponseDto;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.model.mapper.ProductMapper;
+import com.crud.market_api.service.ProductBulkService;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class ProductBulkServiceImpl implements ProductBulkService {
+
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+
+    private final MongoTemplate mongoTemplate;
+    private final CacheManager cacheManager;
+    private final RedisCacheBatchOperations batchOperations;
+    private final ProductPageCache productPageCache;
+    private final Validator validator;
+
+    @Override
+    public BulkResponseDto bulkProducts(List<BulkOperationDto> operations) {
+        BulkItemResultDto[] results = new BulkItemResultDto[operations.size()];
+        ProductDto[] written = new ProductDto[operations.size()];
+        Map<String, ProductDto> existing = findExisting(operations);
+        Set<String> duplicates = findDuplicates(operations);
+
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class);
+        // Position in the Mongo batch -> position in the request, to map write errors back
+        List<Integer> submitted = new ArrayList<>();
+
+        for (int index = 0; index < operations.size(); index++) {
+            BulkOperationDto operation = operations.get(index);
+            String error = validate(operation);
+            if (error != null) {
+                results[index] = new BulkItemResultDto(index, operation.getOp(), targetId(operation),
+                        HttpStatus.BAD_REQUEST.value(), error);
+                continue;
+            }
+
+            // The batch is unordered, two writes to one product would race with each other
+            if (operation.getOp() != BulkOperationType.CREATE && duplicates.contains(targetId(operation))) {
+                results[index] = new BulkItemResultDto(index, operation.getOp(), targetId(operation),
+                        HttpStatus.BAD_REQUEST.value(), "Duplicate product ID in batch: " + targetId(operation));
+                continue;
+            }
+
+            if (operation.getOp() != BulkOperationType.CREATE && !existing.containsKey(targetId(operation))) {
+                results[index] = new BulkItemResultDto(index, operation.getOp(), targetId(operation),
+                        HttpStatus.NOT_FOUND.value(), "Product not found with id: " + targetId(operation));
+                continue;
+            }
+
+            if (operation.getOp() != BulkOperationType.CREATE && isStale(operation, existing)) {
+                results[index] = new BulkItemResultDto(index, operation.getOp(), targetId(operation),
+                        HttpStatus.PRECONDITION_FAILED.value(), "Product " + targetId(operation) + " is at version "
+                        + ProductMapper.versionOf(existing.get(targetId(operation))) + ", not " + expectedVersion(operation));
+                continue;
+            }
+
+            results[index] = queue(bulk, index, operation, written, existing);
+            submitted.add(index);
+        }
+
+        if (!submitted.isEmpty()) {
+            BulkWriteResult writeResult;
+            try {
+                writeResult = bulk.execute();
+            } catch (BulkOperationException ex) {
+                writeResult = ex.getResult();
+                for (BulkWriteError writeError : ex.getErrors()) {
+                    BulkItemResultDto result = results[submitted.get(writeError.getIndex())];
+                    result.setStatus(writeError.getCode() == DUPLICATE_KEY_ERROR
+                            ? HttpStatus.CONFLICT.value()
+                            : HttpStatus.INTERNAL_SERVER_ERROR.value());
+                    result.setError(writeError.getMessage());
+                }
+            }
+            checkWritesMatched(operations, results, writeResult);
+        }
+
+        updateCaches(results, written, existing);
+
+        int succeeded = (int) Arrays.stream(results).filter(result -> result.getError() == null).count();
+        return new BulkResponseDto(succeeded, results.length - succeeded, Arrays.asList(results));
+    }
+
+    private BulkItemResultDto queue(BulkOperations bulk, int index, BulkOperationDto operation,
+                                    ProductDto[] written, Map<String, ProductDto> existing) {
+        switch (operation.getOp()) {
+            case CREATE -> {
+                Product product = ProductMapper.toEntity(operation.getProduct());
+                // Ids are assigned up front so results and cache entries are known before the write
+                product.setId(new ObjectId().toHexString());
+                product.setVersion(0L);
+                bulk.insert(product);
+                written[index] = ProductMapper.toDto(product);
+                return new BulkItemResultDto(index, operation.getOp(), product.getId(), HttpStatus.CREATED.value(), null);
+            }
+            case UPDATE -> {
+                ProductDto changes = operation.getProduct();
+                // The expected version is part of the filter, so a write racing with the batch makes the
+                // update match nothing instead of being overwritten. $inc rather than a replace, so
+                // concurrent writers never hand out the same version twice
+                bulk.updateOne(versionQuery(changes.getId(), changes.getVersion()), Update.update("name", changes.getName())
+                        .set("type", changes.getType())
+                        .inc("version", 1));
+                // Only the type and name matter, for the pages the product joins
+                written[index] = ProductMapper.nextVersion(existing.get(changes.getId()), changes);
+                return new BulkItemResultDto(index, operation.getOp(), changes.getId(), HttpStatus.OK.value(), null);
+            }
+            default -> {
+                bulk.remove(versionQuery(operation.getId(), operation.getVersion()));
+                return new BulkItemResultDto(index, operation.getOp(), operation.getId(), HttpStatus.NO_CONTENT.value(), null);
+            }
+        }
+    }
+
+    /**
+     * Reports the updates and deletes that matched no document. Bulk writes only count the matches
+     * and deletions of the whole batch, so the targeted documents are read back when a count falls
+     * short: a missing one was deleted meanwhile, one that does not hold this update at the
+     * expected next version, or that a delete left in place, was changed by another writer.
+     */
+    private void checkWritesMatched(List<BulkOperationDto> operations, BulkItemResultDto[] results,
+                                    BulkWriteResult writeResult) {
+        List<Integer> updates = indexesOf(results, BulkOperationType.UPDATE);
+        List<Integer> deletes = indexesOf(results, BulkOperationType.DELETE);
+        if (writeResult != null && writeResult.getMatchedCount() >= updates.size()) {
+            updates.clear();
+        }
+        if (writeResult != null && writeResult.getDeletedCount() >= deletes.size()) {
+            deletes.clear();
+        }
+        if (updates.isEmpty() && deletes.isEmpty()) {
+            return;
+        }
+
+        Map<String, ProductDto> current = findByIds(Stream.concat(updates.stream(), deletes.stream())
+                .map(index -> results[index].getId())
+                .toList());
+        checkUpdates(operations, results, updates, current);
+        checkDeletes(operations, results, deletes, current, writeResult);
+    }
+
+    private void checkUpdates(List<BulkOperationDto> operations, BulkItemResultDto[] results, List<Integer> updates,
+                              Map<String, ProductDto> current) {
+        for (int index : updates) {
+            BulkItemResultDto result = results[index];
+            ProductDto product = current.get(result.getId());
+            ProductDto changes = operations.get(index).getProduct();
+            Long expectedVersion = changes.getVersion();
+            if (product == null) {
+                result.setStatus(HttpStatus.NOT_FOUND.value());
+                result.setError("Product not found with id: " + result.getId());
+            } else if (expectedVersion != null && !isWrittenBy(product, changes)) {
+                result.setStatus(HttpStatus.PRECONDITION_FAILED.value());
+                result.setError("Product " + result.getId() + " is at version "
+                        + ProductMapper.versionOf(product) + ", not " + expectedVersion);
+            }
+        }
+    }
+
+    /**
+     * A delete that left its product in place was beaten by a write that moved the version. The
+     * deleted count does not say which of the products that are gone this batch removed, so when
+     * it falls short of them they all report 404: another writer deleted at least one first.
+     */
+    private void checkDeletes(List<BulkOperationDto> operations, BulkItemResultDto[] results, List<Integer> deletes,
+                              Map<String, ProductDto> current, BulkWriteResult writeResult) {
+        List<BulkItemResultDto> gone = new ArrayList<>();
+        for (int index : deletes) {
+            BulkItemResultDto result = results[index];
+            ProductDto product = current.get(result.getId());
+            if (product == null) {
+                gone.add(result);
+            } else {
+                result.setStatus(HttpStatus.PRECONDITION_FAILED.value());
+                result.setError("Product " + result.getId() + " is at version "
+                        + ProductMapper.versionOf(product) + ", not " + operations.get(index).getVersion());
+            }
+        }
+        if (writeResult == null || writeResult.getDeletedCount() >= gone.size()) {
+            return;
+        }
+        for (BulkItemResultDto result : gone) {
+            result.setStatus(HttpStatus.NOT_FOUND.value());
+            result.setError("Product not found with id: " + result.getId());
+        }
+    }
+
+    private static List<Integer> indexesOf(BulkItemResultDto[] results, BulkOperationType op) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int index = 0; index < results.length; index++) {
+            if (results[index].getOp() == op && results[index].getError() == null) {
+                indexes.add(index);
+            }
+        }
+        return indexes;
+    }
+
+    // Another writer may have moved the product to the same next version, but not with these values
+    private static boolean isWrittenBy(ProductDto product, ProductDto changes) {
+        return ProductMapper.versionOf(product) == changes.getVersion() + 1
+                && Objects.equals(product.getName(), changes.getName())
+                && Objects.equals(product.getType(), changes.getType());
+    }
+
+    private void updateCaches(BulkItemResultDto[] results, ProductDto[] written, Map<String, ProductDto> previous) {
+        Map<String, ProductDto> creates = new LinkedHashMap<>();
+        List<String> evictions = new ArrayList<>();
+        // Previous and new states, so products leave the type and name pages they no longer match
+        List<ProductDto> touched = new ArrayList<>();
+        for (int index = 0; index < results.length; index++) {
+            BulkItemResultDto result = results[index];
+            if (result.getError() != null) {
+                continue;
+            }
+            if (result.getOp() == BulkOperationType.CREATE) {
+                creates.put(result.getId(), written[index]);
+                touched.add(written[index]);
+            } else {
+                // An updated product is reloaded on the next read: its version is Mongo's to tell,
+                // a concurrent single update may have moved it further
+                evictions.add(result.getId());
+                if (written[index] != null) {
+                    touched.add(written[index]);
+                }
+            }
+            if (previous.containsKey(result.getId())) {
+                touched.add(previous.get(result.getId()));
+            }
+        }
+
+        // One pipeline for the entries, one DEL for the removals and one index lookup for the pages, concurrently
+        FanOut.runAll(
+                () -> batchOperations.putAll(cacheManager.getCache("products"), creates),
+                () -> batchOperations.evictAll(cacheManager.getCache("products"), evictions),
+                () -> productPageCache.evictProducts(touched));
+    }
+
+    private Map<String, ProductDto> findExisting(List<BulkOperationDto> operations) {
+        List<String> ids = operations.stream()
+                .filter(operation -> operation.getOp() == BulkOperationType.UPDATE
+                        || operation.getOp() == BulkOperationType.DELETE)
+                .map(ProductBulkServiceImpl::targetId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        return findByIds(ids);
+    }
+
+    private static Set<String> findDuplicates(List<BulkOperationDto> operations) {
+        return operations.stream()
+                .filter(operation -> operation.getOp() == BulkOperationType.UPDATE
+                        || operation.getOp() == BulkOperationType.DELETE)
+                .map(ProductBulkServiceImpl::targetId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(id -> id, Collectors.counting()))
+                .entrySet().stream()
+                .filter(entry -> entry.getValue() > 1)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    private Map<String, ProductDto> findByIds(List<String> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include("_id", "name", "type", "version");
+        return mongoTemplate.find(query, ProductDto.class, mongoTemplate.getCollectionName(Product.class)).stream()
+                .collect(Collectors.toMap(ProductDto::getId, product -> product));
+    }
+
+    // Fails fast against the state read before the batch, the write filter catches writes racing with it
+    private static boolean isStale(BulkOperationDto operation, Map<String, ProductDto> existing) {
+        Long expectedVersion = expectedVersion(operation);
+        return expectedVersion != null
+                && expectedVersion != ProductMapper.versionOf(existing.get(targetId(operation)));
+    }
+
+    private static Long expectedVersion(BulkOperationDto operation) {
+        return operation.getOp() == BulkOperationType.DELETE ? operation.getVersion() : operation.getProduct().getVersion();
+    }
+
+    private String validate(BulkOperationDto operation) {
+        if (operation.getOp() == null) {
+            return "Operation is required";
+        }
+        if (operation.getOp() == BulkOperationType.DELETE) {
+            return operation.getId() == null || operation.getId().isBlank() ? "Product ID is required" : null;
+        }
+        if (operation.getProduct() == null) {
+            return "Product is required";
+        }
+        if (operation.getOp() == BulkOperationType.UPDATE && operation.getProduct().getId() == null) {
+            return "Product ID is required";
+        }
+
+        Set<ConstraintViolation<ProductDto>> violations = validator.validate(operation.getProduct());
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private static String targetId(BulkOperationDto operation) {
+        if (operation.getOp() == BulkOperationType.DELETE) {
+            return operation.getId();
+        }
+        return operation.getProduct() != null ? operation.getProduct().getId() : null;
+    }
+
+    // Documents written before versioning have no version field and count as version 0
+    private static Query versionQuery(String id, Long expectedVersion) {
+        Criteria criteria = Criteria.where("_id").is(id);
+        if (expectedVersion == null) {
+            return new Query(criteria);
+        }
+        return new Query(expectedVersion == 0
+                ? criteria.orOperator(Criteria.where("version").is(0L), Criteria.where("version").exists(false))
+                : criteria.and("version").is(expectedVersion));
+    }
+}
@@ -1,103 +1,290 @@
 package com.crud.market_api.service.impl;
 
+import com.crud.market_api.cache.CachePolicies;
+import com.crud.market_api.cache.ProductPageCache;
+import com.crud.market_api.cache.ProductWriteBehindQueue;
+import com.crud.market_api.cache.RedisCacheBatchOperations;
 import com.crud.market_api.exception.ResourceNotFoundException;
+import com.crud.market_api.exception.ServiceOverloadedException;
+import com.crud.market_api.exception.VersionConflictException;
 import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
 import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.model.mapper.ProductMapper;
 import com.crud.market_api.repository.ProductRepository;
 import com.crud.market_api.service.ProductService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.BeanUtils;
-import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.CachePut;
-import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class ProductServiceImpl implements ProductService {
 
+    private static final int EXPORT_FLUSH_INTERVAL = 500;
+    // Misses beyond this are loaded by several $in queries running concurrently
+    private static final int MISS_QUERY_CHUNK_SIZE = 100;
+
     private final ProductRepository productRepository;
-    private final Logger logger = LoggerFactory.getLogger(ProductService.class);
+    private final ProductPageCache productPageCache;
+    private final ObjectMapper objectMapper;
+    private final CacheManager cacheManager;
+    private final RedisCacheBatchOperations batchOperations;
+    private final ObjectProvider<ProductWriteBehindQueue> writeBehindQueue;
+    private final CachePolicies cachePolicies;
+    private final MongoMissLimiter missLimiter;
 
 
-    @CachePut(value = "products", key = "#result.id")
-    @CacheEvict(value = "allProducts", allEntries = true)
     @Override
     public ProductDto createProduct(ProductDto productDto) {
-        Product product = new Product();
-        BeanUtils.copyProperties(productDto, product);
-        Product savedProduct = productRepository.save(product);
-        BeanUtils.copyProperties(savedProduct, productDto);
-        return productDto;
+        Product product = ProductMapper.toEntity(productDto);
+        // A new product starts at version 0 whatever the request carried
+        product.setVersion(null);
+        ProductDto created = ProductMapper.toDto(productRepository.save(product));
+        // The cache write and the page eviction are independent, overlap their round trips
+        FanOut.runAll(
+                () -> productCache().put(created.getId(), created),
+                () -> productPageCache.evictProducts(List.of(created)));
+        return created;
     }
 
-    @Cacheable(value = "products", key = "#id")
+    @Override
     public ProductDto findById(String id) {
-        logger.info("Finding product with ID: {}", id);
-        long startTime = System.nanoTime(); // Using nanoTime for more precise measurements
+        // Load time and Mongo latency are recorded by the cache.load and mongodb.driver.commands metrics
+        return cachedProduct(id);
+    }
 
-        try {
-            return productRepository.findById(id)
-                    .map(product -> {
-                        ProductDto dto = new ProductDto();
-                        BeanUtils.copyProperties(product, dto);
-                        return dto;
-                    })
-                    .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
-        } finally {
-            long duration = System.nanoTime() - startTime;
-            logger.info("Product find operation took: {} ms", duration / 1_000_000.0); // Convert to milliseconds
+    @Override
+    public List<ProductDto> findAllByIds(List<String> ids) {
+        Cache cache = productCache();
+        List<String> distinctIds = ids.stream().distinct().collect(Collectors.toList());
+
+        // One MGET for the cached entries, one $in query and one pipeline for the misses
+        Map<String, Object> cached = batchOperations.getAll(cache, distinctIds);
+        List<String> misses = distinctIds.stream()
+                .filter(id -> !cached.containsKey(id))
+                .collect(Collectors.toList());
+
+        Map<String, ProductDto> loaded = new HashMap<>();
+        List<Callable<Map<String, ProductDto>>> chunkLoads = new ArrayList<>();
+        for (int from = 0; from < misses.size(); from += MISS_QUERY_CHUNK_SIZE) {
+            List<String> chunk = misses.subList(from, Math.min(misses.size(), from + MISS_QUERY_CHUNK_SIZE));
+            chunkLoads.add(() -> {
+                Map<String, ProductDto> found = new HashMap<>();
+                missLimiter.call(() -> productRepository.findDtosByIdIn(chunk)).forEach(dto -> found.put(dto.getId(), dto));
+                batchOperations.putAll(cache, found);
+                return found;
+            });
         }
+        if (!chunkLoads.isEmpty()) {
+            FanOut.callAll(chunkLoads).forEach(loaded::putAll);
+        }
+
+        return ids.stream()
+                .map(id -> cached.containsKey(id) ? (ProductDto) cached.get(id) : loaded.get(id))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
+    @Override
+    public ProductPageDto getProducts(String cursor, int size) {
+        return getPage(ProductPageCache.Scope.ALL, cursor, size, productRepository::findDtoPage);
+    }
 
-    @Cacheable(value = "allProducts")
     @Override
-    public List<ProductDto> getAllProducts() {
-        return productRepository.findAll().stream()
-                .map(product -> {
-                    ProductDto dto = new ProductDto();
-                    BeanUtils.copyProperties(product, dto);
-                    return dto;
-                })
-                .collect(Collectors.toList());
+    public ProductPageDto getProductsByType(String type, String cursor, int size) {
+        return getPage(ProductPageCache.Scope.type(type), cursor, size,
+                (pageCursor, pageSize) -> productRepository.findDtoPageByType(type, pageCursor, pageSize));
+    }
+
+    @Override
+    public ProductPageDto searchProductsByName(String namePrefix, String cursor, int size) {
+        return getPage(ProductPageCache.Scope.namePrefix(namePrefix), cursor, size,
+                (pageCursor, pageSize) -> productRepository.findDtoPageByNamePrefix(namePrefix, pageCursor, pageSize));
+    }
+
+    private ProductPageDto getPage(ProductPageCache.Scope scope, String cursor, int size,
+                                   BiFunction<String, Integer, List<ProductDto>> query) {
+        String normalizedCursor = cursor != null ? cursor.toLowerCase() : null;
+        ProductPageDto cachedPage = productPageCache.get(scope, normalizedCursor, size);
+        if (cachedPage != null) {
+            return cachedPage;
+        }
+
+        List<ProductDto> items = missLimiter.call(() -> query.apply(normalizedCursor, size));
+
+        // A short page is the last one, a full page may still have a successor
+        String nextCursor = items.size() < size ? null : items.get(items.size() - 1).getId();
+        ProductPageDto page = new ProductPageDto(items, nextCursor);
+        productPageCache.put(scope, normalizedCursor, size, page);
+        return page;
     }
 
-    @Caching(
-            put = {@CachePut(value = "products", key = "#productDto.id")},
-            evict = {@CacheEvict(value = "allProducts", allEntries = true)}
-    )
     @Override
     public ProductDto updateProduct(ProductDto productDto) {
-        Product existingProduct = productRepository.findById(productDto.getId())
-                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productDto.getId()));
+        ProductWriteBehindQueue queue = writeBehindQueue.getIfAvailable();
+        if (queue != null) {
+            return updateBehind(productDto, queue);
+        }
 
-        BeanUtils.copyProperties(productDto, existingProduct);
-        existingProduct.setId(productDto.getId());
+        // One findAndModify writes and returns the previous state, whose type and name decide
+        // which filtered pages the product leaves
+        ProductDto previous = productRepository.updateDto(productDto, productDto.getVersion())
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + productDto.getId()));
+        checkVersion(previous, productDto.getVersion());
 
-        Product updatedProduct = productRepository.save(existingProduct);
-        BeanUtils.copyProperties(updatedProduct, productDto);
-        return productDto;
+        ProductDto updated = ProductMapper.nextVersion(previous, productDto);
+        FanOut.runAll(
+                () -> productCache().put(updated.getId(), updated),
+                () -> productPageCache.evictProducts(List.of(previous, updated)));
+        return updated;
     }
 
-    @Caching(
-            evict = {
-                    @CacheEvict(value = "products", key = "#id"),
-                    @CacheEvict(value = "allProducts", allEntries = true)
+    // The cache is the source of truth in write-behind mode: the update is visible once cached and queued.
+    // The version is checked and the entry replaced in one compare-and-set on Redis, so concurrent writers
+    // of the same version cannot both pass. Mongo may lag behind queued updates, so it is never checked
+    // instead: without Redis the update is rejected, and a saturated queue writes it to Mongo right away
+    private ProductDto updateBehind(ProductDto productDto, ProductWriteBehindQueue queue) {
+        String id = productDto.getId();
+        AtomicReference<ProductDto> previous = new AtomicReference<>();
+        ProductDto updated = batchOperations.compareAndUpdate(productCache(), id, ProductDto.class,
+                () -> missLimiter.call(() -> productRepository.findDtoById(id)).orElse(null),
+                current -> {
+                    if (current == null) {
+                        throw notFound(id);
+                    }
+                    checkVersion(current, productDto.getVersion());
+                    previous.set(current);
+                    return ProductMapper.nextVersion(current, productDto);
+                });
+        if (updated == null) {
+            throw new ServiceOverloadedException("Product updates are paused while the cache is unavailable, retry later",
+                    queue.getRetryAfter());
+        }
+
+        try {
+            if (queue.isSaturated()) {
+                queue.writeThrough(updated);
+            } else {
+                queue.enqueue(updated);
             }
-    )
+        } catch (RuntimeException ex) {
+            // Not written, Mongo keeps the previous state and so must the cache
+            productCache().evict(id);
+            throw ex;
+        }
+        productPageCache.evictProducts(List.of(previous.get(), updated));
+        return updated;
+    }
+
     @Override
     public void deleteProduct(String id) {
-        if (!productRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Product not found with id: " + id);
+        deleteProduct(id, null);
+    }
+
+    @Override
+    public void deleteProduct(String id, Long expectedVersion) {
+        ProductDto previous = productRepository.deleteDto(id, expectedVersion)
+                .orElseThrow(() -> deleteFailure(id, expectedVersion));
+        FanOut.runAll(
+                () -> productCache().evict(id),
+                () -> productPageCache.evictProducts(List.of(previous)));
+    }
+
+    @Override
+    public void exportProducts(OutputStream outputStream) throws IOException {
+        try (Stream<ProductDto> products = productRepository.streamAllDtos();
+             JsonGenerator generator = objectMapper.createGenerator(outputStream)) {
+            // The servlet container owns the response stream
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are separated by '\n' only, not by the default space between root values
+            generator.setRootValueSeparator(null);
+
+            Iterator<ProductDto> iterator = products.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                generator.writeObject(iterator.next());
+                generator.writeRaw('\n');
+
+                // Flush in chunks so the client receives data while the cursor is still being read
+                if (++written % EXPORT_FLUSH_INTERVAL == 0) {
+                    generator.flush();
+                }
+            }
+            generator.flush();
         }
-        productRepository.deleteById(id);
     }
-}
\ No newline at end of file
+
+    // Only reached when a delete matched nothing: a conditional delete needs a read to tell a conflict from a miss
+    private RuntimeException deleteFailure(String id, Long expectedVersion) {
+        if (expectedVersion != null) {
+            ProductDto current = productRepository.findDtoById(id).orElse(null);
+            if (current != null) {
+                return conflict(current, expectedVersion);
+            }
+        }
+        return notFound(id);
+    }
+
+    static void checkVersion(ProductDto current, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != ProductMapper.versionOf(current)) {
+            throw conflict(current, expectedVersion);
+        }
+    }
+
+    static VersionConflictException conflict(ProductDto current, long expectedVersion) {
+        return new VersionConflictException("Product " + current.getId() + " is at version "
+                + ProductMapper.versionOf(current) + ", not " + expectedVersion);
+    }
+
+    private Cache productCache() {
+        return cacheManager.getCache("products");
+    }
+
+    // Misses go through the cache loader, which coalesces concurrent loads of the same id. When the
+    // products cache keeps null values, a missing product is cached too and the next lookups stop there
+    private ProductDto cachedProduct(String id) {
+        boolean cacheMissing = cachePolicies.cachesNullValues("products");
+        ProductDto product;
+        try {
+            product = productCache().get(id, () -> {
+                // Misses are limited, so a failing cache does not pass its whole load on to Mongo
+                Optional<ProductDto> found = missLimiter.call(() -> productRepository.findDtoById(id));
+                return cacheMissing ? found.orElse(null) : found.orElseThrow(() -> notFound(id));
+            });
+        } catch (Cache.ValueRetrievalException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+        if (product == null) {
+            throw notFound(id);
+        }
+        return product;
+    }
+
+    private static ResourceNotFoundException notFound(String id) {
+        return new ResourceNotFoundException("Product not found with id: " + id);
+    }
+}
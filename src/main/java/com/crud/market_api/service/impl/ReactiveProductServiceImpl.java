@@ -0,0 +1,165 @@
+package com.crud.market_api.service.impl;
+
+import com.crud.market_api.cache.ProductPageCache;
+import com.crud.market_api.cache.ReactiveProductCache;
+import com.crud.market_api.exception.ResourceNotFoundException;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.model.mapper.ProductMapper;
+import com.crud.market_api.repository.ReactiveProductRepository;
+import com.crud.market_api.service.ReactiveProductService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+
+/**
+ * Same behaviour as {@link ProductServiceImpl}, with the cache handled explicitly through
+ * {@link ReactiveProductCache} instead of the Spring {@code Cache} abstraction.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+public class ReactiveProductServiceImpl implements ReactiveProductService {
+
+    private final ReactiveProductRepository productRepository;
+    private final ReactiveProductCache productCache;
+    // Concurrent misses on the same id subscribe to one shared load
+    private final ConcurrentMap<String, Mono<Optional<ProductDto>>> inFlight = new ConcurrentHashMap<>();
+
+    @Override
+    public Mono<ProductDto> createProduct(ProductDto productDto) {
+        Product product = ProductMapper.toEntity(productDto);
+        // A new product starts at version 0 whatever the request carried
+        product.setVersion(null);
+        return productRepository.save(product)
+                .map(ProductMapper::toDto)
+                .flatMap(saved -> productCache.putProduct(saved)
+                        .then(productCache.evictPages(List.of(saved)))
+                        .thenReturn(saved));
+    }
+
+    @Override
+    public Mono<ProductDto> findById(String id) {
+        return productCache.getProduct(id)
+                .switchIfEmpty(Mono.defer(() -> inFlight.computeIfAbsent(id, this::load)))
+                .flatMap(entry -> Mono.justOrEmpty(entry))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product not found with id: " + id)));
+    }
+
+    // A missing product is cached too when the products cache keeps null values
+    private Mono<Optional<ProductDto>> load(String id) {
+        AtomicReference<Mono<Optional<ProductDto>>> self = new AtomicReference<>();
+        Mono<Optional<ProductDto>> load = productRepository.findDtoById(id)
+                .flatMap(product -> productCache.putProduct(product).thenReturn(Optional.of(product)))
+                .switchIfEmpty(Mono.defer(() -> productCache.putMissingProduct(id).thenReturn(Optional.empty())))
+                // Only this load's own entry, a later load for the id may already have replaced it
+                .doFinally(signal -> inFlight.remove(id, self.get()))
+                .cache();
+        self.set(load);
+        return load;
+    }
+
+    @Override
+    public Mono<List<ProductDto>> findAllByIds(List<String> ids) {
+        List<String> distinctIds = ids.stream().distinct().toList();
+
+        // One MGET for the cached entries, one $in query and pipelined writes for the misses
+        return productCache.getProducts(distinctIds).flatMap(cached -> {
+            List<String> misses = distinctIds.stream().filter(id -> !cached.containsKey(id)).toList();
+            Mono<Map<String, ProductDto>> loaded = misses.isEmpty()
+                    ? Mono.just(Map.of())
+                    : productRepository.findDtosByIdIn(misses)
+                            .collectMap(ProductDto::getId)
+                            .flatMap(found -> productCache.putProducts(found.values()).thenReturn(found));
+
+            return loaded.map(found -> ids.stream()
+                    .map(id -> cached.containsKey(id) ? cached.get(id) : found.get(id))
+                    .filter(Objects::nonNull)
+                    .toList());
+        });
+    }
+
+    @Override
+    public Mono<ProductPageDto> getProducts(String cursor, int size) {
+        return getPage(ProductPageCache.Scope.ALL, cursor, size, productRepository::findDtoPage);
+    }
+
+    @Override
+    public Mono<ProductPageDto> getProductsByType(String type, String cursor, int size) {
+        return getPage(ProductPageCache.Scope.type(type), cursor, size,
+                (pageCursor, pageSize) -> productRepository.findDtoPageByType(type, pageCursor, pageSize));
+    }
+
+    @Override
+    public Mono<ProductPageDto> searchProductsByName(String namePrefix, String cursor, int size) {
+        return getPage(ProductPageCache.Scope.namePrefix(namePrefix), cursor, size,
+                (pageCursor, pageSize) -> productRepository.findDtoPageByNamePrefix(namePrefix, pageCursor, pageSize));
+    }
+
+    private Mono<ProductPageDto> getPage(ProductPageCache.Scope scope, String cursor, int size,
+                                         BiFunction<String, Integer, Flux<ProductDto>> query) {
+        String normalizedCursor = cursor != null ? cursor.toLowerCase() : null;
+        return productCache.getPage(scope, normalizedCursor, size)
+                .switchIfEmpty(Mono.defer(() -> query.apply(normalizedCursor, size)
+                        .collectList()
+                        .map(items -> {
+                            // A short page is the last one, a full page may still have a successor
+                            String nextCursor = items.size() < size ? null : items.get(items.size() - 1).getId();
+                            return new ProductPageDto(items, nextCursor);
+                        })
+                        .flatMap(page -> productCache.putPage(scope, normalizedCursor, size, page).thenReturn(page))));
+    }
+
+    @Override
+    public Mono<ProductDto> updateProduct(ProductDto productDto) {
+        // One findAndModify writes and returns the previous state, whose type and name decide
+        // which filtered pages the product leaves
+        return productRepository.updateDto(productDto, productDto.getVersion())
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product not found with id: " + productDto.getId())))
+                .flatMap(previous -> {
+                    ProductServiceImpl.checkVersion(previous, productDto.getVersion());
+                    ProductDto updated = ProductMapper.nextVersion(previous, productDto);
+                    return productCache.putProduct(updated)
+                            .then(productCache.evictPages(List.of(previous, updated)))
+                            .thenReturn(updated);
+                });
+    }
+
+    @Override
+    public Mono<Void> deleteProduct(String id) {
+        return deleteProduct(id, null);
+    }
+
+    @Override
+    public Mono<Void> deleteProduct(String id, Long expectedVersion) {
+        return productRepository.deleteDto(id, expectedVersion)
+                .switchIfEmpty(Mono.defer(() -> deleteFailure(id, expectedVersion)))
+                .flatMap(previous -> productCache.evictProduct(id)
+                        .then(productCache.evictPages(List.of(previous))));
+    }
+
+    // Only reached when a delete matched nothing: a conditional delete needs a read to tell a conflict from a miss
+    private Mono<ProductDto> deleteFailure(String id, Long expectedVersion) {
+        Mono<ProductDto> current = expectedVersion != null ? productRepository.findDtoById(id) : Mono.empty();
+        return current
+                .flatMap(product -> Mono.<ProductDto>error(ProductServiceImpl.conflict(product, expectedVersion)))
+                .switchIfEmpty(Mono.error(() -> new ResourceNotFoundException("Product not found with id: " + id)));
+    }
+
+    @Override
+    public Flux<ProductDto> exportProducts() {
+        return productRepository.streamAllDtos();
+    }
+}
@@ -0,0 +1,106 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CachePoliciesTest {
+
+    private MarketCacheProperties properties;
+    private HotKeyTracker hotKeyTracker;
+    private CachePolicies cachePolicies;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MarketCacheProperties();
+        properties.getStampede().setTtlJitter(Duration.ZERO);
+        MarketCacheProperties.CacheSpec products = new MarketCacheProperties.CacheSpec();
+        products.setCacheNullValues(true);
+        products.getAdaptive().setEnabled(true);
+        properties.getCaches().put("products", products);
+        MarketCacheProperties.CacheSpec pages = new MarketCacheProperties.CacheSpec();
+        pages.setTtl(Duration.ofMinutes(30));
+        pages.setKeyPrefix("pp::");
+        pages.setMaxEntrySize(DataSize.ofBytes(100));
+        properties.getCaches().put(ProductPageCache.CACHE_NAME, pages);
+
+        hotKeyTracker = mock(HotKeyTracker.class);
+        cachePolicies = new CachePolicies(properties, hotKeyTracker);
+    }
+
+    @Test
+    @DisplayName("Should pick the product TTL by how often the id is read")
+    void shouldAdaptTtlToReads() {
+        // Arrange
+        when(hotKeyTracker.isHot("hot")).thenReturn(true);
+        when(hotKeyTracker.isRecentlyRead("warm")).thenReturn(true);
+        ProductDto product = new ProductDto();
+
+        // Act & Assert
+        assertThat(cachePolicies.entryTtl("products", "hot", product)).isEqualTo(Duration.ofHours(1));
+        assertThat(cachePolicies.entryTtl("products", "warm", product)).isEqualTo(Duration.ofMinutes(10));
+        assertThat(cachePolicies.entryTtl("products", "cold", product)).isEqualTo(Duration.ofMinutes(2));
+        assertThat(cachePolicies.entryTtl("products", "missing", NullValue.INSTANCE)).isEqualTo(Duration.ofSeconds(60));
+        assertThat(cachePolicies.maxTtl("products")).isEqualTo(Duration.ofHours(1));
+    }
+
+    @Test
+    @DisplayName("Should apply the settings of a cache and the defaults to the others")
+    void shouldResolvePerCacheSettings() {
+        assertThat(cachePolicies.entryTtl(ProductPageCache.CACHE_NAME, "first:20", new Object()))
+                .isEqualTo(Duration.ofMinutes(30));
+        assertThat(cachePolicies.keyPrefix(ProductPageCache.CACHE_NAME)).isEqualTo("pp::");
+        assertThat(cachePolicies.fits(ProductPageCache.CACHE_NAME, 101)).isFalse();
+        assertThat(cachePolicies.cachesNullValues(ProductPageCache.CACHE_NAME)).isFalse();
+
+        assertThat(cachePolicies.entryTtl("other", "key", new Object())).isEqualTo(Duration.ofMinutes(10));
+        assertThat(cachePolicies.keyPrefix("other")).isEqualTo("other::");
+        assertThat(cachePolicies.fits("other", Integer.MAX_VALUE)).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should hash-tag pages by scope and spread other keys over the buckets")
+    void shouldHashTagKeys() {
+        // Arrange
+        properties.getCluster().setHashTags(true);
+        properties.getCluster().setHashTagBuckets(4);
+        ProductPageCache.Scope food = ProductPageCache.Scope.type("Food");
+
+        // Act
+        String firstPage = cachePolicies.redisKey(ProductPageCache.CACHE_NAME, ProductPageCache.key(food, null, 20));
+        String nextPage = cachePolicies.redisKey(ProductPageCache.CACHE_NAME, ProductPageCache.key(food, "65a1", 20));
+        Set<String> productTags = IntStream.range(0, 100)
+                .mapToObj(i -> cachePolicies.hashTag("products", "id-" + i))
+                .collect(Collectors.toSet());
+
+        // Assert
+        assertThat(firstPage).isEqualTo("pp::{type:Food}type:Food:first:20");
+        assertThat(ClusterSlotHashUtil.calculateSlot(nextPage))
+                .isEqualTo(ClusterSlotHashUtil.calculateSlot(firstPage))
+                .isEqualTo(ClusterSlotHashUtil.calculateSlot(ProductPageCache.indexKey(food, cachePolicies)));
+        assertThat(cachePolicies.redisKey(ProductPageCache.CACHE_NAME, ProductPageCache.key(ProductPageCache.Scope.ALL, null, 20)))
+                .isEqualTo("pp::{all}first:20");
+        assertThat(productTags).containsExactlyInAnyOrder("{0}", "{1}", "{2}", "{3}");
+    }
+
+    @Test
+    @DisplayName("Should keep the plain keys without hash tags")
+    void shouldNotTagKeysByDefault() {
+        assertThat(cachePolicies.redisKey("products", "abc")).isEqualTo("products::abc");
+        assertThat(ProductPageCache.indexKey(ProductPageCache.Scope.ALL, cachePolicies)).isEqualTo(ProductPageCache.INDEX_KEY);
+    }
+}
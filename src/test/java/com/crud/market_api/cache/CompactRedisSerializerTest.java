@@ -0,0 +1,109 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CompactRedisSerializerTest {
+
+    private final CompactRedisSerializer serializer = new CompactRedisSerializer(1024);
+    private final GenericJackson2JsonRedisSerializer jsonSerializer = new GenericJackson2JsonRedisSerializer();
+
+    @Test
+    @DisplayName("Should round trip a product in less space than JSON")
+    void shouldRoundTripProduct() {
+        ProductDto product = product("507f1f77bcf86cd799439011", "Smartphone", "Electronics");
+        product.setVersion(3L);
+
+        byte[] bytes = serializer.serialize(product);
+
+        assertThat(serializer.deserialize(bytes)).isEqualTo(product);
+        assertThat(bytes.length).isLessThan(jsonSerializer.serialize(product).length / 2);
+    }
+
+    @Test
+    @DisplayName("Should read products written before the version field")
+    void shouldReadUnversionedSchema() {
+        // Arrange
+        ProductDto product = product("507f1f77bcf86cd799439011", "Smartphone", "Electronics");
+        byte[] bytes = serializer.serialize(product);
+        // A version 1 value is the same payload without the trailing version varint
+        byte[] legacy = Arrays.copyOf(bytes, bytes.length - 1);
+        legacy[1] = 1;
+
+        // Act
+        Object value = serializer.deserialize(legacy);
+
+        // Assert
+        assertThat(value).isEqualTo(product);
+    }
+
+    @Test
+    @DisplayName("Should keep null fields")
+    void shouldRoundTripNullFields() {
+        ProductDto product = product(null, "Smartphone", null);
+
+        assertThat(serializer.deserialize(serializer.serialize(product))).isEqualTo(product);
+    }
+
+    @Test
+    @DisplayName("Should compress large pages")
+    void shouldCompressLargePages() {
+        // Arrange
+        List<ProductDto> items = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            items.add(product(String.format("507f1f77bcf86cd7994%05d", i), "Product " + i, "Electronics"));
+        }
+        ProductPageDto page = new ProductPageDto(items, items.get(99).getId());
+
+        // Act
+        byte[] bytes = serializer.serialize(page);
+
+        // Assert
+        assertThat(bytes[2] & 1).isEqualTo(1);
+        assertThat(serializer.deserialize(bytes)).isEqualTo(page);
+    }
+
+    @Test
+    @DisplayName("Should read entries written by the JSON serializer")
+    void shouldReadLegacyJson() {
+        ProductDto product = product("507f1f77bcf86cd799439011", "Smartphone", "Electronics");
+
+        assertThat(serializer.deserialize(jsonSerializer.serialize(product))).isEqualTo(product);
+    }
+
+    @Test
+    @DisplayName("Should fall back to JSON for other types")
+    void shouldFallBackToJson() {
+        Map<String, String> value = new HashMap<>(Map.of("key", "value"));
+
+        assertThat(serializer.deserialize(serializer.serialize(value))).isEqualTo(value);
+    }
+
+    @Test
+    @DisplayName("Should treat values from a newer schema as a miss")
+    void shouldSkipNewerSchemaVersion() {
+        byte[] bytes = serializer.serialize(product("1", "Smartphone", "Electronics"));
+        bytes[1] = CompactRedisSerializer.SCHEMA_VERSION + 1;
+
+        assertThat(serializer.deserialize(bytes)).isNull();
+    }
+
+    private static ProductDto product(String id, String name, String type) {
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        product.setName(name);
+        product.setType(type);
+        return product;
+    }
+}
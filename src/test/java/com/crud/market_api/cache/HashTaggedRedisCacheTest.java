@@ -0,0 +1,96 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class HashTaggedRedisCacheTest {
+
+    @Test
+    @DisplayName("Should load a missing key once for concurrent callers when there is no local tier")
+    void shouldCoalesceConcurrentLoadsWithoutLocalTier() throws Exception {
+        // Arrange
+        MarketCacheProperties properties = new MarketCacheProperties();
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        CachePolicies cachePolicies = new CachePolicies(properties, new HotKeyTracker(redisTemplate, properties));
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(properties, redisTemplate, cachePolicies, null);
+        CacheLoadCoordinator loadCoordinator = new CacheLoadCoordinator(redisTemplate,
+                new RedisCacheBatchOperations(redisTemplate, cachePolicies, circuitBreaker), circuitBreaker, properties);
+        HashTaggedRedisCache cache = new HashTaggedRedisCache("products", inMemoryWriter(),
+                RedisCacheConfiguration.defaultCacheConfig().serializeValuesWith(
+                        RedisSerializationContext.SerializationPair.fromSerializer(new CompactRedisSerializer(1024))),
+                cachePolicies, loadCoordinator);
+
+        int callers = 16;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch arrived = new CountDownLatch(callers);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // Act
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                arrived.countDown();
+                return cache.get("1", () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    release.await();
+                    return "value";
+                });
+            }));
+        }
+        assertThat(arrived.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        executor.shutdown();
+        loadCoordinator.destroy();
+    }
+
+    private static RedisCacheWriter inMemoryWriter() {
+        Map<String, byte[]> entries = new ConcurrentHashMap<>();
+        RedisCacheWriter writer = mock(RedisCacheWriter.class);
+        when(writer.get(anyString(), any(byte[].class)))
+                .thenAnswer(invocation -> entries.get(key(invocation.getArgument(1))));
+        when(writer.get(anyString(), any(byte[].class), any()))
+                .thenAnswer(invocation -> entries.get(key(invocation.getArgument(1))));
+        doAnswer(invocation -> entries.put(key(invocation.getArgument(1)), invocation.getArgument(2)))
+                .when(writer).put(anyString(), any(byte[].class), any(byte[].class), any());
+        return writer;
+    }
+
+    private static String key(byte[] key) {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+}
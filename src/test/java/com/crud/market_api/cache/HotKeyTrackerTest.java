@@ -0,0 +1,99 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisZSetCommands;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class HotKeyTrackerTest {
+
+    private static final byte[] KEY = "products:hot".getBytes(StandardCharsets.UTF_8);
+
+    private MarketCacheProperties properties;
+    private StringRedisTemplate redisTemplate;
+    private RedisZSetCommands zSetCommands;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MarketCacheProperties();
+        properties.getWarmUp().setEnabled(true);
+        properties.getHotKeys().setMaxTracked(100);
+        redisTemplate = mock(StringRedisTemplate.class);
+        zSetCommands = mock(RedisZSetCommands.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.zSetCommands()).thenReturn(zSetCommands);
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(invocation -> {
+            RedisCallback<?> callback = invocation.getArgument(0);
+            callback.doInRedis(connection);
+            return List.of();
+        });
+    }
+
+    @Test
+    @DisplayName("Should decay the scores, add the counted reads and trim the ranking on flush")
+    void shouldDecayAndAddCountsOnFlush() {
+        // Arrange
+        HotKeyTracker tracker = new HotKeyTracker(redisTemplate, properties);
+        tracker.record("a");
+        tracker.record("a");
+        tracker.record("b");
+
+        // Act
+        tracker.flush();
+
+        // Assert
+        var order = inOrder(zSetCommands);
+        order.verify(zSetCommands).zUnionStore(aryEq(KEY), eq(Aggregate.SUM), eq(Weights.of(0.9)), aryEq(KEY));
+        order.verify(zSetCommands).zIncrBy(aryEq(KEY), eq(2.0), aryEq("a".getBytes(StandardCharsets.UTF_8)));
+        order.verify(zSetCommands).zIncrBy(aryEq(KEY), eq(1.0), aryEq("b".getBytes(StandardCharsets.UTF_8)));
+        order.verify(zSetCommands).zRemRange(aryEq(KEY), eq(0L), eq(-101L));
+        assertThat(tracker.isRecentlyRead("a")).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should not touch Redis when no read was counted")
+    void shouldSkipEmptyFlush() {
+        // Arrange
+        HotKeyTracker tracker = new HotKeyTracker(redisTemplate, properties);
+
+        // Act
+        tracker.flush();
+
+        // Assert
+        verifyNoInteractions(redisTemplate);
+    }
+
+    @Test
+    @DisplayName("Should stay idle without warm-up or adaptive TTL")
+    void shouldStayIdleWithoutConsumers() {
+        // Arrange
+        properties.getWarmUp().setEnabled(false);
+        HotKeyTracker tracker = new HotKeyTracker(redisTemplate, properties);
+
+        // Act
+        tracker.record("a");
+        tracker.flush();
+
+        // Assert
+        assertThat(tracker.isRecentlyRead("a")).isFalse();
+        verifyNoInteractions(redisTemplate);
+    }
+}
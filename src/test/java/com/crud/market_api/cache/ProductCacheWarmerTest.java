@@ -0,0 +1,125 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductCacheWarmerTest {
+
+    private MarketCacheProperties properties;
+    private ProductRepository productRepository;
+    private MongoTemplate mongoTemplate;
+    private RedisCacheBatchOperations batchOperations;
+    private HotKeyTracker hotKeyTracker;
+    private Cache cache;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductCacheWarmer warmer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MarketCacheProperties();
+        properties.getWarmUp().setEnabled(true);
+        properties.getWarmUp().setFullCatalogThreshold(10);
+        properties.getWarmUp().setBatchSize(2);
+        productRepository = mock(ProductRepository.class);
+        mongoTemplate = mock(MongoTemplate.class);
+        batchOperations = mock(RedisCacheBatchOperations.class);
+        hotKeyTracker = mock(HotKeyTracker.class);
+        cache = mock(Cache.class);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache("products")).thenReturn(cache);
+        when(batchOperations.putAllIfAbsent(eq(cache), anyMap()))
+                .thenAnswer(invocation -> invocation.<Map<?, ?>>getArgument(1).size());
+        meterRegistry = new SimpleMeterRegistry();
+        warmer = new ProductCacheWarmer(cacheManager, productRepository, mongoTemplate, batchOperations,
+                hotKeyTracker, properties, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should load a small catalog whole before reporting ready")
+    void shouldWarmWholeCatalog() throws InterruptedException {
+        // Arrange
+        when(mongoTemplate.estimatedCount(Product.class)).thenReturn(3L);
+        when(productRepository.streamAllDtos()).thenReturn(Stream.of(product("1"), product("2"), product("3")));
+
+        // Act
+        warmer.run(new DefaultApplicationArguments());
+
+        // Assert
+        assertThat(meterRegistry.get("cache.warmup.entries").gauge().value()).isEqualTo(3.0);
+        verify(hotKeyTracker, never()).topIds(any(Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should load only the hottest ids of a large catalog")
+    void shouldWarmHottestIds() throws InterruptedException {
+        // Arrange
+        when(mongoTemplate.estimatedCount(Product.class)).thenReturn(1_000L);
+        when(hotKeyTracker.topIds(properties.getWarmUp().getTopN())).thenReturn(List.of("1", "2", "3"));
+        when(productRepository.findDtosByIdIn(List.of("1", "2"))).thenReturn(List.of(product("1"), product("2")));
+        when(productRepository.findDtosByIdIn(List.of("3"))).thenReturn(List.of(product("3")));
+
+        // Act
+        warmer.run(new DefaultApplicationArguments());
+
+        // Assert
+        assertThat(meterRegistry.get("cache.warmup.entries").gauge().value()).isEqualTo(3.0);
+        verify(productRepository, never()).streamAllDtos();
+    }
+
+    @Test
+    @DisplayName("Should report ready after the timeout and finish the warm-up in the background")
+    void shouldStopGatingReadinessAfterTimeout() throws InterruptedException {
+        // Arrange
+        properties.getWarmUp().setTimeout(Duration.ofMillis(100));
+        CountDownLatch catalogRead = new CountDownLatch(1);
+        when(mongoTemplate.estimatedCount(Product.class)).thenReturn(1L);
+        when(productRepository.streamAllDtos()).thenAnswer(invocation -> {
+            catalogRead.await();
+            return Stream.of(product("1"));
+        });
+
+        // Act
+        long start = System.nanoTime();
+        warmer.run(new DefaultApplicationArguments());
+        Duration waited = Duration.ofNanos(System.nanoTime() - start);
+
+        // Assert
+        assertThat(waited).isLessThan(Duration.ofSeconds(5));
+        verify(batchOperations, never()).putAllIfAbsent(any(), anyMap());
+        catalogRead.countDown();
+        await().atMost(Duration.ofSeconds(5))
+                .untilAsserted(() -> verify(batchOperations).putAllIfAbsent(eq(cache), anyMap()));
+    }
+
+    private static ProductDto product(String id) {
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        return product;
+    }
+}
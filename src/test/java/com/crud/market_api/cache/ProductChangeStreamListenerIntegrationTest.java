@@ -0,0 +1,114 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// MongoDBContainer runs a single-node replica set, which change streams require
+@SpringBootTest(properties = "market.cache.change-stream.enabled=true")
+@Testcontainers
+class ProductChangeStreamListenerIntegrationTest {
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    @Container
+    static final GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    @DynamicPropertySource
+    static void containerProperties(DynamicPropertyRegistry registry) {
+        // The URI replaces the host and credentials of application.properties
+        registry.add("spring.data.mongodb.uri", () -> mongo.getReplicaSetUrl("marketdb_test"));
+        registry.add("spring.data.redis.host", redis::getHost);
+        registry.add("spring.data.redis.port", () -> redis.getMappedPort(6379));
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames()
+                .forEach(cacheName -> cacheManager.getCache(cacheName).clear());
+    }
+
+    @Test
+    @DisplayName("Should refresh a cached product and its pages after a write that bypasses the service")
+    void shouldApplyDirectUpdate() {
+        // Arrange
+        ProductDto product = createProduct("Before Fix");
+        productService.getProducts(null, 100);
+        assertThat(cacheManager.getCache("products").get(product.getId())).isNotNull();
+
+        // Act
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(product.getId())),
+                Update.update("name", "After Fix"), Product.class);
+
+        // Assert
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> {
+            ProductDto cached = cacheManager.getCache("products").get(product.getId(), ProductDto.class);
+            assertThat(cached).isNotNull();
+            assertThat(cached.getName()).isEqualTo("After Fix");
+            // Pages are evicted right after the product is refreshed
+            assertThat(cacheManager.getCache(ProductPageCache.CACHE_NAME).get("first:100")).isNull();
+        });
+        assertThat(productService.getProducts(null, 100).getItems())
+                .filteredOn(item -> item.getId().equals(product.getId()))
+                .extracting(ProductDto::getName)
+                .containsExactly("After Fix");
+    }
+
+    @Test
+    @DisplayName("Should evict a product deleted outside the service and save the resume token")
+    void shouldApplyDirectDelete() {
+        // Arrange
+        ProductDto product = createProduct("Deleted In Shell");
+
+        // Act
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(product.getId())), Product.class);
+
+        // Assert
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> cacheManager.getCache("products").get(product.getId()) == null);
+        await().atMost(Duration.ofSeconds(10))
+                .until(() -> redisTemplate.hasKey("products:change-stream:resume-token"));
+    }
+
+    private ProductDto createProduct(String name) {
+        ProductDto product = new ProductDto();
+        product.setName(name);
+        product.setType("Change Stream");
+        return productService.createProduct(product);
+    }
+}
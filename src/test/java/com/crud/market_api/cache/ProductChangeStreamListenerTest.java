@@ -0,0 +1,93 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductChangeStreamListenerTest {
+
+    private static final String ID = "507f1f77bcf86cd799439011";
+
+    private ConcurrentMapCache productCache;
+    private ProductPageCache productPageCache;
+    private SimpleMeterRegistry meterRegistry;
+    private ProductChangeStreamListener listener;
+
+    @BeforeEach
+    void setUp() {
+        productCache = new ConcurrentMapCache("products");
+        productPageCache = mock(ProductPageCache.class);
+        meterRegistry = new SimpleMeterRegistry();
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache("products")).thenReturn(productCache);
+        listener = new ProductChangeStreamListener(mock(MongoTemplate.class), mock(StringRedisTemplate.class),
+                cacheManager, productPageCache, new MarketCacheProperties(), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should refresh a cached product changed outside the service, even without a version bump")
+    void shouldRefreshChangedProduct() {
+        // Arrange
+        productCache.put(ID, product("Smartphone", 3L));
+
+        // Act
+        listener.apply(update("Feature phone", 3L));
+
+        // Assert
+        assertThat(productCache.get(ID, ProductDto.class).getName()).isEqualTo("Feature phone");
+        verify(productPageCache).evictProducts(anyCollection());
+    }
+
+    @Test
+    @DisplayName("Should keep a cached product that is newer than the change")
+    void shouldSkipOutdatedChange() {
+        // Arrange
+        productCache.put(ID, product("Smartphone Pro", 5L));
+
+        // Act
+        listener.apply(update("Smartphone", 4L));
+
+        // Assert
+        assertThat(productCache.get(ID, ProductDto.class).getVersion()).isEqualTo(5L);
+        verify(productPageCache, never()).evictProducts(anyCollection());
+        assertThat(meterRegistry.get("product.change_stream.events").tag("action", "outdated").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ChangeStreamDocument<Document> update(String name, long version) {
+        ChangeStreamDocument<Document> event = mock(ChangeStreamDocument.class);
+        when(event.getOperationType()).thenReturn(OperationType.UPDATE);
+        when(event.getFullDocument()).thenReturn(new Document("_id", ID)
+                .append("name", name)
+                .append("type", "Electronics")
+                .append("version", version));
+        return event;
+    }
+
+    private static ProductDto product(String name, long version) {
+        ProductDto product = new ProductDto();
+        product.setId(ID);
+        product.setName(name);
+        product.setType("Electronics");
+        product.setVersion(version);
+        return product;
+    }
+}
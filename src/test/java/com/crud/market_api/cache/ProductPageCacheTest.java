@@ -0,0 +1,114 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductPageDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ProductPageCacheTest {
+
+    private StringRedisTemplate redisTemplate;
+    private ZSetOperations<String, String> zSetOperations;
+    private Cache pages;
+    private RedisCacheBatchOperations batchOperations;
+    private ProductPageCache productPageCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MarketCacheProperties properties = new MarketCacheProperties();
+        properties.getPages().setMaxNamePrefixLength(5);
+        properties.getPages().setMaxIndexedPages(2);
+        redisTemplate = mock(StringRedisTemplate.class);
+        zSetOperations = mock(ZSetOperations.class);
+        when(redisTemplate.opsForZSet()).thenReturn(zSetOperations);
+        pages = mock(Cache.class);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache(ProductPageCache.CACHE_NAME)).thenReturn(pages);
+        CachePolicies cachePolicies = new CachePolicies(properties, new HotKeyTracker(redisTemplate, properties));
+        batchOperations = mock(RedisCacheBatchOperations.class);
+        productPageCache = new ProductPageCache(cacheManager, batchOperations, redisTemplate,
+                cachePolicies, new RedisCircuitBreaker(properties, redisTemplate, cachePolicies, null), properties);
+    }
+
+    @Test
+    @DisplayName("Should neither look up nor cache the pages of an overlong name prefix")
+    void shouldSkipOverlongPrefix() {
+        // Arrange
+        ProductPageCache.Scope scope = ProductPageCache.Scope.namePrefix("Smartphone");
+
+        // Act
+        productPageCache.get(scope, null, 20);
+        productPageCache.put(scope, null, 20, new ProductPageDto(List.of(), null));
+
+        // Assert
+        verifyNoInteractions(pages);
+    }
+
+    @Test
+    @DisplayName("Should not cache the pages of a prefix once the limit of prefixes is reached")
+    @SuppressWarnings("unchecked")
+    void shouldSkipPrefixBeyondLimit() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(false);
+
+        // Act
+        productPageCache.put(ProductPageCache.Scope.namePrefix("Smart"), null, 20, new ProductPageDto(List.of(), null));
+
+        // Assert
+        verify(redisTemplate).execute(eq(ProductPageCache.REGISTER_NAME_PREFIX),
+                eq(List.of(ProductPageCache.NAME_PREFIXES_KEY)), any(Object[].class));
+        verify(pages, never()).put(any(), any());
+        verify(zSetOperations, never()).add(anyString(), anyString(), anyDouble());
+    }
+
+    @Test
+    @DisplayName("Should cache and index the pages of a registered prefix")
+    @SuppressWarnings("unchecked")
+    void shouldCacheRegisteredPrefix() {
+        // Arrange
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class))).thenReturn(true);
+
+        // Act
+        productPageCache.put(ProductPageCache.Scope.namePrefix("Smart"), null, 20, new ProductPageDto(List.of(), null));
+
+        // Assert
+        verify(pages).put("name_prefix:Smart:first:20", new ProductPageDto(List.of(), null));
+        verify(zSetOperations).add("productPages:index:name_prefix:Smart", "~|name_prefix:Smart:first:20", 0);
+    }
+
+    @Test
+    @DisplayName("Should evict random pages with their index entries once a scope indexes too many")
+    void shouldTrimFullIndex() {
+        // Arrange
+        when(zSetOperations.zCard("productPages:index")).thenReturn(3L);
+        when(zSetOperations.distinctRandomMembers("productPages:index", 1)).thenReturn(Set.of("65a1|first:20"));
+
+        // Act
+        productPageCache.put("65a2", 20, new ProductPageDto(List.of(), null));
+
+        // Assert
+        verify(zSetOperations).remove("productPages:index", "65a1|first:20");
+        verify(batchOperations).evictAll(pages, List.of("first:20"));
+    }
+}
@@ -0,0 +1,117 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductWriteBehindQueueTest {
+
+    private StreamOperations<String, String, String> stream;
+    private BulkOperations bulk;
+    private ProductWriteBehindQueue queue;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        MarketCacheProperties properties = new MarketCacheProperties();
+        properties.getWriteBehind().setConsumerName("node-1");
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        stream = mock(StreamOperations.class);
+        when(redisTemplate.<String, String>opsForStream()).thenReturn(stream);
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulk);
+        queue = new ProductWriteBehindQueue(redisTemplate, mongoTemplate, mock(ProductPageCache.class), properties,
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    @DisplayName("Should queue the id, values and version of an update")
+    @SuppressWarnings("unchecked")
+    void shouldEnqueueUpdate() {
+        // Arrange
+        ArgumentCaptor<MapRecord<String, String, String>> record = ArgumentCaptor.forClass(MapRecord.class);
+
+        // Act
+        queue.enqueue(product("1", "Apple", 3L));
+
+        // Assert
+        verify(stream).add(record.capture());
+        assertThat(record.getValue().getStream()).isEqualTo("products:write-behind");
+        assertThat(record.getValue().getValue())
+                .containsEntry("id", "1")
+                .containsEntry("name", "Apple")
+                .containsEntry("version", "3");
+    }
+
+    @Test
+    @DisplayName("Should write the last queued state per id, only over older documents")
+    @SuppressWarnings("unchecked")
+    void shouldFlushLastStateOverOlderDocuments() {
+        // Arrange
+        List<MapRecord<String, String, String>> records = List.of(
+                record("1-0", "1", "Apple", 2),
+                record("2-0", "2", "Pear", 5),
+                record("3-0", "1", "Green Apple", 3));
+        when(stream.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class))).thenReturn(records);
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+
+        // Act
+        int flushed = queue.flush();
+
+        // Assert
+        assertThat(flushed).isEqualTo(3);
+        verify(bulk, times(2)).updateOne(queries.capture(), updates.capture());
+        assertThat(queries.getAllValues().get(0).getQueryObject().toJson())
+                .contains("\"_id\": \"1\"")
+                .contains("\"version\": {\"$lt\": 3}")
+                .contains("\"version\": {\"$exists\": false}");
+        assertThat(updates.getAllValues().get(0).getUpdateObject().toJson()).contains("\"name\": \"Green Apple\"");
+        verify(bulk).execute();
+        verify(stream).acknowledge(eq("products:write-behind"), eq("product-writers"), any(RecordId[].class));
+    }
+
+    private static MapRecord<String, String, String> record(String recordId, String id, String name, long version) {
+        return StreamRecords.mapBacked(Map.of("id", id, "name", name, "type", "Fruit", "version", String.valueOf(version)))
+                .withStreamKey("products:write-behind")
+                .withId(RecordId.of(recordId));
+    }
+
+    private static ProductDto product(String id, String name, long version) {
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        product.setName(name);
+        product.setType("Fruit");
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,116 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.exception.VersionConflictException;
+import com.crud.market_api.model.dto.ProductDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisScriptingCommands;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.util.ByteUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RedisCacheBatchOperationsTest {
+
+    private RedisCacheConfiguration config;
+    private RedisStringCommands stringCommands;
+    private RedisScriptingCommands scriptingCommands;
+    private RedisCache redisCache;
+    private RedisCacheBatchOperations batchOperations;
+
+    @BeforeEach
+    void setUp() {
+        MarketCacheProperties properties = new MarketCacheProperties();
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        CachePolicies cachePolicies = new CachePolicies(properties, new HotKeyTracker(redisTemplate, properties));
+        config = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair.fromSerializer(new GenericJackson2JsonRedisSerializer()));
+        redisCache = mock(RedisCache.class);
+        when(redisCache.getName()).thenReturn("products");
+        when(redisCache.getCacheConfiguration()).thenReturn(config);
+
+        stringCommands = mock(RedisStringCommands.class);
+        scriptingCommands = mock(RedisScriptingCommands.class);
+        RedisConnection connection = mock(RedisConnection.class);
+        when(connection.stringCommands()).thenReturn(stringCommands);
+        when(connection.scriptingCommands()).thenReturn(scriptingCommands);
+        when(redisTemplate.execute(ArgumentMatchers.<RedisCallback<Object>>any())).thenAnswer(invocation ->
+                invocation.<RedisCallback<?>>getArgument(0).doInRedis(connection));
+
+        batchOperations = new RedisCacheBatchOperations(redisTemplate, cachePolicies,
+                new RedisCircuitBreaker(properties, redisTemplate, cachePolicies, null));
+    }
+
+    @Test
+    @DisplayName("Should apply the change again to the entry another writer replaced in between")
+    void shouldRetryCompareAndSetOnConcurrentWrite() {
+        // Arrange
+        byte[] first = serialize(product(1L, "Apple"));
+        byte[] concurrent = serialize(product(2L, "Pear"));
+        when(stringCommands.get(any(byte[].class))).thenReturn(first, concurrent);
+        when(scriptingCommands.eval(any(byte[].class), eq(ReturnType.BOOLEAN), eq(1), any(byte[][].class)))
+                .thenReturn(false, true);
+        List<Long> seenVersions = new ArrayList<>();
+
+        // Act
+        ProductDto updated = batchOperations.compareAndUpdate(redisCache, "1", ProductDto.class, () -> null, current -> {
+            seenVersions.add(current.getVersion());
+            return product(current.getVersion() + 1, "Plum");
+        });
+
+        // Assert
+        assertThat(seenVersions).containsExactly(1L, 2L);
+        assertThat(updated.getVersion()).isEqualTo(3L);
+        verify(scriptingCommands, times(2)).eval(any(byte[].class), eq(ReturnType.BOOLEAN), eq(1), any(byte[][].class));
+    }
+
+    @Test
+    @DisplayName("Should load a missing entry and write nothing when the change is rejected")
+    void shouldAbortWhenChangeThrows() {
+        // Arrange
+        when(stringCommands.get(any(byte[].class))).thenReturn(null);
+
+        // Act & Assert
+        assertThatThrownBy(() -> batchOperations.compareAndUpdate(redisCache, "1", ProductDto.class,
+                () -> product(4L, "Apple"), current -> {
+                    throw new VersionConflictException("Product 1 is at version " + current.getVersion() + ", not 3");
+                })).isInstanceOf(VersionConflictException.class).hasMessageContaining("version 4");
+        verify(scriptingCommands, never()).eval(any(byte[].class), any(ReturnType.class), anyInt(), any(byte[][].class));
+    }
+
+    private byte[] serialize(ProductDto product) {
+        return ByteUtils.getBytes(config.getValueSerializationPair().write(product));
+    }
+
+    private static ProductDto product(long version, String name) {
+        ProductDto product = new ProductDto();
+        product.setId("1");
+        product.setName(name);
+        product.setType("Fruit");
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,115 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.redis.connection.RedisPipelineException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class RedisCircuitBreakerTest {
+
+    private MarketCacheProperties properties;
+    private StringRedisTemplate redisTemplate;
+    private CachePolicies cachePolicies;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MarketCacheProperties();
+        properties.getCircuitBreaker().setWindowSize(10);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        properties.getCircuitBreaker().setHalfOpenCalls(2);
+        redisTemplate = mock(StringRedisTemplate.class);
+        cachePolicies = new CachePolicies(properties, new HotKeyTracker(redisTemplate, properties));
+    }
+
+    @Test
+    @DisplayName("Should open after failing calls and skip Redis while open")
+    void shouldOpenAfterFailures() {
+        // Arrange
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(properties, redisTemplate, cachePolicies, null);
+        AtomicInteger redisCalls = new AtomicInteger();
+
+        // Act
+        for (int i = 0; i < 4; i++) {
+            breaker.call(() -> {
+                redisCalls.incrementAndGet();
+                throw new QueryTimeoutException("timeout");
+            }, () -> "fallback");
+        }
+        String result = breaker.call(() -> {
+            redisCalls.incrementAndGet();
+            return "redis";
+        }, () -> "fallback");
+
+        // Assert
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+        assertThat(result).isEqualTo("fallback");
+        assertThat(redisCalls).hasValue(4);
+    }
+
+    @Test
+    @DisplayName("Should count a timeout ending a pipeline as a failure and fall back")
+    void shouldFallBackOnPipelinedTimeout() {
+        // Arrange
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(properties, redisTemplate, cachePolicies, null);
+        QueryTimeoutException timeout = new QueryTimeoutException("Redis command timed out");
+
+        // Act
+        String result = null;
+        for (int i = 0; i < 4; i++) {
+            result = breaker.call(() -> {
+                throw new RedisPipelineException(timeout, List.of(timeout));
+            }, () -> "fallback");
+        }
+
+        // Assert
+        assertThat(result).isEqualTo("fallback");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.OPEN);
+    }
+
+    @Test
+    @DisplayName("Should close again once the half-open calls succeed")
+    void shouldCloseAfterHalfOpenSuccesses() {
+        // Arrange
+        properties.getCircuitBreaker().setOpenDuration(Duration.ZERO);
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(properties, redisTemplate, cachePolicies, null);
+        for (int i = 0; i < 4; i++) {
+            breaker.call(() -> {
+                throw new QueryTimeoutException("timeout");
+            }, () -> null);
+        }
+
+        // Act
+        breaker.call(() -> "redis", () -> "fallback");
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.HALF_OPEN);
+        breaker.call(() -> "redis", () -> "fallback");
+
+        // Assert
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+
+    @Test
+    @DisplayName("Should propagate errors Redis answered with and stay closed")
+    void shouldPropagateOtherErrors() {
+        // Arrange
+        RedisCircuitBreaker breaker = new RedisCircuitBreaker(properties, redisTemplate, cachePolicies, null);
+
+        // Act & Assert
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> breaker.call(() -> {
+                throw new IllegalStateException("WRONGTYPE");
+            }, () -> "fallback")).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(breaker.getState()).isEqualTo(RedisCircuitBreaker.State.CLOSED);
+    }
+}
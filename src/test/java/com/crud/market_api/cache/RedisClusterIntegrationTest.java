@@ -0,0 +1,171 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.service.ProductService;
+import io.lettuce.core.internal.HostAndPort;
+import io.lettuce.core.resource.DnsResolvers;
+import io.lettuce.core.resource.MappingSocketAddressResolver;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.data.redis.ClientResourcesBuilderCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.data.redis.connection.ClusterSlotHashUtil;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.containers.wait.strategy.Wait;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+// Replicas lag behind the masters, reads of fresh writes are awaited
+@SpringBootTest(properties = {
+        "market.cache.cluster.hash-tags=true",
+        "market.cache.cluster.read-from=replicaPreferred",
+        "market.cache.local.enabled=false",
+        "market.cache.warm-up.enabled=false"
+})
+@Testcontainers
+class RedisClusterIntegrationTest {
+
+    private static final int FIRST_NODE_PORT = 7000;
+    private static final int NODES = 6;
+
+    @Container
+    static final MongoDBContainer mongo = new MongoDBContainer("mongo:7.0");
+
+    // Three masters with one replica each, the nodes listen on 7000-7005 inside one container
+    @Container
+    static final GenericContainer<?> cluster = new GenericContainer<>("grokzen/redis-cluster:7.0.10")
+            .withEnv("IP", "0.0.0.0")
+            .withExposedPorts(IntStream.range(FIRST_NODE_PORT, FIRST_NODE_PORT + NODES).boxed().toArray(Integer[]::new))
+            .waitingFor(Wait.forLogMessage(".*All 16384 slots covered.*", 1));
+
+    @DynamicPropertySource
+    static void containerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", () -> mongo.getReplicaSetUrl("marketdb_test"));
+        registry.add("spring.data.redis.cluster.nodes", () -> "127.0.0.1:" + FIRST_NODE_PORT);
+    }
+
+    @TestConfiguration
+    static class ClusterAddresses {
+
+        // The nodes announce their ports inside the container, reach them through the mapped ones
+        @Bean
+        ClientResourcesBuilderCustomizer clusterAddressMapping() {
+            return builder -> builder.socketAddressResolver(MappingSocketAddressResolver.create(DnsResolvers.JVM_DEFAULT,
+                    node -> isNodePort(node.getPort())
+                            ? HostAndPort.of(cluster.getHost(), cluster.getMappedPort(node.getPort()))
+                            : node));
+        }
+
+        private static boolean isNodePort(int port) {
+            return port >= FIRST_NODE_PORT && port < FIRST_NODE_PORT + NODES;
+        }
+    }
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RedisCacheBatchOperations batchOperations;
+
+    @Autowired
+    private CachePolicies cachePolicies;
+
+    @Autowired
+    private StringRedisTemplate redisTemplate;
+
+    @BeforeEach
+    void setUp() {
+        cacheManager.getCacheNames()
+                .forEach(cacheName -> cacheManager.getCache(cacheName).clear());
+    }
+
+    @Test
+    @DisplayName("Should read and write a batch of products spread over several slots")
+    void shouldBatchAcrossSlots() {
+        // Arrange
+        List<String> ids = createProducts(40, "Cluster");
+        assertThat(ids.stream().map(id -> ClusterSlotHashUtil.calculateSlot(cachePolicies.redisKey("products", id))).distinct())
+                .hasSizeGreaterThan(1);
+        Cache redisCache = remote(cacheManager.getCache("products"));
+
+        // Act & Assert
+        await().atMost(Duration.ofSeconds(10))
+                .untilAsserted(() -> assertThat(batchOperations.getAll(redisCache, ids)).containsOnlyKeys(ids));
+        batchOperations.evictAll(redisCache, ids);
+        await().atMost(Duration.ofSeconds(10))
+                .untilAsserted(() -> assertThat(batchOperations.getAll(redisCache, ids)).isEmpty());
+        assertThat(productService.findAllByIds(ids)).extracting(ProductDto::getId).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    @DisplayName("Should clear a cache on every master")
+    void shouldClearEveryMaster() {
+        // Arrange
+        List<String> ids = createProducts(40, "Clear");
+
+        // Act
+        cacheManager.getCache("products").clear();
+
+        // Assert
+        await().atMost(Duration.ofSeconds(10)).untilAsserted(() -> assertThat(ids)
+                .noneMatch(id -> redisTemplate.hasKey(cachePolicies.redisKey("products", id))));
+    }
+
+    @Test
+    @DisplayName("Should evict the pages of a scope that contain an updated product")
+    void shouldEvictScopePages() {
+        // Arrange
+        ProductDto product = createProduct("Paged", "Cluster Pages");
+        productService.getProductsByType("Cluster Pages", null, 20);
+        String pageKey = cachePolicies.redisKey(ProductPageCache.CACHE_NAME,
+                ProductPageCache.key(ProductPageCache.Scope.type("Cluster Pages"), null, 20));
+        await().atMost(Duration.ofSeconds(10)).until(() -> redisTemplate.hasKey(pageKey));
+
+        // Act
+        product.setName("Paged Again");
+        productService.updateProduct(product);
+
+        // Assert
+        await().atMost(Duration.ofSeconds(10)).until(() -> !redisTemplate.hasKey(pageKey));
+    }
+
+    private List<String> createProducts(int count, String type) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(createProduct(type + " " + i, type).getId());
+        }
+        return ids;
+    }
+
+    private ProductDto createProduct(String name, String type) {
+        ProductDto product = new ProductDto();
+        product.setName(name);
+        product.setType(type);
+        return productService.createProduct(product);
+    }
+
+    private static Cache remote(Cache cache) {
+        return cache instanceof TwoLevelCache twoLevelCache ? twoLevelCache.getRemote() : cache;
+    }
+}
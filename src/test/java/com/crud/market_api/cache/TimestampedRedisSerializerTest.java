@@ -0,0 +1,77 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimestampedRedisSerializerTest {
+
+    private static final Instant WRITTEN_AT = Instant.parse("2026-01-01T10:00:00Z");
+
+    private final CompactRedisSerializer compactSerializer = new CompactRedisSerializer(1024);
+
+    @Test
+    @DisplayName("Should round trip a value with its write time and read values written without one")
+    void shouldRoundTripWriteTime() {
+        // Arrange
+        TimestampedRedisSerializer serializer = new TimestampedRedisSerializer(compactSerializer, true,
+                Clock.fixed(WRITTEN_AT, ZoneOffset.UTC));
+        ProductDto product = product();
+
+        // Act
+        byte[] stamped = serializer.serialize(product);
+        byte[] unstamped = compactSerializer.serialize(product);
+
+        // Assert
+        assertThat(serializer.deserialize(stamped)).isEqualTo(product);
+        assertThat(TimestampedRedisSerializer.writtenAt(stamped)).isEqualTo(WRITTEN_AT);
+        assertThat(serializer.deserialize(unstamped)).isEqualTo(product);
+        assertThat(TimestampedRedisSerializer.writtenAt(unstamped)).isNull();
+    }
+
+    @Test
+    @DisplayName("Should flag an entry as stale by its age, whatever TTL it was written with")
+    void shouldFlagStaleByAge() {
+        // Arrange
+        MarketCacheProperties properties = new MarketCacheProperties();
+        properties.getStampede().setSoftTtl(Duration.ofMinutes(5));
+        RedisCacheBatchOperations batchOperations = mock(RedisCacheBatchOperations.class);
+        CacheLoadCoordinator coordinator = new CacheLoadCoordinator(null, batchOperations, null, properties);
+        Cache remote = mock(Cache.class);
+        ProductDto product = product();
+        when(batchOperations.getWithWriteTime(any(Cache.class), eq("fresh")))
+                .thenReturn(new RedisCacheBatchOperations.TimedValue(product, Instant.now().minusSeconds(60)));
+        when(batchOperations.getWithWriteTime(any(Cache.class), eq("old")))
+                .thenReturn(new RedisCacheBatchOperations.TimedValue(product, Instant.now().minusSeconds(600)));
+        when(batchOperations.getWithWriteTime(any(Cache.class), eq("unknown")))
+                .thenReturn(new RedisCacheBatchOperations.TimedValue(product, null));
+
+        // Act & Assert
+        assertThat(coordinator.readRemote(remote, "fresh").stale()).isFalse();
+        assertThat(coordinator.readRemote(remote, "old").stale()).isTrue();
+        assertThat(coordinator.readRemote(remote, "unknown").stale()).isFalse();
+        coordinator.destroy();
+    }
+
+    private static ProductDto product() {
+        ProductDto product = new ProductDto();
+        product.setId("507f1f77bcf86cd799439011");
+        product.setName("Smartphone");
+        product.setType("Electronics");
+        product.setVersion(3L);
+        return product;
+    }
+}
@@ -0,0 +1,170 @@
+package com.crud.market_api.cache;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class TwoLevelCacheTest {
+
+    private StringRedisTemplate redisTemplate;
+    private ConcurrentMapCache remote;
+    private CacheInvalidationBus invalidationBus;
+    private TwoLevelCache cache;
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate = mock(StringRedisTemplate.class);
+        remote = new ConcurrentMapCache("products");
+        MarketCacheProperties properties = new MarketCacheProperties();
+        CachePolicies cachePolicies = new CachePolicies(properties, new HotKeyTracker(redisTemplate, properties));
+        RedisCircuitBreaker circuitBreaker = new RedisCircuitBreaker(properties, redisTemplate, cachePolicies, null);
+        invalidationBus = new CacheInvalidationBus(redisTemplate, "invalidation", circuitBreaker);
+        CacheLoadCoordinator loadCoordinator = new CacheLoadCoordinator(redisTemplate,
+                new RedisCacheBatchOperations(redisTemplate, cachePolicies, circuitBreaker), circuitBreaker, properties);
+        cache = new TwoLevelCache("products", Caffeine.newBuilder().maximumSize(100).build(), remote,
+                invalidationBus, loadCoordinator);
+        invalidationBus.register(cache);
+    }
+
+    @Test
+    @DisplayName("Should serve repeated reads from the local tier")
+    void shouldServeRepeatedReadsLocally() {
+        // Arrange
+        remote.put("1", "value");
+
+        // Act
+        cache.get("1");
+        cache.get("1");
+
+        // Assert
+        assertThat(cache.getRemoteHits()).isEqualTo(1);
+        assertThat(cache.getLocalHits()).isEqualTo(1);
+        assertThat(cache.getLocalMisses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count misses on both tiers")
+    void shouldCountMisses() {
+        assertThat(cache.get("missing")).isNull();
+
+        assertThat(cache.getLocalMisses()).isEqualTo(1);
+        assertThat(cache.getRemoteMisses()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should write both tiers and broadcast the invalidation")
+    void shouldWriteThroughAndPublish() {
+        cache.put("1", "value");
+
+        assertThat(remote.get("1").get()).isEqualTo("value");
+        assertThat(cache.get("1").get()).isEqualTo("value");
+        assertThat(cache.getLocalHits()).isEqualTo(1);
+        verify(redisTemplate).convertAndSend(eq("invalidation"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should drop the local entry when another node changes it")
+    void shouldEvictLocalEntryOnRemoteMessage() {
+        // Arrange
+        cache.put("1", "old");
+        remote.put("1", "new");
+
+        // Act
+        invalidationBus.onMessage(message("E|other-node|products|1"), null);
+
+        // Assert
+        assertThat(cache.get("1").get()).isEqualTo("new");
+        assertThat(cache.getRemoteHits()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should clear the local tier when another node clears the cache")
+    void shouldClearLocalTierOnRemoteMessage() {
+        cache.put("1", "value");
+
+        invalidationBus.onMessage(message("C|other-node|products|"), null);
+
+        assertThat(cache.getLocalSize()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep the local copy of a product when callers change theirs")
+    void shouldIsolateLocalEntryFromCallers() {
+        // Arrange
+        ProductDto product = new ProductDto();
+        product.setId("1");
+        product.setName("Smartphone");
+        cache.put("1", product);
+
+        // Act
+        product.setName("Changed after put");
+        cache.get("1", ProductDto.class).setName("Changed after get");
+
+        // Assert
+        assertThat(cache.get("1", ProductDto.class).getName()).isEqualTo("Smartphone");
+        assertThat(cache.getLocalHits()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should load a missing key once for concurrent callers")
+    void shouldCoalesceConcurrentLoads() throws Exception {
+        // Arrange
+        int callers = 16;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch arrived = new CountDownLatch(callers);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+
+        // Act
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                arrived.countDown();
+                return cache.get("1", () -> {
+                    loads.incrementAndGet();
+                    loading.countDown();
+                    release.await();
+                    return "value";
+                });
+            }));
+        }
+        // A caller arriving after the load finished reads its result from the cache, so the count holds either way
+        assertThat(arrived.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+        release.countDown();
+
+        // Assert
+        for (Future<String> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("value");
+        }
+        assertThat(loads.get()).isEqualTo(1);
+        executor.shutdown();
+    }
+
+    private static DefaultMessage message(String body) {
+        return new DefaultMessage("invalidation".getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -1,4 +1,38 @@
 package com.crud.market_api.config;
 
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
 public class RedisConfigTest {
+
+    @Test
+    @DisplayName("Should refuse replica reads while the local tier is enabled")
+    void shouldRejectReplicaReadsWithLocalTier() {
+        // Arrange
+        MarketCacheProperties properties = new MarketCacheProperties();
+        properties.getCluster().setReadFrom("replicaPreferred");
+
+        // Act & Assert
+        assertThatThrownBy(() -> new RedisConfig().redisReadFromCustomizer(properties))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("market.cache.local.enabled=false");
+    }
+
+    @Test
+    @DisplayName("Should allow replica reads without the local tier and upstream reads with it")
+    void shouldAllowReplicaReadsWithoutLocalTier() {
+        // Arrange
+        MarketCacheProperties replicaReads = new MarketCacheProperties();
+        replicaReads.getCluster().setReadFrom("replicaPreferred");
+        replicaReads.getLocal().setEnabled(false);
+        MarketCacheProperties upstreamReads = new MarketCacheProperties();
+        upstreamReads.getCluster().setReadFrom("upstream");
+
+        // Act & Assert
+        assertThat(new RedisConfig().redisReadFromCustomizer(replicaReads)).isNotNull();
+        assertThat(new RedisConfig().redisReadFromCustomizer(upstreamReads)).isNotNull();
+    }
 }
@@ -0,0 +1,113 @@
+package com.crud.market_api.controller;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+
+class CachedResponsesTest {
+
+    @Test
+    @DisplayName("Should serialize a product once per content and answer its tag with 304")
+    void shouldReuseBodyAndAnswerNotModified() {
+        // Arrange
+        CachedResponses responses = new CachedResponses(new ObjectMapper(), new MarketCacheProperties());
+        ProductDto product = product(4L);
+
+        // Act
+        ResponseEntity<byte[]> first = responses.product(product, null);
+        ResponseEntity<byte[]> second = responses.product(product(4L), null);
+        String etag = first.getHeaders().getETag();
+        ResponseEntity<byte[]> revalidated = responses.product(product, "W/\"3\", " + etag);
+
+        // Assert
+        assertThat(etag).matches("\"4-[0-9a-f]{16}\"");
+        assertThat(second.getBody()).isSameAs(first.getBody());
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidated.getBody()).isNull();
+        assertThat(responses.product(product, "\"4\"").getStatusCode()).isEqualTo(HttpStatus.OK);
+    }
+
+    @Test
+    @DisplayName("Should keep the tag with the body and not recompute it for cached content")
+    void shouldNotRecomputeTagOfCachedContent() {
+        // Arrange
+        CachedResponses responses = new CachedResponses(new ObjectMapper(), new MarketCacheProperties());
+        String etag = responses.product(product(4L), null).getHeaders().getETag();
+        responses.page(new ProductPageDto(List.of(product(4L)), null), null);
+
+        try (MockedStatic<ProductETags> etags = mockStatic(ProductETags.class, CALLS_REAL_METHODS)) {
+            // Act
+            ResponseEntity<byte[]> revalidated = responses.product(product(4L), etag);
+            ResponseEntity<byte[]> page = responses.page(new ProductPageDto(List.of(product(4L)), null), null);
+
+            // Assert
+            assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+            assertThat(page.getStatusCode()).isEqualTo(HttpStatus.OK);
+            etags.verify(() -> ProductETags.of(any(ProductDto.class)), never());
+        }
+    }
+
+    @Test
+    @DisplayName("Should change the tag and body of a product changed without a version bump")
+    void shouldTagContentChangeWithoutVersionBump() {
+        // Arrange
+        CachedResponses responses = new CachedResponses(new ObjectMapper(), new MarketCacheProperties());
+        ProductDto product = product(0L);
+        ResponseEntity<byte[]> before = responses.product(product, null);
+
+        // Act
+        product.setName("Feature phone");
+        ResponseEntity<byte[]> after = responses.product(product, before.getHeaders().getETag());
+
+        // Assert
+        assertThat(after.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(after.getHeaders().getETag()).isNotEqualTo(before.getHeaders().getETag());
+        assertThat(new String(after.getBody(), StandardCharsets.UTF_8)).contains("Feature phone");
+        assertThat(ProductETags.expectedVersion(after.getHeaders().getETag())).isZero();
+    }
+
+    @Test
+    @DisplayName("Should tag pages by content and set the configured Cache-Control")
+    void shouldTagPagesByContent() {
+        // Arrange
+        MarketCacheProperties properties = new MarketCacheProperties();
+        properties.getHttp().setMaxAge(Duration.ofSeconds(5));
+        properties.getHttp().setSharedMaxAge(Duration.ofSeconds(30));
+        CachedResponses responses = new CachedResponses(new ObjectMapper(), properties);
+
+        // Act
+        ResponseEntity<byte[]> page = responses.page(new ProductPageDto(List.of(product(1L)), null), null);
+        ResponseEntity<byte[]> samePage = responses.page(new ProductPageDto(List.of(product(1L)), null), null);
+        ResponseEntity<byte[]> changedPage = responses.page(new ProductPageDto(List.of(product(2L)), null), null);
+
+        // Assert
+        assertThat(samePage.getHeaders().getETag()).isEqualTo(page.getHeaders().getETag());
+        assertThat(changedPage.getHeaders().getETag()).isNotEqualTo(page.getHeaders().getETag());
+        assertThat(page.getHeaders().getCacheControl()).isEqualTo("max-age=5, public, s-maxage=30");
+    }
+
+    private static ProductDto product(long version) {
+        ProductDto product = new ProductDto();
+        product.setId("507f1f77bcf86cd799439011");
+        product.setName("Smartphone");
+        product.setType("Electronics");
+        product.setVersion(version);
+        return product;
+    }
+}
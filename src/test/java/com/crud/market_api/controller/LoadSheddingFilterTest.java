@@ -0,0 +1,106 @@
+package com.crud.market_api.controller;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LoadSheddingFilterTest {
+
+    private MarketCacheProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MarketCacheProperties();
+        properties.getLoadShedding().setMinLimit(1);
+        properties.getLoadShedding().setRetryAfter(Duration.ofSeconds(2));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should shrink the limit while requests are slower than the target")
+    void shouldShrinkLimitAboveTargetLatency() throws ServletException, IOException {
+        // Arrange
+        properties.getLoadShedding().setInitialLimit(100);
+        properties.getLoadShedding().setTargetLatency(Duration.ofNanos(1));
+        LoadSheddingFilter filter = filter();
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            filter.doFilter(request("/api/products/1"), new MockHttpServletResponse(), (request, response) -> { });
+        }
+
+        // Assert
+        assertThat(limit()).isLessThan(50.0);
+        assertThat(meterRegistry.get("http.load_shedding.in_flight").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should answer 503 with Retry-After above the limit and hold async requests until they complete")
+    void shouldShedAboveLimit() throws ServletException, IOException {
+        // Arrange
+        properties.getLoadShedding().setInitialLimit(1);
+        LoadSheddingFilter filter = filter();
+        MockHttpServletRequest export = request("/api/products/export");
+        FilterChain startAsync = (request, response) -> request.startAsync();
+        filter.doFilter(export, new MockHttpServletResponse(), startAsync);
+
+        // Act
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        filter.doFilter(request("/api/products/1"), shed, (request, response) -> { });
+        export.getAsyncContext().complete();
+        MockHttpServletResponse admitted = new MockHttpServletResponse();
+        filter.doFilter(request("/api/products/1"), admitted, (request, response) -> { });
+
+        // Assert
+        assertThat(shed.getStatus()).isEqualTo(503);
+        assertThat(shed.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(shed.getContentAsString()).contains("\"status\":503");
+        assertThat(admitted.getStatus()).isEqualTo(200);
+        assertThat(meterRegistry.get("http.load_shedding.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should leave paths outside /api/products alone")
+    void shouldOnlyFilterProductPaths() throws ServletException, IOException {
+        // Arrange
+        properties.getLoadShedding().setInitialLimit(1);
+        LoadSheddingFilter filter = filter();
+        filter.doFilter(request("/api/products/export"), new MockHttpServletResponse(),
+                (request, response) -> request.startAsync());
+
+        // Act
+        MockHttpServletResponse other = new MockHttpServletResponse();
+        filter.doFilter(request("/api/productsX"), other, (request, response) -> { });
+
+        // Assert
+        assertThat(other.getStatus()).isEqualTo(200);
+    }
+
+    private LoadSheddingFilter filter() {
+        return new LoadSheddingFilter(properties, Jackson2ObjectMapperBuilder.json().build(), meterRegistry);
+    }
+
+    private double limit() {
+        return meterRegistry.get("http.load_shedding.limit").gauge().value();
+    }
+
+    private static MockHttpServletRequest request(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        request.setAsyncSupported(true);
+        return request;
+    }
+}
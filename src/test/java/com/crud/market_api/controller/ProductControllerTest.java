@@ -0,0 +1,74 @@
+package com.crud.market_api.controller;
+
+import com.crud.market_api.cache.HotKeyTracker;
+import com.crud.market_api.exception.GlobalExceptionHandler;
+import com.crud.market_api.model.dto.BulkItemResultDto;
+import com.crud.market_api.model.dto.BulkOperationType;
+import com.crud.market_api.model.dto.BulkResponseDto;
+import com.crud.market_api.service.ProductBulkService;
+import com.crud.market_api.service.ProductService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class ProductControllerTest {
+
+    private ProductBulkService productBulkService;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        productBulkService = mock(ProductBulkService.class);
+        ProductController controller = new ProductController(mock(ProductService.class), productBulkService,
+                mock(HotKeyTracker.class), mock(CachedResponses.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should answer 200 with a status per item for a bulk request")
+    void shouldReturnItemResults() throws Exception {
+        // Arrange
+        when(productBulkService.bulkProducts(anyList())).thenReturn(new BulkResponseDto(1, 1, List.of(
+                new BulkItemResultDto(0, BulkOperationType.CREATE, "507f1f77bcf86cd799439011", 201, null),
+                new BulkItemResultDto(1, BulkOperationType.DELETE, "507f1f77bcf86cd799439012", 404, "Product not found"))));
+
+        // Act & Assert
+        mockMvc.perform(post("/api/products/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"operations": [
+                                  {"op": "CREATE", "product": {"name": "Apple", "type": "Fruit"}},
+                                  {"op": "DELETE", "id": "507f1f77bcf86cd799439012"}
+                                ]}"""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.items[0].status").value(201))
+                .andExpect(jsonPath("$.items[1].error").value("Product not found"));
+    }
+
+    @Test
+    @DisplayName("Should reject an empty bulk request with 400")
+    void shouldRejectEmptyBatch() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/products/_bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"operations\": []}"))
+                .andExpect(status().isBadRequest());
+        verifyNoInteractions(productBulkService);
+    }
+}
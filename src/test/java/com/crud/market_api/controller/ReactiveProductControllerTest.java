@@ -0,0 +1,118 @@
+package com.crud.market_api.controller;
+
+import com.crud.market_api.cache.HotKeyTracker;
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.exception.GlobalExceptionHandler;
+import com.crud.market_api.exception.ResourceNotFoundException;
+import com.crud.market_api.exception.VersionConflictException;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.service.ProductBulkService;
+import com.crud.market_api.service.ReactiveProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class ReactiveProductControllerTest {
+
+    private static final String ID = "507f1f77bcf86cd799439011";
+
+    private ReactiveProductService productService;
+    private HotKeyTracker hotKeyTracker;
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        productService = mock(ReactiveProductService.class);
+        hotKeyTracker = mock(HotKeyTracker.class);
+        ReactiveProductController controller = new ReactiveProductController(productService,
+                mock(ProductBulkService.class), hotKeyTracker,
+                new CachedResponses(new ObjectMapper(), new MarketCacheProperties()));
+        webTestClient = WebTestClient.bindToController(controller)
+                .controllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    @DisplayName("Should answer 200 with the product and its ETag")
+    void shouldReturnProduct() {
+        // Arrange
+        when(productService.findById(ID)).thenReturn(Mono.just(product()));
+
+        // Act & Assert
+        webTestClient.get().uri("/api/products/{id}", ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("ETag")
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("Smartphone")
+                .jsonPath("$.version").isEqualTo(3);
+        verify(hotKeyTracker).record(ID);
+    }
+
+    @Test
+    @DisplayName("Should answer 404 for a missing product without counting it as a hot key")
+    void shouldReturnNotFound() {
+        // Arrange
+        when(productService.findById(ID))
+                .thenReturn(Mono.error(new ResourceNotFoundException("Product not found with id: " + ID)));
+
+        // Act & Assert
+        webTestClient.get().uri("/api/products/{id}", ID)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(404)
+                .jsonPath("$.message").isEqualTo("Product not found with id: " + ID);
+        verifyNoInteractions(hotKeyTracker);
+    }
+
+    @Test
+    @DisplayName("Should answer 412 when the update carries an outdated version")
+    void shouldReturnPreconditionFailed() {
+        // Arrange
+        when(productService.updateProduct(any(ProductDto.class)))
+                .thenReturn(Mono.error(new VersionConflictException("Product " + ID + " is at version 4, not 3")));
+
+        // Act & Assert
+        webTestClient.put().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(product())
+                .exchange()
+                .expectStatus().isEqualTo(412)
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(412);
+    }
+
+    @Test
+    @DisplayName("Should answer 400 with the invalid fields of a request body")
+    void shouldRejectInvalidBody() {
+        // Act & Assert
+        webTestClient.post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"type\": \"Electronics\"}")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.errors.name").exists();
+        verifyNoInteractions(productService);
+    }
+
+    private static ProductDto product() {
+        ProductDto product = new ProductDto();
+        product.setId(ID);
+        product.setName("Smartphone");
+        product.setType("Electronics");
+        product.setVersion(3L);
+        return product;
+    }
+}
@@ -0,0 +1,43 @@
+package com.crud.market_api.model.mapper;
+
+import com.crud.market_api.model.dto.ProductDto;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductDtoReadConverterTest {
+
+    private final ProductDtoReadConverter converter = new ProductDtoReadConverter();
+
+    @Test
+    @DisplayName("Should decode a product document into a DTO")
+    void shouldDecodeDocument() {
+        // Arrange
+        ObjectId id = new ObjectId();
+        Document document = new Document("_id", id)
+                .append("name", "Smartphone")
+                .append("type", "Electronics")
+                .append("version", 2L)
+                .append("_class", "com.crud.market_api.model.entity.Product");
+
+        // Act
+        ProductDto dto = converter.convert(document);
+
+        // Assert
+        assertThat(dto.getId()).isEqualTo(id.toHexString());
+        assertThat(dto.getName()).isEqualTo("Smartphone");
+        assertThat(dto.getType()).isEqualTo("Electronics");
+        assertThat(dto.getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    @DisplayName("Should decode the same fields the mapper copies from the entity")
+    void shouldMatchMapper() {
+        ProductDto dto = converter.convert(new Document("_id", "custom-id").append("name", "Milk").append("version", 1));
+
+        assertThat(ProductMapper.toDto(ProductMapper.toEntity(dto))).isEqualTo(dto);
+    }
+}
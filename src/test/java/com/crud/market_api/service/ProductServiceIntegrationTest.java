@@ -1,6 +1,8 @@
 package com.crud.market_api.service;
 
+import com.crud.market_api.exception.VersionConflictException;
 import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.dto.ProductPageDto;
 import org.junit.jupiter.api.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -9,7 +11,10 @@ import org.springframework.test.context.ActiveProfiles;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @SpringBootTest
 @ActiveProfiles("test")
@@ -123,8 +128,8 @@ class ProductServiceIntegrationTest {
 
     @Test
     @Order(5)
-    @DisplayName("Should cache list of all products")
-    void shouldCacheAllProducts() {
+    @DisplayName("Should cache pages of products")
+    void shouldCacheProductPages() {
         // Create multiple products
         ProductDto product1 = new ProductDto();
         product1.setName("Product 1");
@@ -138,19 +143,117 @@ class ProductServiceIntegrationTest {
 
         // First call - should hit database
         long start1 = System.nanoTime();
-        var firstCall = productService.getAllProducts();
+        var firstCall = productService.getProducts(null, 10);
         long duration1 = System.nanoTime() - start1;
-        logger.info("GetAll first call duration: {} ns", duration1);
+        logger.info("Page first call duration: {} ns", duration1);
 
         // Second call - should hit cache
         long start2 = System.nanoTime();
-        var secondCall = productService.getAllProducts();
+        var secondCall = productService.getProducts(null, 10);
         long duration2 = System.nanoTime() - start2;
-        logger.info("GetAll second call duration: {} ns", duration2);
+        logger.info("Page second call duration: {} ns", duration2);
 
         // Assertions
-        assertThat(secondCall).hasSameSizeAs(firstCall);
+        assertThat(secondCall.getItems()).hasSameSizeAs(firstCall.getItems());
         assertThat(duration2).isLessThan(duration1);
-        assertThat(cacheManager.getCache("allProducts")).isNotNull();
+        assertThat(cacheManager.getCache("productPages").get("first:10")).isNotNull();
+    }
+
+    @Test
+    @Order(6)
+    @DisplayName("Should only evict the page that contains the written product")
+    void shouldEvictOnlyTouchedPage() {
+        // Arrange
+        ProductPageDto firstPage = productService.getProducts(null, 1);
+        ProductPageDto secondPage = productService.getProducts(firstPage.getNextCursor(), 1);
+        ProductDto touched = secondPage.getItems().get(0);
+
+        // Act
+        touched.setName("Touched Product");
+        productService.updateProduct(touched);
+
+        // Assert
+        assertThat(cacheManager.getCache("productPages").get("first:1")).isNotNull();
+        assertThat(cacheManager.getCache("productPages").get(firstPage.getNextCursor() + ":1")).isNull();
+        assertThat(productService.getProducts(firstPage.getNextCursor(), 1).getItems().get(0).getName())
+                .isEqualTo("Touched Product");
+    }
+
+    @Test
+    @Order(7)
+    @DisplayName("Should return multiple products in request order from cache and database")
+    void shouldGetMultipleProductsInRequestOrder() {
+        // Arrange
+        ProductDto cachedProduct = new ProductDto();
+        cachedProduct.setName("Cached Product");
+        cachedProduct.setType("Type 1");
+        cachedProduct = productService.createProduct(cachedProduct);
+
+        ProductDto uncachedProduct = new ProductDto();
+        uncachedProduct.setName("Uncached Product");
+        uncachedProduct.setType("Type 2");
+        uncachedProduct = productService.createProduct(uncachedProduct);
+        cacheManager.getCache("products").evict(uncachedProduct.getId());
+
+        // Act
+        var products = productService.findAllByIds(
+                List.of(uncachedProduct.getId(), "000000000000000000000000", cachedProduct.getId()));
+
+        // Assert
+        assertThat(products).extracting(ProductDto::getId)
+                .containsExactly(uncachedProduct.getId(), cachedProduct.getId());
+        assertThat(cacheManager.getCache("products").get(uncachedProduct.getId())).isNotNull();
+    }
+
+    @Test
+    @Order(8)
+    @DisplayName("Should move a product between cached type pages when its type changes")
+    void shouldEvictTypePagesWhenTypeChanges() {
+        // Arrange
+        String oldType = "Old Type " + System.nanoTime();
+        String newType = "New Type " + System.nanoTime();
+        ProductDto product = new ProductDto();
+        product.setName("Moving Product");
+        product.setType(oldType);
+        product = productService.createProduct(product);
+        assertThat(productService.getProductsByType(oldType, null, 10).getItems()).hasSize(1);
+        assertThat(productService.getProductsByType(newType, null, 10).getItems()).isEmpty();
+
+        // Act
+        product.setType(newType);
+        productService.updateProduct(product);
+
+        // Assert
+        assertThat(productService.getProductsByType(oldType, null, 10).getItems()).isEmpty();
+        assertThat(productService.getProductsByType(newType, null, 10).getItems())
+                .extracting(ProductDto::getId)
+                .containsExactly(product.getId());
+        assertThat(productService.searchProductsByName("Moving", null, 100).getItems())
+                .extracting(ProductDto::getType)
+                .doesNotContain(oldType);
+    }
+
+    @Test
+    @Order(9)
+    @DisplayName("Should reject an update at a stale version")
+    void shouldRejectStaleVersion() {
+        // Arrange
+        ProductDto product = new ProductDto();
+        product.setName("Versioned Product");
+        product.setType("Type 1");
+        product = productService.createProduct(product);
+        ProductDto stale = productService.findById(product.getId());
+
+        product.setName("First Writer");
+        ProductDto updated = productService.updateProduct(product);
+
+        // Act
+        stale.setName("Second Writer");
+        Throwable conflict = catchThrowable(() -> productService.updateProduct(stale));
+
+        // Assert
+        assertThat(updated.getVersion()).isEqualTo(stale.getVersion() + 1);
+        assertThat(conflict).isInstanceOf(VersionConflictException.class);
+        assertThat(productService.findById(product.getId()).getName()).isEqualTo("First Writer");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,79 @@
+package com.crud.market_api.service.impl;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class FanOutTest {
+
+    @Test
+    @DisplayName("Should return the results in task order whatever order the calls finish in")
+    void shouldKeepTaskOrder() {
+        // Arrange
+        CountDownLatch secondDone = new CountDownLatch(1);
+        List<Callable<String>> tasks = List.of(
+                () -> {
+                    secondDone.await();
+                    return "first";
+                },
+                () -> {
+                    secondDone.countDown();
+                    return "second";
+                });
+
+        // Act
+        List<String> results = FanOut.callAll(tasks);
+
+        // Assert
+        assertThat(results).containsExactly("first", "second");
+    }
+
+    @Test
+    @DisplayName("Should interrupt the other calls and rethrow as soon as one fails")
+    void shouldFailFast() {
+        // Arrange
+        AtomicBoolean interrupted = new AtomicBoolean();
+        List<Callable<String>> tasks = List.of(
+                () -> {
+                    try {
+                        // Never released, only the interrupt ends it
+                        new CountDownLatch(1).await();
+                        return "never";
+                    } catch (InterruptedException ex) {
+                        interrupted.set(true);
+                        throw ex;
+                    }
+                },
+                () -> {
+                    throw new IllegalArgumentException("boom");
+                });
+
+        // Act & Assert
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThatThrownBy(() -> FanOut.callAll(tasks))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("boom"));
+        assertThat(interrupted).isTrue();
+    }
+
+    @Test
+    @DisplayName("Should run a single call on the caller's thread")
+    void shouldRunSingleCallInline() {
+        // Arrange
+        Thread caller = Thread.currentThread();
+
+        // Act
+        List<Boolean> results = FanOut.callAll(List.of(() -> Thread.currentThread() == caller));
+
+        // Assert
+        assertThat(results).containsExactly(true);
+    }
+}
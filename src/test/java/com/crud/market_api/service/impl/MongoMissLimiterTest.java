@@ -0,0 +1,111 @@
+package com.crud.market_api.service.impl;
+
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MongoMissLimiterTest {
+
+    private MarketCacheProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new MarketCacheProperties();
+        properties.getMissLimiter().setMaxWait(Duration.ofMillis(10));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    @DisplayName("Should reject queries beyond the burst with a Retry-After until the next token")
+    void shouldRejectBeyondBurst() {
+        // Arrange
+        properties.getMissLimiter().setBurst(2);
+        properties.getMissLimiter().setRatePerSecond(1);
+        MongoMissLimiter limiter = new MongoMissLimiter(properties, meterRegistry);
+
+        // Act
+        limiter.call(() -> "first");
+        limiter.call(() -> "second");
+
+        // Assert
+        assertThatThrownBy(() -> limiter.call(() -> "third"))
+                .isInstanceOfSatisfying(ServiceOverloadedException.class, ex -> {
+                    assertThat(ex.getRetryAfter()).isPositive().isLessThanOrEqualTo(Duration.ofSeconds(1));
+                    assertThat(ex.retryAfterSeconds()).isEqualTo("1");
+                });
+        assertThat(meterRegistry.get("product.mongo_fallback.rejected").tag("reason", "rate").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should refill tokens at the configured rate")
+    void shouldRefillTokens() throws InterruptedException {
+        // Arrange
+        properties.getMissLimiter().setBurst(1);
+        properties.getMissLimiter().setRatePerSecond(100);
+        MongoMissLimiter limiter = new MongoMissLimiter(properties, meterRegistry);
+        limiter.call(() -> "first");
+
+        // Act
+        TimeUnit.MILLISECONDS.sleep(30);
+
+        // Assert
+        assertThat(limiter.call(() -> "refilled")).isEqualTo("refilled");
+    }
+
+    @Test
+    @DisplayName("Should reject a query that waits too long for a concurrency permit without spending a token")
+    void shouldRejectWithoutPermit() throws Exception {
+        // Arrange
+        properties.getMissLimiter().setMaxConcurrent(1);
+        properties.getMissLimiter().setBurst(2);
+        properties.getMissLimiter().setRatePerSecond(0.001);
+        MongoMissLimiter limiter = new MongoMissLimiter(properties, meterRegistry);
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newSingleThreadExecutor()) {
+            Future<String> slow = executor.submit(() -> limiter.call(() -> {
+                running.countDown();
+                awaitQuietly(release);
+                return "slow";
+            }));
+            running.await();
+
+            // Act & Assert
+            assertThat(meterRegistry.get("product.mongo_fallback.active").gauge().value()).isEqualTo(1.0);
+            assertThatThrownBy(() -> limiter.call(() -> "fast"))
+                    .isInstanceOfSatisfying(ServiceOverloadedException.class,
+                            ex -> assertThat(ex.getRetryAfter()).isEqualTo(Duration.ofMillis(10)));
+            assertThat(meterRegistry.get("product.mongo_fallback.rejected").tag("reason", "concurrency").counter().count())
+                    .isEqualTo(1.0);
+
+            release.countDown();
+            assertThat(slow.get()).isEqualTo("slow");
+            assertThat(limiter.call(() -> "fast")).isEqualTo("fast");
+            assertThat(meterRegistry.get("product.mongo_fallback.rejected").tag("reason", "rate").counter().count())
+                    .isZero();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
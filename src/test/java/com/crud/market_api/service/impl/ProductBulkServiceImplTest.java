@@ -0,0 +1,230 @@
+package com.crud.market_api.service.impl;
+
+import com.crud.market_api.cache.ProductPageCache;
+import com.crud.market_api.cache.RedisCacheBatchOperations;
+import com.crud.market_api.model.dto.BulkItemResultDto;
+import com.crud.market_api.model.dto.BulkOperationDto;
+import com.crud.market_api.model.dto.BulkOperationType;
+import com.crud.market_api.model.dto.BulkResponseDto;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import com.mongodb.bulk.BulkWriteResult;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductBulkServiceImplTest {
+
+    private static final String APPLE_ID = "507f1f77bcf86cd799439011";
+    private static final String PEAR_ID = "507f1f77bcf86cd799439012";
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+    private RedisCacheBatchOperations batchOperations;
+    private Cache productCache;
+    private ProductBulkServiceImpl bulkService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulk);
+        when(mongoTemplate.getCollectionName(Product.class)).thenReturn("products");
+        batchOperations = mock(RedisCacheBatchOperations.class);
+        productCache = mock(Cache.class);
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache("products")).thenReturn(productCache);
+        bulkService = new ProductBulkServiceImpl(mongoTemplate, cacheManager, batchOperations,
+                mock(ProductPageCache.class), Validation.buildDefaultValidatorFactory().getValidator());
+    }
+
+    @Test
+    @DisplayName("Should filter an update by its version and evict the product instead of caching a computed state")
+    void shouldUpdateByVersionAndEvict() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(ProductDto.class), eq("products")))
+                .thenReturn(List.of(product(APPLE_ID, "Apple", 3L)));
+        when(bulk.execute()).thenReturn(writeResult(1));
+        ArgumentCaptor<Query> filter = ArgumentCaptor.forClass(Query.class);
+
+        // Act
+        BulkResponseDto response = bulkService.bulkProducts(List.of(update(APPLE_ID, "Green Apple", 3L)));
+
+        // Assert
+        assertThat(response.getSucceeded()).isEqualTo(1);
+        assertThat(response.getItems().get(0).getStatus()).isEqualTo(200);
+        verify(bulk).updateOne(filter.capture(), any(Update.class));
+        assertThat(filter.getValue().getQueryObject().toJson()).contains("\"version\": 3");
+        verify(batchOperations).evictAll(productCache, List.of(APPLE_ID));
+        verify(batchOperations).putAll(productCache, Map.of());
+    }
+
+    @Test
+    @DisplayName("Should reject every operation on a product that appears twice in the batch")
+    void shouldRejectDuplicateIds() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(ProductDto.class), eq("products")))
+                .thenReturn(List.of(product(APPLE_ID, "Apple", 0L), product(PEAR_ID, "Pear", 0L)));
+        when(bulk.execute()).thenReturn(writeResult(1));
+
+        // Act
+        BulkResponseDto response = bulkService.bulkProducts(List.of(
+                update(APPLE_ID, "Green Apple", null),
+                delete(APPLE_ID),
+                update(PEAR_ID, "Nashi", null)));
+
+        // Assert
+        assertThat(response.getItems()).extracting(BulkItemResultDto::getStatus).containsExactly(400, 400, 200);
+        assertThat(response.getItems().get(0).getError()).startsWith("Duplicate product ID in batch");
+        verify(bulk).updateOne(any(Query.class), any(Update.class));
+        verify(bulk, never()).remove(any(Query.class));
+    }
+
+    @Test
+    @DisplayName("Should report 404 and cache nothing for an update whose product was deleted during the batch")
+    void shouldReportUpdateOfConcurrentlyDeletedProduct() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(ProductDto.class), eq("products")))
+                .thenReturn(List.of(product(APPLE_ID, "Apple", 1L)))
+                .thenReturn(List.of());
+        when(bulk.execute()).thenReturn(writeResult(0));
+
+        // Act
+        BulkResponseDto response = bulkService.bulkProducts(List.of(update(APPLE_ID, "Green Apple", null)));
+
+        // Assert
+        assertThat(response.getFailed()).isEqualTo(1);
+        assertThat(response.getItems().get(0).getStatus()).isEqualTo(404);
+        verify(batchOperations).putAll(productCache, Map.of());
+        verify(batchOperations).evictAll(productCache, List.of());
+    }
+
+    @Test
+    @DisplayName("Should report 412 for an update whose product another writer changed during the batch")
+    void shouldReportUpdateOfConcurrentlyChangedProduct() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(ProductDto.class), eq("products")))
+                .thenReturn(List.of(product(APPLE_ID, "Apple", 3L)))
+                .thenReturn(List.of(product(APPLE_ID, "Red Apple", 4L)));
+        when(bulk.execute()).thenReturn(writeResult(0));
+
+        // Act
+        BulkResponseDto response = bulkService.bulkProducts(List.of(update(APPLE_ID, "Green Apple", 3L)));
+
+        // Assert
+        assertThat(response.getItems().get(0).getStatus()).isEqualTo(412);
+        assertThat(response.getItems().get(0).getError()).contains("version 4");
+        verify(batchOperations).evictAll(productCache, List.of());
+    }
+
+    @Test
+    @DisplayName("Should filter a delete by its version and report 204 when the product was removed")
+    void shouldDeleteByVersion() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(ProductDto.class), eq("products")))
+                .thenReturn(List.of(product(APPLE_ID, "Apple", 3L)));
+        when(bulk.execute()).thenReturn(deleteResult(1));
+        ArgumentCaptor<Query> filter = ArgumentCaptor.forClass(Query.class);
+
+        // Act
+        BulkResponseDto response = bulkService.bulkProducts(List.of(delete(APPLE_ID, 3L)));
+
+        // Assert
+        assertThat(response.getItems().get(0).getStatus()).isEqualTo(204);
+        verify(bulk).remove(filter.capture());
+        assertThat(filter.getValue().getQueryObject().toJson()).contains("\"version\": 3");
+        verify(mongoTemplate).find(any(Query.class), eq(ProductDto.class), eq("products"));
+        verify(batchOperations).evictAll(productCache, List.of(APPLE_ID));
+    }
+
+    @Test
+    @DisplayName("Should report 412 for a delete whose product another writer changed during the batch")
+    void shouldReportDeleteOfConcurrentlyChangedProduct() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(ProductDto.class), eq("products")))
+                .thenReturn(List.of(product(APPLE_ID, "Apple", 3L)))
+                .thenReturn(List.of(product(APPLE_ID, "Red Apple", 4L)));
+        when(bulk.execute()).thenReturn(deleteResult(0));
+
+        // Act
+        BulkResponseDto response = bulkService.bulkProducts(List.of(delete(APPLE_ID, 3L)));
+
+        // Assert
+        assertThat(response.getItems().get(0).getStatus()).isEqualTo(412);
+        assertThat(response.getItems().get(0).getError()).contains("version 4");
+        verify(batchOperations).evictAll(productCache, List.of());
+    }
+
+    @Test
+    @DisplayName("Should report 404 for a delete whose product another writer deleted during the batch")
+    void shouldReportDeleteOfConcurrentlyDeletedProduct() {
+        // Arrange
+        when(mongoTemplate.find(any(Query.class), eq(ProductDto.class), eq("products")))
+                .thenReturn(List.of(product(APPLE_ID, "Apple", 3L), product(PEAR_ID, "Pear", 1L)))
+                .thenReturn(List.of(product(PEAR_ID, "Pear", 2L)));
+        when(bulk.execute()).thenReturn(deleteResult(0));
+
+        // Act
+        BulkResponseDto response = bulkService.bulkProducts(List.of(delete(APPLE_ID, null), delete(PEAR_ID, 1L)));
+
+        // Assert
+        assertThat(response.getFailed()).isEqualTo(2);
+        assertThat(response.getItems()).extracting(BulkItemResultDto::getStatus).containsExactly(404, 412);
+        verify(batchOperations).evictAll(productCache, List.of());
+    }
+
+    private static BulkWriteResult writeResult(int matched) {
+        return BulkWriteResult.acknowledged(0, matched, 0, matched, List.of(), List.of());
+    }
+
+    private static BulkWriteResult deleteResult(int deleted) {
+        return BulkWriteResult.acknowledged(0, 0, deleted, 0, List.of(), List.of());
+    }
+
+    private static BulkOperationDto update(String id, String name, Long version) {
+        BulkOperationDto operation = new BulkOperationDto();
+        operation.setOp(BulkOperationType.UPDATE);
+        operation.setProduct(product(id, name, version));
+        return operation;
+    }
+
+    private static BulkOperationDto delete(String id) {
+        return delete(id, null);
+    }
+
+    private static BulkOperationDto delete(String id, Long version) {
+        BulkOperationDto operation = new BulkOperationDto();
+        operation.setOp(BulkOperationType.DELETE);
+        operation.setId(id);
+        operation.setVersion(version);
+        return operation;
+    }
+
+    private static ProductDto product(String id, String name, Long version) {
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        product.setName(name);
+        product.setType("Fruit");
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,229 @@
+package com.crud.market_api.service.impl;
+
+import com.crud.market_api.cache.CachePolicies;
+import com.crud.market_api.cache.ProductPageCache;
+import com.crud.market_api.cache.ProductWriteBehindQueue;
+import com.crud.market_api.cache.RedisCacheBatchOperations;
+import com.crud.market_api.config.MarketCacheProperties;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.model.entity.Product;
+import com.crud.market_api.repository.ProductRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.redis.connection.stream.Consumer;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.ReadOffset;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.connection.stream.StreamOffset;
+import org.springframework.data.redis.connection.stream.StreamReadOptions;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductServiceImplTest {
+
+    private static final String ID = "507f1f77bcf86cd799439011";
+
+    @Test
+    @DisplayName("Should export one JSON object per line with nothing between the lines")
+    @SuppressWarnings("unchecked")
+    void shouldExportNdjson() throws IOException {
+        // Arrange
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.streamAllDtos()).thenReturn(Stream.of(product("1", "Apple", 0L), product("2", "Pear", 0L)));
+        ProductServiceImpl productService = new ProductServiceImpl(productRepository, mock(ProductPageCache.class),
+                new ObjectMapper(), mock(CacheManager.class), mock(RedisCacheBatchOperations.class),
+                mock(ObjectProvider.class), mock(CachePolicies.class), mock(MongoMissLimiter.class));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        // Act
+        productService.exportProducts(output);
+
+        // Assert
+        assertThat(output.toString(StandardCharsets.UTF_8)).isEqualTo("""
+                {"id":"1","name":"Apple","type":"Fruit","version":0}
+                {"id":"2","name":"Pear","type":"Fruit","version":0}
+                """);
+    }
+
+    @Test
+    @DisplayName("Should keep every accepted update when the write-behind queue saturates in between")
+    @SuppressWarnings("unchecked")
+    void shouldKeepQueuedUpdateWhenSaturated() throws InterruptedException {
+        // Arrange
+        MarketCacheProperties properties = new MarketCacheProperties();
+        properties.getWriteBehind().setMaxQueueDepth(1);
+        properties.getWriteBehind().setConsumerName("node-1");
+        Map<String, Document> mongo = new HashMap<>();
+        mongo.put(ID, new Document("_id", ID).append("name", "Smartphone").append("type", "Fruit").append("version", 0L));
+
+        ProductRepository productRepository = mock(ProductRepository.class);
+        when(productRepository.findDtoById(ID)).thenAnswer(invocation -> Optional.of(toDto(mongo.get(ID))));
+        MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+        BulkOperations bulk = fakeBulk(mongo);
+        when(mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Product.class)).thenReturn(bulk);
+        StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+        StreamOperations<String, String, String> stream = fakeStream();
+        when(redisTemplate.<String, String>opsForStream()).thenReturn(stream);
+        ProductWriteBehindQueue queue = new ProductWriteBehindQueue(redisTemplate, mongoTemplate,
+                mock(ProductPageCache.class), properties, new SimpleMeterRegistry());
+
+        ConcurrentMapCache productCache = new ConcurrentMapCache("products");
+        CacheManager cacheManager = mock(CacheManager.class);
+        when(cacheManager.getCache("products")).thenReturn(productCache);
+        ObjectProvider<ProductWriteBehindQueue> queueProvider = mock(ObjectProvider.class);
+        when(queueProvider.getIfAvailable()).thenReturn(queue);
+        ProductServiceImpl productService = new ProductServiceImpl(productRepository, mock(ProductPageCache.class),
+                new ObjectMapper(), cacheManager, compareAndUpdateOn(productCache), queueProvider,
+                mock(CachePolicies.class), new MongoMissLimiter(properties, new SimpleMeterRegistry()));
+
+        // Act
+        productService.updateProduct(product(ID, "Smartphone Pro", 0L));
+        ProductDto saturatedUpdate = productService.updateProduct(product(ID, "Smartphone Max", 1L));
+        queue.destroy();
+
+        // Assert
+        assertThat(saturatedUpdate.getVersion()).isEqualTo(2L);
+        assertThat(mongo.get(ID).getString("name")).isEqualTo("Smartphone Max");
+        assertThat(mongo.get(ID).getLong("version")).isEqualTo(2L);
+        assertThat(stream.size("products:write-behind")).isZero();
+        verify(productRepository, never()).updateDto(any(ProductDto.class), any());
+    }
+
+    // Applies a compare-and-update to the cache the way the Redis script does, without Redis
+    @SuppressWarnings("unchecked")
+    private static RedisCacheBatchOperations compareAndUpdateOn(Cache cache) {
+        RedisCacheBatchOperations batchOperations = mock(RedisCacheBatchOperations.class);
+        when(batchOperations.compareAndUpdate(eq(cache), anyString(), eq(ProductDto.class), any(Supplier.class),
+                any(UnaryOperator.class))).thenAnswer(invocation -> {
+            String key = invocation.getArgument(1);
+            ProductDto current = cache.get(key, ProductDto.class);
+            if (current == null) {
+                current = ((Supplier<ProductDto>) invocation.getArgument(3)).get();
+            }
+            ProductDto next = ((UnaryOperator<ProductDto>) invocation.getArgument(4)).apply(current);
+            cache.put(key, next);
+            return next;
+        });
+        return batchOperations;
+    }
+
+    // Stream entries are delivered once and removed when deleted
+    @SuppressWarnings("unchecked")
+    private static StreamOperations<String, String, String> fakeStream() {
+        List<MapRecord<String, String, String>> records = new ArrayList<>();
+        StreamOperations<String, String, String> stream = mock(StreamOperations.class);
+        when(stream.add(any(MapRecord.class))).thenAnswer(invocation -> {
+            RecordId id = RecordId.of((records.size() + 1) + "-0");
+            records.add(((MapRecord<String, String, String>) invocation.getArgument(0)).withId(id));
+            return id;
+        });
+        when(stream.read(any(Consumer.class), any(StreamReadOptions.class), any(StreamOffset.class)))
+                .thenAnswer(invocation -> ((StreamOffset<String>) invocation.getArgument(2)).getOffset()
+                        .equals(ReadOffset.lastConsumed()) ? new ArrayList<>(records) : List.of());
+        when(stream.delete(anyString(), any(RecordId[].class))).thenAnswer(invocation -> {
+            List<Object> deleted = Arrays.asList(invocation.getArguments()).subList(1, invocation.getArguments().length);
+            records.removeIf(record -> deleted.contains(record.getId()));
+            return (long) deleted.size();
+        });
+        when(stream.size(anyString())).thenAnswer(invocation -> (long) records.size());
+        return stream;
+    }
+
+    // Applies each update's $set to the documents its filter matches once the bulk is executed
+    private static BulkOperations fakeBulk(Map<String, Document> mongo) {
+        List<Query> queries = new ArrayList<>();
+        List<Update> updates = new ArrayList<>();
+        BulkOperations bulk = mock(BulkOperations.class);
+        doAnswer(invocation -> {
+            queries.add(invocation.getArgument(0));
+            updates.add(invocation.getArgument(1));
+            return bulk;
+        }).when(bulk).updateOne(any(Query.class), any(Update.class));
+        when(bulk.execute()).thenAnswer(invocation -> {
+            for (int i = 0; i < queries.size(); i++) {
+                for (Document document : mongo.values()) {
+                    if (matches(document, queries.get(i).getQueryObject())) {
+                        document.putAll(updates.get(i).getUpdateObject().get("$set", Document.class));
+                    }
+                }
+            }
+            queries.clear();
+            updates.clear();
+            return null;
+        });
+        return bulk;
+    }
+
+    // The operators the write-behind filters use: $and, $or, $lt, $exists and equality
+    @SuppressWarnings("unchecked")
+    private static boolean matches(Document document, Document filter) {
+        for (Map.Entry<String, Object> condition : filter.entrySet()) {
+            boolean matched = switch (condition.getKey()) {
+                case "$and" -> ((List<Document>) condition.getValue()).stream().allMatch(part -> matches(document, part));
+                case "$or" -> ((List<Document>) condition.getValue()).stream().anyMatch(part -> matches(document, part));
+                default -> {
+                    Object actual = document.get(condition.getKey());
+                    if (condition.getValue() instanceof Document operator) {
+                        if (operator.containsKey("$exists")) {
+                            yield document.containsKey(condition.getKey()) == operator.getBoolean("$exists");
+                        }
+                        yield actual instanceof Number number
+                                && number.longValue() < ((Number) operator.get("$lt")).longValue();
+                    }
+                    yield condition.getValue().equals(actual);
+                }
+            };
+            if (!matched) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static ProductDto toDto(Document document) {
+        return product(document.getString("_id"), document.getString("name"), document.getLong("version"));
+    }
+
+    private static ProductDto product(String id, String name, long version) {
+        ProductDto product = new ProductDto();
+        product.setId(id);
+        product.setName(name);
+        product.setType("Fruit");
+        product.setVersion(version);
+        return product;
+    }
+}
@@ -0,0 +1,80 @@
+package com.crud.market_api.service.impl;
+
+import com.crud.market_api.cache.ReactiveProductCache;
+import com.crud.market_api.exception.ResourceNotFoundException;
+import com.crud.market_api.model.dto.ProductDto;
+import com.crud.market_api.repository.ReactiveProductRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReactiveProductServiceImplTest {
+
+    private static final String ID = "507f1f77bcf86cd799439011";
+
+    private ReactiveProductRepository productRepository;
+    private ReactiveProductServiceImpl productService;
+
+    @BeforeEach
+    void setUp() {
+        productRepository = mock(ReactiveProductRepository.class);
+        ReactiveProductCache productCache = mock(ReactiveProductCache.class);
+        when(productCache.getProduct(anyString())).thenReturn(Mono.empty());
+        when(productCache.putProduct(any(ProductDto.class))).thenReturn(Mono.empty());
+        when(productCache.putMissingProduct(anyString())).thenReturn(Mono.empty());
+        productService = new ReactiveProductServiceImpl(productRepository, productCache);
+    }
+
+    @Test
+    @DisplayName("Should share one load between concurrent misses on the same id")
+    void shouldCoalesceConcurrentMisses() {
+        // Arrange
+        Sinks.One<ProductDto> loaded = Sinks.one();
+        when(productRepository.findDtoById(ID)).thenReturn(loaded.asMono());
+
+        // Act
+        CompletableFuture<ProductDto> first = productService.findById(ID).toFuture();
+        CompletableFuture<ProductDto> second = productService.findById(ID).toFuture();
+        loaded.tryEmitValue(product());
+
+        // Assert
+        assertThat(first.join()).isEqualTo(product());
+        assertThat(second.join()).isEqualTo(product());
+        verify(productRepository, times(1)).findDtoById(ID);
+    }
+
+    @Test
+    @DisplayName("Should load again once the previous load for the id has completed")
+    void shouldReloadAfterCompletedLoad() {
+        // Arrange
+        when(productRepository.findDtoById(ID)).thenReturn(Mono.empty()).thenReturn(Mono.just(product()));
+
+        // Act & Assert
+        assertThatThrownBy(() -> productService.findById(ID).block())
+                .isInstanceOf(ResourceNotFoundException.class);
+        assertThat(productService.findById(ID).block()).isEqualTo(product());
+        verify(productRepository, times(2)).findDtoById(ID);
+    }
+
+    private static ProductDto product() {
+        ProductDto product = new ProductDto();
+        product.setId(ID);
+        product.setName("Smartphone");
+        product.setType("Electronics");
+        product.setVersion(3L);
+        return product;
+    }
+}